@@ -0,0 +1,40 @@
+package az.azercell.benchmarks;
+
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs the JMH benchmarks of this module with the GC profiler on, so every result carries
+ * {@code gc.alloc.rate.norm}, the bytes allocated per operation. Arguments are the usual JMH ones:
+ * <pre>
+ * mvn -f customer install &amp;&amp; mvn -f purchase install &amp;&amp; mvn -f benchmarks package
+ * java -jar benchmarks/target/benchmarks.jar                       # everything
+ * java -jar benchmarks/target/benchmarks.jar Jwt -rf json          # by regex, results in jmh-result.json
+ * java -jar benchmarks/target/benchmarks.jar -l                    # list benchmarks
+ * </pre>
+ * Compare {@code gc.alloc.rate.norm} between runs rather than {@code gc.alloc.rate}, which moves with throughput.
+ */
+public class BenchmarkMain {
+
+    private static final String PROFILER_OPTION = "-prof";
+    private static final String GC_PROFILER = "gc";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        org.openjdk.jmh.Main.main(withGcProfiler(args));
+    }
+
+    static String[] withGcProfiler(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(PROFILER_OPTION)
+                    && (args[i + 1].equals(GC_PROFILER) || args[i + 1].startsWith(GC_PROFILER + ":"))) {
+                return args;
+            }
+        }
+        String[] withProfiler = Arrays.copyOf(args, args.length + 2);
+        withProfiler[args.length] = PROFILER_OPTION;
+        withProfiler[args.length + 1] = GC_PROFILER;
+        return withProfiler;
+    }
+}
@@ -0,0 +1,120 @@
+package az.azercell.benchmarks;
+
+import az.azercell.customer.model.Customer;
+import az.azercell.customer.repository.BaseJpaSpecificationRepositoryImpl;
+import az.azercell.customer.repository.CustomerRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two lookups of a customer by GSM number, through the real {@link CustomerRepository}, against a database filled
+ * by the dataset generator: {@link CustomerRepository#findFirstByGsmNumberOrderByIdDesc} loads the entity,
+ * {@link CustomerRepository#findIdByGsmNumber} reads only the id. Numbers are sampled over the whole id range, so
+ * the lookups are spread over the index as in production rather than hitting a few hot pages.
+ * <p>
+ * The database comes from system properties, which JMH passes on to its forks:
+ * <pre>
+ * java -Dlookup.url=jdbc:mysql://localhost:3306/mysqldbdev -Dlookup.user=user -Dlookup.password=... \
+ *     -jar benchmarks/target/benchmarks.jar CustomerLookup
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CustomerLookupBenchmark {
+
+    // A power of two, see Cursor.
+    private static final int SAMPLE_SIZE = 4096;
+    private static final long SEED = 42;
+
+    private ConfigurableApplicationContext context;
+    private CustomerRepository repository;
+    private String[] gsmNumbers;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Customer.class)
+    @EnableJpaRepositories(basePackageClasses = CustomerRepository.class,
+            repositoryBaseClass = BaseJpaSpecificationRepositoryImpl.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = CustomerRepository.class))
+    static class LookupConfig {
+    }
+
+    @Setup
+    public void setUp() {
+        // Arguments rather than default properties, so they win over the application.yml of the service jars.
+        context = new SpringApplicationBuilder(LookupConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + System.getProperty("lookup.url",
+                                "jdbc:mysql://localhost:3306/mysqldbdev"),
+                        "--spring.datasource.username=" + System.getProperty("lookup.user", "user"),
+                        "--spring.datasource.password=" + System.getProperty("lookup.password", ""),
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.jpa.open-in-view=false",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+        repository = context.getBean(CustomerRepository.class);
+        gsmNumbers = sample(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String[] sample(JdbcTemplate jdbcTemplate) {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS low, MAX(id) AS high FROM customers");
+        if (range.get("low") == null) {
+            throw new IllegalStateException("customers is empty; fill it with the dataset generator first");
+        }
+        long low = ((Number) range.get("low")).longValue();
+        long high = ((Number) range.get("high")).longValue();
+
+        Random random = new Random(SEED);
+        List<String> sample = new ArrayList<>(SAMPLE_SIZE);
+        while (sample.size() < SAMPLE_SIZE) {
+            long id = low + (long) (random.nextDouble() * (high - low + 1));
+            sample.addAll(jdbcTemplate.queryForList("SELECT gsm_number FROM customers WHERE id = ?", String.class, id));
+        }
+        return sample.toArray(new String[0]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String next(String[] gsmNumbers) {
+            return gsmNumbers[next++ & (SAMPLE_SIZE - 1)];
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> findFirstByGsmNumberOrderByIdDesc(Cursor cursor) {
+        return repository.findFirstByGsmNumberOrderByIdDesc(cursor.next(gsmNumbers));
+    }
+
+    @Benchmark
+    public Optional<Long> findIdByGsmNumber(Cursor cursor) {
+        return repository.findIdByGsmNumber(cursor.next(gsmNumbers));
+    }
+}
@@ -0,0 +1,74 @@
+package az.azercell.benchmarks;
+
+import az.azercell.customer.security.JwtService;
+import az.azercell.purchase.util.JwtTokenUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minting tokens at login and reading them in the transaction services. {@link JwtTokenUtil} caches verified claims,
+ * so the {@code Cached} benchmarks repeat one token and the {@code Uncached} ones cycle through more distinct tokens
+ * than the cache holds, which makes every call verify the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JwtBenchmark {
+
+    private static final String GSM_NUMBER = "994501234567";
+    // Twice the size of the claims cache of JwtTokenUtil.
+    private static final int DISTINCT_TOKENS = 20_000;
+
+    private final JwtService jwtService = new JwtService();
+    private String token;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        token = jwtService.generateToken(GSM_NUMBER, 42L);
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = jwtService.generateToken(GSM_NUMBER, (long) i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String next(String[] tokens) {
+            String token = tokens[next];
+            next = next + 1 == tokens.length ? 0 : next + 1;
+            return token;
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(GSM_NUMBER, 42L);
+    }
+
+    @Benchmark
+    public String extractPhoneNumberCached() {
+        return JwtTokenUtil.extractPhoneNumber(token);
+    }
+
+    @Benchmark
+    public String extractPhoneNumberUncached(Cursor cursor) {
+        return JwtTokenUtil.extractPhoneNumber(cursor.next(tokens));
+    }
+
+    @Benchmark
+    public void validateTokenCached() {
+        JwtTokenUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public void validateTokenUncached(Cursor cursor) {
+        JwtTokenUtil.validateToken(cursor.next(tokens));
+    }
+}
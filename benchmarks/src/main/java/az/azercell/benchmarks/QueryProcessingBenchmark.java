@@ -0,0 +1,71 @@
+package az.azercell.benchmarks;
+
+import az.azercell.customer.generic.TotalCount;
+import az.azercell.customer.util.PaginationUtil;
+import az.azercell.customer.util.QueryProcessingUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list endpoints' handling of {@code sort} and of the pagination headers. The customer copies are measured; the
+ * transaction services carry the same classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QueryProcessingBenchmark {
+
+    private static final String SORT = "[{\"selector\":\"operatedAt\",\"desc\":true},{\"selector\":\"id\",\"desc\":false}]";
+    private static final List<List<String>> SORT_INDEXES = List.of(List.of("operatedAt", "id"), List.of("id"));
+    private static final String REQUEST_URI = "http://localhost:8080/api/customers?skip=60&take=20&sort=" + SORT;
+
+    private JsonNode sortNode;
+    private Slice<Object> slice;
+    private TotalCount total;
+
+    @Setup
+    public void setUp() {
+        sortNode = QueryProcessingUtils.parseSortParameter(SORT);
+        slice = new PageImpl<>(List.of(), PageRequest.of(3, 20), 10_000);
+        total = TotalCount.exact(10_000);
+    }
+
+    @Benchmark
+    public JsonNode parseSortParameter() {
+        return QueryProcessingUtils.parseSortParameter(SORT);
+    }
+
+    @Benchmark
+    public Sort resolveSortCriteria() {
+        return QueryProcessingUtils.resolveSortCriteria(sortNode);
+    }
+
+    /**
+     * The path the controllers take, which serves repeated {@code sort} values from the parsed sort cache.
+     */
+    @Benchmark
+    public Sort resolveSortCriteriaCached() {
+        return QueryProcessingUtils.resolveSortCriteria(SORT, SORT_INDEXES);
+    }
+
+    /**
+     * Includes building the URI, as the controllers start from the current request for every response.
+     */
+    @Benchmark
+    public HttpHeaders generatePaginationHttpHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromUriString(REQUEST_URI), slice,
+                total);
+    }
+}
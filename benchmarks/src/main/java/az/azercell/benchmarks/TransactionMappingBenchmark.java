@@ -0,0 +1,64 @@
+package az.azercell.benchmarks;
+
+import az.azercell.purchase.dto.TransactionDTO;
+import az.azercell.purchase.enumeration.CreatedBy;
+import az.azercell.purchase.enumeration.TransactionType;
+import az.azercell.purchase.model.Transaction;
+import az.azercell.purchase.util.CalculateBalance;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a transaction row to its DTO, which resolves both enums, and the balance arithmetic of every
+ * money-movement request. The purchase copies are measured; top-up and refund carry the same classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TransactionMappingBenchmark {
+
+    private Transaction transaction;
+    private BigDecimal balance;
+    private double amount;
+
+    @Setup
+    public void setUp() {
+        transaction = new Transaction();
+        transaction.setId(1_000_000L);
+        transaction.setCustomerId(42L);
+        transaction.setTransactionTypeId(TransactionType.OUT.getOrder());
+        transaction.setCreatedById(CreatedBy.CUSTOMER.getOrder());
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setBeforeAmount(new BigDecimal("100.00"));
+        transaction.setAfterAmount(new BigDecimal("87.50"));
+        transaction.setOperatedAt(LocalDateTime.now());
+        balance = new BigDecimal("100.00");
+        amount = 12.5;
+    }
+
+    @Benchmark
+    public TransactionDTO transactionDto() {
+        return new TransactionDTO(transaction);
+    }
+
+    @Benchmark
+    public TransactionType transactionTypeOf() {
+        return TransactionType.of(transaction.getTransactionTypeId());
+    }
+
+    @Benchmark
+    public CreatedBy createdByOf() {
+        return CreatedBy.of(transaction.getCreatedById());
+    }
+
+    @Benchmark
+    public BigDecimal calculateNewBalance() {
+        return CalculateBalance.calculateNewBalance(balance, amount);
+    }
+}
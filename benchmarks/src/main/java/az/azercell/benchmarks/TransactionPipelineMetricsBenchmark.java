@@ -0,0 +1,68 @@
+package az.azercell.benchmarks;
+
+import az.azercell.purchase.service.TransactionPipelineMetrics;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Outcome;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Stage;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the pipeline timers add to one purchase: five {@link TransactionPipelineMetrics#stage} calls and one
+ * {@link TransactionPipelineMetrics#outcome}, against the same six bare {@code nanoTime} calls. The timers are bound
+ * to a Prometheus registry, as in the services, so every stage also updates a percentile histogram. The top-up and
+ * refund services carry the same class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TransactionPipelineMetricsBenchmark {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final TransactionPipelineMetrics metrics = new TransactionPipelineMetrics();
+    private final TransactionPipelineMetrics unbound = new TransactionPipelineMetrics();
+
+    @Setup
+    public void setUp() {
+        metrics.bindTo(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @Benchmark
+    public long bareNanoTime() {
+        long started = System.nanoTime();
+        long now = started;
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            now = System.nanoTime();
+        }
+        return System.nanoTime() - started + now;
+    }
+
+    @Benchmark
+    public long stageTimers() {
+        return purchase(metrics);
+    }
+
+    /**
+     * Before a registry is bound the timers only read the clock.
+     */
+    @Benchmark
+    public long stageTimersUnbound() {
+        return purchase(unbound);
+    }
+
+    private static long purchase(TransactionPipelineMetrics metrics) {
+        long started = System.nanoTime();
+        long now = started;
+        for (Stage stage : STAGES) {
+            now = metrics.stage(stage, now);
+        }
+        metrics.outcome(Outcome.SUCCESS, started);
+        return now;
+    }
+}
@@ -1,11 +1,16 @@
 package az.azercell.customer;
 
+import az.azercell.customer.repository.BaseJpaSpecificationRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 @EnableSwagger2
+@EnableScheduling
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = BaseJpaSpecificationRepositoryImpl.class)
 public class CustomerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,106 @@
+package az.azercell.customer.config;
+
+import az.azercell.customer.util.ServerTiming;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Adds a {@code Server-Timing} header with the time spent in repositories and writing the response body, see
+ * {@link ServerTiming}. Off unless {@code server-timing.enabled} is set, since the response body is buffered until the
+ * header is known.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig {
+
+    private static final MethodInterceptor REPOSITORY_TIMING = invocation -> {
+        long started = ServerTiming.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            ServerTiming.stop(ServerTiming.Stage.REPOSITORY, started);
+        }
+    };
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        ServerTiming.enable();
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor serverTimingRepositoryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(REPOSITORY_TIMING)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class ServerTimingFilter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+            ServerTiming timing = ServerTiming.begin();
+            try {
+                chain.doFilter(request, buffered);
+            } finally {
+                response.setHeader(ServerTiming.HEADER, timing.end());
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    /**
+     * Marks where the handler ends and the message converter starts writing the body.
+     */
+    @ControllerAdvice
+    @ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+    static class SerializationTimingAdvice implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            ServerTiming.startSerialization();
+            return body;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package az.azercell.customer.config;
+
+import az.azercell.customer.util.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records the SQL statements of every request, counted by {@link SqlStatementCounter}, in the
+ * {@code http.server.requests.sql.statements} histogram per handler. With {@code sql.statement-count.debug-header}
+ * the count is also returned in the {@value #HEADER} header, which buffers the response body.
+ */
+@Configuration
+public class SqlStatementCountConfig {
+
+    public static final String HEADER = "X-Sql-Statement-Count";
+
+    private static final String METRIC = "http.server.requests.sql.statements";
+    // Micrometer only takes positive bounds; requests without statements count in the first bucket.
+    private static final double[] BUCKETS = {1, 2, 3, 5, 10, 20, 50};
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountFilter> sqlStatementCountFilter(
+            MeterRegistry registry, @Value("${sql.statement-count.debug-header:false}") boolean debugHeader) {
+        FilterRegistrationBean<SqlStatementCountFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementCountFilter(registry, debugHeader));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    static class SqlStatementCountFilter extends OncePerRequestFilter {
+
+        private final MeterRegistry registry;
+        private final boolean debugHeader;
+
+        SqlStatementCountFilter(MeterRegistry registry, boolean debugHeader) {
+            this.registry = registry;
+            this.debugHeader = debugHeader;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            ContentCachingResponseWrapper buffered = debugHeader ? new ContentCachingResponseWrapper(response) : null;
+            SqlStatementCounter.reset();
+            try {
+                chain.doFilter(request, buffered != null ? buffered : response);
+            } finally {
+                long statements = SqlStatementCounter.count();
+                DistributionSummary.builder(METRIC)
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri(request))
+                        .serviceLevelObjectives(BUCKETS)
+                        .register(registry)
+                        .record(statements);
+                if (buffered != null) {
+                    response.setHeader(HEADER, Long.toString(statements));
+                    buffered.copyBodyToResponse();
+                }
+            }
+        }
+
+        /**
+         * The matched handler pattern, so path variables do not create a series per value.
+         */
+        private static String uri(HttpServletRequest request) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return pattern != null ? pattern.toString() : "UNKNOWN";
+        }
+    }
+}
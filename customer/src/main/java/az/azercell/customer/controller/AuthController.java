@@ -2,8 +2,11 @@ package az.azercell.customer.controller;
 
 import az.azercell.customer.dto.OtpDTO;
 import az.azercell.customer.security.JwtService;
+import az.azercell.customer.service.CustomerService;
+import az.azercell.customer.service.OtpRateLimiter;
 import az.azercell.customer.service.OtpService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -18,9 +21,17 @@ public class AuthController {
 
     private final OtpService otpService;
     private final JwtService jwtService;
+    private final OtpRateLimiter otpRateLimiter;
+    private final CustomerService customerService;
 
     @PostMapping("/request-otp")
     public ResponseEntity<String> requestOtp(@RequestParam String gsmNumber) {
+        long retryAfter = otpRateLimiter.tryAcquire(gsmNumber);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Too many OTP requests. Try again later.");
+        }
         try {
             Integer otpCode = otpService.generateOtp(gsmNumber);
             return ResponseEntity.ok(String.valueOf(otpCode));
@@ -36,7 +47,8 @@ public class AuthController {
         otpDTO.setGsmNumber(gsmNumber);
 
         if (otpService.verifyOtp(otpDTO)) {
-            String token = jwtService.generateToken(gsmNumber);
+            Long customerId = customerService.findIdByGsmNumber(gsmNumber).orElse(null);
+            String token = jwtService.generateToken(gsmNumber, customerId);
             return ResponseEntity.ok(token);
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid OTP code.");
@@ -1,16 +1,33 @@
 package az.azercell.customer.controller;
 
+import az.azercell.customer.dto.BalanceAdjustmentDTO;
 import az.azercell.customer.dto.CustomerDTO;
 import az.azercell.customer.generic.GenericController;
 import az.azercell.customer.model.Customer;
 import az.azercell.customer.service.CustomerService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController extends GenericController<CustomerDTO, Customer> {
 
+    private static final Set<String> FILTERABLE_FIELDS = new HashSet<>(Arrays.asList("id", "gsmNumber"));
+    /**
+     * Column orders of uq_customers_gsm_number and the primary key. InnoDB ends every secondary index with the
+     * primary key, so id can follow gsmNumber.
+     */
+    private static final List<List<String>> SORT_INDEXES = Arrays.asList(
+            Arrays.asList("gsmNumber", "id"),
+            Collections.singletonList("id"));
+
     private CustomerService service;
 
     public CustomerController(CustomerService service) {
@@ -24,5 +41,20 @@ public class CustomerController extends GenericController<CustomerDTO, Customer>
         return ResponseEntity.ok(service.getCustomerByGsmNumber(gsmNumber));
     }
 
+    @PostMapping("/{id}/balance-adjustments")
+    public ResponseEntity<BalanceAdjustmentDTO> adjustBalance(@PathVariable Long id,
+                                                              @Validated @RequestBody BalanceAdjustmentDTO adjustment) {
+        return ResponseEntity.ok(service.adjustBalance(id, adjustment.getDelta()));
+    }
+
+    @Override
+    protected Set<String> getFilterableFields() {
+        return FILTERABLE_FIELDS;
+    }
+
+    @Override
+    protected List<List<String>> getSortIndexes() {
+        return SORT_INDEXES;
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package az.azercell.customer.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceAdjustmentDTO {
+
+    private Long customerId;
+
+    /**
+     * Signed amount applied to the balance: negative debits, positive credits.
+     */
+    @NotNull
+    private BigDecimal delta;
+
+    private BigDecimal balanceBefore;
+
+    private BigDecimal balanceAfter;
+
+    /**
+     * {@code updatedAt} of the customer's profile. Balance changes leave it untouched, so callers caching the profile
+     * can tell whether their copy is still current.
+     */
+    private LocalDateTime customerUpdatedAt;
+}
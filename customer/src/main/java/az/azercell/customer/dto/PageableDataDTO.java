@@ -1,5 +1,6 @@
 package az.azercell.customer.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -14,5 +15,10 @@ public class PageableDataDTO
 {
     private Object data;
     @JsonProperty("totalCount")
-    private long totalCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean totalCountExact;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package az.azercell.customer.exceptions;
+
+public class InsufficientBalanceException extends RuntimeException {
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+}
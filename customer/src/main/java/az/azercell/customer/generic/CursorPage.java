@@ -0,0 +1,17 @@
+package az.azercell.customer.generic;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One keyset page: the rows and the opaque cursor of the last row, or {@code null} when there is no next page.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T>
+{
+    private final List<T> content;
+    private final String nextCursor;
+}
@@ -1,9 +1,13 @@
 package az.azercell.customer.generic;
 
+import az.azercell.customer.util.KeysetCursor;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 
 import java.util.Collections;
@@ -15,6 +19,24 @@ public interface GenericService<T, E>
 
     Page<T> findAll(Pageable pageable);
 
+    Slice<T> findSlice(Specification<E> spec, Pageable pageable);
+
+    /**
+     * Total number of rows, possibly cached or estimated; see {@link TotalCount#isExact()}.
+     */
+    TotalCount countAll();
+
+    /**
+     * Exact count of the rows matching {@code spec}; falls back to {@link #countAll()} when there is no filter.
+     */
+    TotalCount count(Specification<E> spec);
+
+    /**
+     * Keyset page of at most {@code limit} rows matching {@code spec} after {@code after}, or from the start when it
+     * is {@code null}.
+     */
+    CursorPage<T> findAll(Specification<E> spec, Sort.Order order, KeysetCursor after, int limit);
+
     T findById(Long id);
 
     Optional<T> update(Long id, T dto);
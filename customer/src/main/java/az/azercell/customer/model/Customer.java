@@ -37,7 +37,7 @@ public class Customer extends BaseEntity {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
     private String birthdate;
 
-    @Column(name = "gsm_number", nullable = false)
+    @Column(name = "gsm_number", nullable = false, unique = true)
     @Pattern(regexp = "994(?:10|51|50)\\d{7}", message = "GSM number format is invalid")
     private String  gsmNumber;
 
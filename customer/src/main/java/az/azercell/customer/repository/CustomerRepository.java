@@ -1,14 +1,41 @@
 package az.azercell.customer.repository;
 
 import az.azercell.customer.model.Customer;
-import az.azercell.customer.model.Otp;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 
 public interface CustomerRepository extends BaseJpaSpecificationRepository<Customer, Long> {
 
-    List<Customer> findByGsmNumber(String gsmNumber);
+    Optional<Customer> findFirstByGsmNumberOrderByIdDesc(String gsmNumber);
 
+    /**
+     * Id of the customer {@link #findFirstByGsmNumberOrderByIdDesc} returns, without loading the row.
+     */
+    @Query("select max(c.id) from Customer c where c.gsmNumber = :gsmNumber")
+    Optional<Long> findIdByGsmNumber(@Param("gsmNumber") String gsmNumber);
+
+    /**
+     * Applies a signed delta to the balance in a single conditional UPDATE.
+     *
+     * @return the number of updated rows; 0 when the customer does not exist or the balance would become negative
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Customer c set c.balance = c.balance + :delta where c.id = :id and c.balance + :delta >= 0")
+    int adjustBalance(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    @Query("select c.balance as balance, c.updatedAt as updatedAt from Customer c where c.id = :id")
+    Optional<BalanceView> findBalanceById(@Param("id") Long id);
+
+    interface BalanceView {
+        BigDecimal getBalance();
+
+        LocalDateTime getUpdatedAt();
+    }
 
 }
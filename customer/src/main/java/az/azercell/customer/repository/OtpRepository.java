@@ -1,13 +1,44 @@
 package az.azercell.customer.repository;
 
-import az.azercell.customer.dto.OtpDTO;
 import az.azercell.customer.model.Otp;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 
 public interface OtpRepository extends BaseJpaSpecificationRepository<Otp, Long> {
-    List<Otp> findByGsmNumber(String gsmNumber);
+    Optional<Otp> findFirstByGsmNumberOrderByIdDesc(String gsmNumber);
+
+    /**
+     * Takes one attempt in a single statement and reports whether it did: the row is only changed while the code is
+     * unblocked and has attempts left, so concurrent guesses can never take more than {@code maxAttempts}. MySQL
+     * applies the assignments left to right, which is why {@code is_blocked} is computed before {@code attack} changes.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE otps SET is_blocked = (attack + 1 >= :maxAttempts), attack = attack + 1, "
+            + "updated_at = NOW() WHERE id = :id AND is_blocked = false AND attack < :maxAttempts", nativeQuery = true)
+    int reserveAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Gives back an attempt taken by {@link #reserveAttempt}, unblocking the code if it was the last one.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE otps SET is_blocked = (attack - 1 >= :maxAttempts), attack = attack - 1, "
+            + "updated_at = NOW() WHERE id = :id AND attack > 0", nativeQuery = true)
+    int releaseAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Deletes at most {@code batchSize} rows that expired before {@code cutoff}. Each call is its own transaction, so
+     * row locks are released between batches.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM otps WHERE expired_at < :cutoff LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
@@ -13,8 +13,20 @@ public class JwtService {
     private static final String SECRET_KEY = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
     private static final long EXPIRATION_TIME = 3600000; // 1 saat
 
+    /**
+     * Lets the transaction services address the customer without looking up the GSM number first.
+     */
+    public static final String CUSTOMER_ID_CLAIM = "customerId";
+
     public String generateToken(String phoneNumber) {
+        return generateToken(phoneNumber, null);
+    }
+
+    public String generateToken(String phoneNumber, Long customerId) {
         Claims claims = Jwts.claims().setSubject(phoneNumber);
+        if (customerId != null) {
+            claims.put(CUSTOMER_ID_CLAIM, customerId);
+        }
 
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + EXPIRATION_TIME);
@@ -1,15 +1,17 @@
 package az.azercell.customer.service;
 
+import az.azercell.customer.dto.BalanceAdjustmentDTO;
 import az.azercell.customer.dto.CustomerDTO;
 import az.azercell.customer.exceptions.CustomerNotFoundException;
+import az.azercell.customer.exceptions.InsufficientBalanceException;
 import az.azercell.customer.generic.GenericServiceImpl;
 import az.azercell.customer.model.Customer;
 import az.azercell.customer.repository.CustomerRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -26,7 +28,9 @@ public class CustomerService extends GenericServiceImpl<CustomerDTO, Customer> {
     public Customer save(CustomerDTO dto) {
         Customer entity = dtoToEntity(dto, Optional.empty());
         entity.setCreatedAt(LocalDateTime.now());
+        entity.setUpdatedAt(entity.getCreatedAt());
         Customer saved = repository.save(entity);
+        invalidateTotalCount();
         return saved;
     }
 
@@ -42,6 +46,8 @@ public class CustomerService extends GenericServiceImpl<CustomerDTO, Customer> {
                         {
                             dto.setId(entity.getId());
                             entity = dtoToEntity(dto, Optional.of(entity));
+                            // Transaction services drop cached profiles whose updatedAt no longer matches.
+                            entity.setUpdatedAt(LocalDateTime.now());
                             return repository.save(entity);
                         }
                 )
@@ -53,22 +59,39 @@ public class CustomerService extends GenericServiceImpl<CustomerDTO, Customer> {
         repository.findById(id).ifPresent(entity ->
         {
             repository.deleteById(id);
+            invalidateTotalCount();
         });
     }
 
     public Customer getCustomerByGsmNumber(String gsmNumber) {
 
         try {
-            List<Customer> customers = repository.findByGsmNumber(gsmNumber);
-            Customer customer = customers.stream()
-                    .reduce((first, last) -> last)
+            return repository.findFirstByGsmNumberOrderByIdDesc(gsmNumber)
                     .orElseThrow(() -> new CustomerNotFoundException("Customer not found with GSM number: " + gsmNumber));
-            return customer;
         } catch (Exception e) {
             throw new RuntimeException("An error occurred while retrieving customer information.", e);
         }
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Long> findIdByGsmNumber(String gsmNumber) {
+        return repository.findIdByGsmNumber(gsmNumber);
+    }
+
+    public BalanceAdjustmentDTO adjustBalance(Long id, BigDecimal delta) {
+        if (repository.adjustBalance(id, delta) == 0) {
+            if (!repository.existsById(id)) {
+                throw new CustomerNotFoundException("Customer not found with id: " + id);
+            }
+            throw new InsufficientBalanceException("Insufficient balance for customer with id: " + id);
+        }
+
+        CustomerRepository.BalanceView after = repository.findBalanceById(id)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + id));
+        return new BalanceAdjustmentDTO(id, delta, after.getBalance().subtract(delta), after.getBalance(),
+                after.getUpdatedAt());
+    }
+
     private static Customer dtoToEntity(CustomerDTO dto, Optional<Customer> existingEntity) {
         Customer entity = existingEntity.orElseGet(Customer::new);
         entity.setId(dto.getId());
@@ -0,0 +1,121 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+import az.azercell.customer.util.HierarchicalTimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps only the live code of each GSM number, so issuing and verifying an OTP never reads the database. Codes are
+ * dropped by a {@link HierarchicalTimingWheel} once they pass {@code expiredAt}.
+ * <p>
+ * Stored {@link Otp} instances are never modified; taking or giving back an attempt replaces the entry with an
+ * updated copy, which keeps concurrent readers consistent without locking.
+ */
+@Component
+@ConditionalOnProperty(prefix = "otp", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final ConcurrentMap<String, Otp> live = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<Otp> expirations;
+    private final OtpAuditWriter auditWriter;
+
+    public InMemoryOtpStore(OtpAuditWriter auditWriter, @Value("${otp.store-tick:1000}") long tickMillis) {
+        this.auditWriter = auditWriter;
+        this.expirations = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @Override
+    public void save(Otp otp) {
+        Otp stored = OtpAuditWriter.copyOf(otp);
+        live.put(stored.getGsmNumber(), stored);
+        auditWriter.issued(stored);
+
+        if (!expirations.schedule(stored, toMillis(stored))) {
+            expire(stored);
+        }
+    }
+
+    @Override
+    public Optional<Otp> findLatest(String gsmNumber) {
+        return Optional.ofNullable(live.get(gsmNumber));
+    }
+
+    @Override
+    public boolean reserveAttempt(Otp otp, int maxAttempts) {
+        Otp[] reserved = new Otp[1];
+        live.computeIfPresent(otp.getGsmNumber(), (key, current) -> {
+            if (current.isBlocked() || current.getAttack() >= maxAttempts || !isSameCode(current, otp)) {
+                return current;
+            }
+            return reserved[0] = withAttack(current, current.getAttack() + 1, maxAttempts);
+        });
+
+        if (reserved[0] == null) {
+            return false;
+        }
+        auditWriter.attempted(reserved[0]);
+        return true;
+    }
+
+    /**
+     * The audit row keeps the reserved attempt: audit writes only ever raise the count, since they may be applied out
+     * of order.
+     */
+    @Override
+    public void releaseAttempt(Otp otp, int maxAttempts) {
+        live.computeIfPresent(otp.getGsmNumber(), (key, current) -> current.getAttack() > 0 && isSameCode(current, otp)
+                ? withAttack(current, current.getAttack() - 1, maxAttempts) : current);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.store-tick:1000}")
+    public void expireDue() {
+        expireDue(System.currentTimeMillis());
+    }
+
+    void expireDue(long nowMillis) {
+        for (Otp otp : expirations.advance(nowMillis)) {
+            expire(otp);
+        }
+    }
+
+    int size() {
+        return live.size();
+    }
+
+    /**
+     * Removes the entry only if it still belongs to the same code: a newer code or an attempt may have replaced it.
+     */
+    private void expire(Otp otp) {
+        if (live.computeIfPresent(otp.getGsmNumber(),
+                (key, current) -> isSameCode(current, otp) ? null : current) == null) {
+            auditWriter.expired(otp);
+        }
+    }
+
+    private static Otp withAttack(Otp current, int attack, int maxAttempts) {
+        Otp next = OtpAuditWriter.copyOf(current);
+        next.setAttack(attack);
+        next.setBlocked(attack >= maxAttempts);
+        next.setUpdatedAt(new Date());
+        return next;
+    }
+
+    private static boolean isSameCode(Otp current, Otp otp) {
+        return current.getExpiredAt().equals(otp.getExpiredAt()) && current.getOtpCode().equals(otp.getOtpCode());
+    }
+
+    private static long toMillis(Otp otp) {
+        return otp.getExpiredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,39 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+import az.azercell.customer.repository.OtpRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(prefix = "otp", name = "store", havingValue = "jpa")
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository repository;
+
+    public JpaOtpStore(OtpRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void save(Otp otp) {
+        repository.save(otp);
+    }
+
+    @Override
+    public Optional<Otp> findLatest(String gsmNumber) {
+        return repository.findFirstByGsmNumberOrderByIdDesc(gsmNumber);
+    }
+
+    @Override
+    public boolean reserveAttempt(Otp otp, int maxAttempts) {
+        return repository.reserveAttempt(otp.getId(), maxAttempts) == 1;
+    }
+
+    @Override
+    public void releaseAttempt(Otp otp, int maxAttempts) {
+        repository.releaseAttempt(otp.getId(), maxAttempts);
+    }
+}
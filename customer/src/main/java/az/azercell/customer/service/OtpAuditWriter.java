@@ -0,0 +1,93 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+import az.azercell.customer.repository.OtpRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mirrors the in-memory OTP store into the {@code otps} table off the request path. A single thread applies the
+ * writes in submission order, so the row of a code is always inserted before its attempts are recorded. When the
+ * queue is full, audit writes are dropped rather than slowing down authentication.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "otp", name = "store", havingValue = "memory", matchIfMissing = true)
+public class OtpAuditWriter {
+
+    private final OtpRepository repository;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Persisted row of each live code; only touched by the audit thread.
+     */
+    private final Map<String, Otp> rows = new HashMap<>();
+
+    public OtpAuditWriter(OtpRepository repository, @Value("${otp.audit.queue-capacity:10000}") int queueCapacity) {
+        this.repository = repository;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "otp-audit");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> log.warn("OTP audit queue is full, dropping a write"));
+    }
+
+    public void issued(Otp otp) {
+        execute(() -> rows.put(otp.getGsmNumber(), repository.save(copyOf(otp))));
+    }
+
+    public void attempted(Otp otp) {
+        execute(() -> {
+            Otp row = rows.get(otp.getGsmNumber());
+            if (row == null || !row.getExpiredAt().equals(otp.getExpiredAt())) {
+                return;
+            }
+            row.setAttack(Math.max(row.getAttack(), otp.getAttack()));
+            row.setBlocked(row.isBlocked() || otp.isBlocked());
+            row.setUpdatedAt(new Date());
+            rows.put(otp.getGsmNumber(), repository.save(row));
+        });
+    }
+
+    public void expired(Otp otp) {
+        execute(() -> {
+            Otp row = rows.get(otp.getGsmNumber());
+            if (row != null && row.getExpiredAt().equals(otp.getExpiredAt())) {
+                rows.remove(otp.getGsmNumber());
+            }
+        });
+    }
+
+    private void execute(Runnable write) {
+        executor.execute(() -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                log.warn("OTP audit write failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    static Otp copyOf(Otp otp) {
+        return new Otp(otp.getId(), otp.getGsmNumber(), otp.getOtpCode(), otp.getExpiredAt(), otp.getAttack(),
+                otp.isBlocked(), otp.getCreatedAt(), otp.getUpdatedAt());
+    }
+}
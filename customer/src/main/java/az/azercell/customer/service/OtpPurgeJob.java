@@ -0,0 +1,180 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.repository.OtpRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes OTP rows whose code expired more than {@code otp.purge.retention} ago. Rows go in batches of
+ * {@code otp.purge.batch-size}, each in its own short transaction, with {@code otp.purge.batch-pause} between batches
+ * so that the purge never holds locks long enough to stall OTP writes.
+ * <p>
+ * When the table has been partitioned by month (liquibase context {@code otp-partitioning}) and
+ * {@code otp.purge.drop-partitions} is set, whole months past the retention are dropped instead, and the partitions
+ * for the current and next month are created ahead of time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "otp.purge", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OtpPurgeJob implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "otp.purge.";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final OtpRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final int maxBatchesPerRun;
+    private final boolean dropPartitions;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalPurged = new AtomicLong();
+    private final AtomicLong totalPartitionsDropped = new AtomicLong();
+    private volatile long lastRunPurged;
+    private volatile Timer runTimer;
+
+    public OtpPurgeJob(OtpRepository repository, JdbcTemplate jdbcTemplate,
+                       @Value("${otp.purge.retention:1d}") Duration retention,
+                       @Value("${otp.purge.batch-size:1000}") int batchSize,
+                       @Value("${otp.purge.batch-pause:100ms}") Duration batchPause,
+                       @Value("${otp.purge.max-batches-per-run:500}") int maxBatchesPerRun,
+                       @Value("${otp.purge.drop-partitions:false}") boolean dropPartitions) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.dropPartitions = dropPartitions;
+    }
+
+    @Scheduled(fixedDelayString = "${otp.purge.interval:300000}", initialDelayString = "${otp.purge.initial-delay:60000}")
+    public void purge() {
+        purge(LocalDateTime.now());
+    }
+
+    long purge(LocalDateTime now) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime cutoff = now.minus(retention);
+
+            int dropped = dropPartitions ? maintainPartitions(now, cutoff) : 0;
+            long purged = deleteInBatches(cutoff);
+
+            long nanos = System.nanoTime() - started;
+            long millis = Duration.ofNanos(nanos).toMillis();
+            totalPurged.addAndGet(purged);
+            totalPartitionsDropped.addAndGet(dropped);
+            lastRunPurged = purged;
+            Timer timer = runTimer;
+            if (timer != null) {
+                timer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            if (purged > 0 || dropped > 0) {
+                log.info("Purged {} expired OTP rows and {} partitions in {} ms", purged, dropped, millis);
+            }
+            return purged;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long deleteInBatches(LocalDateTime cutoff) {
+        long purged = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = repository.deleteExpiredBefore(cutoff, batchSize);
+            purged += deleted;
+            if (deleted < batchSize || !pause()) {
+                break;
+            }
+        }
+        return purged;
+    }
+
+    private boolean pause() {
+        if (batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of partitions dropped
+     */
+    private int maintainPartitions(LocalDateTime now, LocalDateTime cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM information_schema.partitions "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'otps' AND partition_name IS NOT NULL",
+                String.class);
+        if (partitions.isEmpty()) {
+            log.warn("otp.purge.drop-partitions is set but the otps table is not partitioned");
+            return 0;
+        }
+
+        for (YearMonth month = YearMonth.from(now); !month.isAfter(YearMonth.from(now).plusMonths(1));
+             month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_NAME);
+            if (!partitions.contains(name)) {
+                jdbcTemplate.execute("ALTER TABLE otps REORGANIZE PARTITION pmax INTO (PARTITION " + name
+                        + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "'), "
+                        + "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+            }
+        }
+
+        int dropped = 0;
+        for (String name : partitions) {
+            YearMonth month;
+            try {
+                month = YearMonth.parse(name, PARTITION_NAME);
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            // A code expires minutes after it is created, so a day past the upper bound covers every code in the partition.
+            if (month.plusMonths(1).atDay(1).atStartOfDay().plusDays(1).isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE otps DROP PARTITION " + name);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + "rows", totalPurged, AtomicLong::get).register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "partitions.dropped", totalPartitionsDropped, AtomicLong::get)
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "last.run.rows", this, job -> job.lastRunPurged).register(registry);
+        runTimer = Timer.builder(METRIC_PREFIX + "runs").register(registry);
+    }
+}
@@ -0,0 +1,106 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.util.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles OTP requests with a {@link TokenBucket} per GSM number and one shared by all callers, so neither a single
+ * number nor a spread of numbers can flood the {@code otps} table.
+ * <p>
+ * Buckets are kept in a {@link ConcurrentHashMap}, whose bins are locked independently, and are dropped once they have
+ * refilled, since a full bucket is the same as a new one.
+ */
+@Component
+public class OtpRateLimiter implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "otp.rate.limit.";
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket global;
+    private final boolean enabled;
+    private final int perGsmCapacity;
+    private final long perGsmRefillNanos;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedPerGsm = new LongAdder();
+    private final LongAdder rejectedGlobal = new LongAdder();
+
+    public OtpRateLimiter(@Value("${otp.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${otp.rate-limit.per-gsm.capacity:3}") int perGsmCapacity,
+                          @Value("${otp.rate-limit.per-gsm.refill-period:5m}") Duration perGsmRefillPeriod,
+                          @Value("${otp.rate-limit.global.capacity:200}") int globalCapacity,
+                          @Value("${otp.rate-limit.global.refill-period:1s}") Duration globalRefillPeriod) {
+        this.enabled = enabled;
+        this.perGsmCapacity = perGsmCapacity;
+        this.perGsmRefillNanos = perGsmRefillPeriod.toNanos();
+        this.global = new TokenBucket(globalCapacity, globalRefillPeriod.toNanos(), System.nanoTime());
+    }
+
+    /**
+     * Takes a token for {@code gsmNumber} and one from the global bucket.
+     *
+     * @return 0 if the request may go ahead, otherwise the number of seconds to wait before retrying
+     */
+    public long tryAcquire(String gsmNumber) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(gsmNumber,
+                key -> new TokenBucket(perGsmCapacity, perGsmRefillNanos, now));
+
+        long wait = bucket.tryAcquire(now);
+        if (wait > 0) {
+            rejectedPerGsm.increment();
+            return toRetryAfterSeconds(wait);
+        }
+
+        wait = global.tryAcquire(now);
+        if (wait > 0) {
+            // The caller did nothing wrong, so the per-number token is not spent.
+            bucket.release(now);
+            rejectedGlobal.increment();
+            return toRetryAfterSeconds(wait);
+        }
+
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * A request racing with the eviction of its bucket may get one token more than the limit, which is accepted to
+     * keep {@link #tryAcquire} free of locks.
+     */
+    @Scheduled(fixedDelayString = "${otp.rate-limit.evict-interval:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + "requests", allowed, LongAdder::sum)
+                .tag("result", "allowed").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "requests", rejectedPerGsm, LongAdder::sum)
+                .tag("result", "rejected-per-gsm").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "requests", rejectedGlobal, LongAdder::sum)
+                .tag("result", "rejected-global").register(registry);
+        Gauge.builder(METRIC_PREFIX + "tracked.numbers", buckets, ConcurrentMap::size).register(registry);
+    }
+}
@@ -12,28 +12,37 @@ import liquibase.pro.packaged.O;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Service
 public class OtpService extends GenericServiceImpl<OtpDTO, Otp> {
 
     private final OtpRepository repository;
-    private static final int MAX_ATTEMPTS = 3;
+    private final OtpStore otpStore;
+    static final int MAX_ATTEMPTS = 3;
 
-    public OtpService(OtpRepository repository) {
+    public OtpService(OtpRepository repository, OtpStore otpStore) {
         super(repository, OtpDTO::new, OtpService::dtoToEntity);
         this.repository = repository;
+        this.otpStore = otpStore;
     }
 
 
+    /**
+     * Costs one store lookup and one atomic update, plus a second one when the code is right. An attempt is taken
+     * before the code is compared, so concurrent guesses cannot compare more codes than {@link #MAX_ATTEMPTS}, and it
+     * is given back when the guess is right. Runs outside a transaction so that the in-memory store does not check out
+     * a connection; the JPA store's statements run in their own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean verifyOtp(OtpDTO otpDTO) {
-        List<Otp> otpList = retrieveOtpFromDatabase(otpDTO.getGsmNumber());
-        Otp otp = otpList.isEmpty() ? null : otpList.get(otpList.size() - 1);
+        Otp otp = otpStore.findLatest(otpDTO.getGsmNumber()).orElse(null);
 
         if (isOtpBlockedOrInvalid(otp)) {
             return false;
@@ -43,12 +52,12 @@ public class OtpService extends GenericServiceImpl<OtpDTO, Otp> {
             return false;
         }
 
+        reserveOtpAttempt(otp);
         if (isOtpCodeValid(otp, otpDTO.getOtpCode())) {
+            otpStore.releaseAttempt(otp, MAX_ATTEMPTS);
             return true;
-        } else {
-            incrementOtpAttempts(otpDTO.getGsmNumber());
-            return false;
         }
+        return false;
     }
 
     protected boolean isOtpBlockedOrInvalid(Otp otp) {
@@ -68,11 +77,7 @@ public class OtpService extends GenericServiceImpl<OtpDTO, Otp> {
     }
 
     protected boolean isOtpCodeValid(Otp otp, Integer otpCode) {
-        if (otpCode.equals(otp.getOtpCode())) {
-            return true;
-        }
-        incrementOtpAttempts(otp.getGsmNumber());
-        return false;
+        return otpCode.equals(otp.getOtpCode());
     }
 
     private void handleOtpVerificationError(String errorMessage) {
@@ -80,34 +85,24 @@ public class OtpService extends GenericServiceImpl<OtpDTO, Otp> {
     }
 
 
-    protected void incrementOtpAttempts(String gsmNumber) {
-        Optional<Otp> lastOtp = retrieveLastOtpFromDatabase(gsmNumber);
-
-        lastOtp.ifPresent(otp -> {
-            int newAttack = otp.getAttack() + 1;
-            otp.setAttack(newAttack);
-
-            if (newAttack >= MAX_ATTEMPTS) {
-                otp.setBlocked(true);
-            }
-            repository.save(otp);
-        });
-    }
-
-    private Optional<Otp> retrieveLastOtpFromDatabase(String gsmNumber) {
-        List<Otp> otpList = retrieveOtpFromDatabase(gsmNumber);
-        return otpList.isEmpty() ? Optional.empty() : Optional.of(otpList.get(otpList.size() - 1));
+    protected void reserveOtpAttempt(Otp otp) {
+        if (!otpStore.reserveAttempt(otp, MAX_ATTEMPTS)) {
+            handleOtpVerificationError("OTP verification limit exceeded.");
+        }
     }
 
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Integer generateOtp(String gsmNumber) {
         Integer otpCode = generateRandomCode();
 
-        OtpDTO otpDTO = new OtpDTO();
-        otpDTO.setGsmNumber(gsmNumber);
-        otpDTO.setOtpCode(otpCode);
-        otpDTO.setExpiredAt(LocalDateTime.now().plusMinutes(5));
-        save(otpDTO);
+        Otp otp = new Otp();
+        otp.setGsmNumber(gsmNumber);
+        otp.setOtpCode(otpCode);
+        otp.setExpiredAt(LocalDateTime.now().plusMinutes(5));
+        otp.setCreatedAt(Date.valueOf(LocalDate.now()));
+        otpStore.save(otp);
+        invalidateTotalCount();
 
         return otpCode;
     }
@@ -125,13 +120,10 @@ public class OtpService extends GenericServiceImpl<OtpDTO, Otp> {
         Otp entity = dtoToEntity(dto, Optional.empty());
         entity.setCreatedAt(Date.valueOf(LocalDate.now()));
         Otp saved = repository.save(entity);
+        invalidateTotalCount();
         return saved;
     }
 
-    protected List<Otp> retrieveOtpFromDatabase(String phoneNumber) {
-        return repository.findByGsmNumber(phoneNumber);
-    }
-
     private static Otp dtoToEntity(OtpDTO dto, Optional<Otp> existingEntity) {
         Otp entity = existingEntity.orElseGet(Otp::new);
         entity.setId(dto.getId());
@@ -0,0 +1,35 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+
+import java.util.Optional;
+
+/**
+ * Holds the live OTP of each GSM number. Selected with {@code otp.store}: {@code memory} (default) keeps codes in
+ * this instance and writes the {@code otps} table only for audit, {@code jpa} reads and writes the table directly.
+ */
+public interface OtpStore {
+
+    /**
+     * Makes {@code otp} the live code of its GSM number, replacing any earlier one.
+     */
+    void save(Otp otp);
+
+    /**
+     * The most recently issued code of the GSM number; it may already be expired or blocked.
+     */
+    Optional<Otp> findLatest(String gsmNumber);
+
+    /**
+     * Atomically takes one of the attempts left on {@code otp} before a guess is compared, blocking the code when the
+     * last one is taken. Returns {@code false}, without changing anything, when the code is blocked, has no attempt
+     * left or has been replaced; the guess must then be refused unseen.
+     */
+    boolean reserveAttempt(Otp otp, int maxAttempts);
+
+    /**
+     * Gives back an attempt taken by {@link #reserveAttempt} for a guess that turned out correct, unblocking the code
+     * if that attempt was the last one.
+     */
+    void releaseAttempt(Otp otp, int maxAttempts);
+}
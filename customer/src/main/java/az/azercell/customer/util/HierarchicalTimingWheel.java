@@ -0,0 +1,146 @@
+package az.azercell.customer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expires items at a deadline with O(1) scheduling, in the style of the Kafka/Netty timer wheels. The first level has
+ * {@code wheelSize} buckets of {@code tickMillis}; deadlines beyond it go to coarser overflow levels, which are
+ * created on demand and cascade their items down as the clock reaches them.
+ * <p>
+ * Items are never cancelled: the owner is expected to ignore expirations of items it has already replaced. An item
+ * is reported no earlier than its deadline and at most one tick after the clock passes it.
+ */
+public final class HierarchicalTimingWheel<T>
+{
+    private final Level root;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis)
+    {
+        if (tickMillis < 1 || wheelSize < 2)
+        {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2.");
+        }
+        this.root = new Level(tickMillis, wheelSize, startMillis);
+    }
+
+    /**
+     * @return false if the deadline has already passed, in which case the item is not scheduled
+     */
+    public synchronized boolean schedule(T item, long deadlineMillis)
+    {
+        // Round up so that the bucket holding the item is never reached before the deadline.
+        long dueAt = deadlineMillis + root.tick - 1;
+        return root.add(new Timer<>(item, dueAt - dueAt % root.tick));
+    }
+
+    /**
+     * Moves the clock to {@code nowMillis} and returns the items whose deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis)
+    {
+        List<T> expired = new ArrayList<>();
+        while (root.currentTime + root.tick <= nowMillis)
+        {
+            root.step(expired);
+        }
+        return expired;
+    }
+
+    public synchronized int size()
+    {
+        int size = 0;
+        for (Level level = root; level != null; level = level.overflow)
+        {
+            for (List<Timer<T>> bucket : level.buckets)
+            {
+                size += bucket.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Timer<T>
+    {
+        private final T item;
+        private final long dueAt;
+
+        private Timer(T item, long dueAt)
+        {
+            this.item = item;
+            this.dueAt = dueAt;
+        }
+    }
+
+    private final class Level
+    {
+        private final long tick;
+        private final long interval;
+        private final List<Timer<T>>[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tick, int wheelSize, long startMillis)
+        {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.buckets = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++)
+            {
+                buckets[i] = new ArrayList<>();
+            }
+            this.currentTime = startMillis - startMillis % tick;
+        }
+
+        private boolean add(Timer<T> timer)
+        {
+            if (timer.dueAt < currentTime + tick)
+            {
+                return false;
+            }
+            if (timer.dueAt < currentTime + interval)
+            {
+                buckets[(int) ((timer.dueAt / tick) % buckets.length)].add(timer);
+                return true;
+            }
+            if (overflow == null)
+            {
+                overflow = new Level(interval, buckets.length, currentTime);
+            }
+            return overflow.add(timer);
+        }
+
+        /**
+         * Advances this level by one tick, handing the items of the bucket it reaches back to the root, and lets the
+         * overflow level catch up.
+         */
+        private void step(List<T> expired)
+        {
+            currentTime += tick;
+            drain(buckets[(int) ((currentTime / tick) % buckets.length)], expired);
+
+            if (overflow != null && overflow.currentTime + overflow.tick <= currentTime)
+            {
+                overflow.step(expired);
+            }
+        }
+
+        private void drain(List<Timer<T>> bucket, List<T> expired)
+        {
+            if (bucket.isEmpty())
+            {
+                return;
+            }
+            List<Timer<T>> timers = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Timer<T> timer : timers)
+            {
+                if (!root.add(timer))
+                {
+                    expired.add(timer.item);
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ package az.azercell.customer.util;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.node.NullNode;
 
@@ -11,6 +12,11 @@ import java.io.IOException;
 
 public interface JsonUtil
 {
+    /**
+     * Shared, immutable reader; building an {@link ObjectMapper} per call is far more expensive than the parse.
+     */
+    ObjectReader READER = new ObjectMapper().reader();
+
     /**
      * Parses a JSON array string into a JsonNode object.
      * If the input string is null, returns a NullNode instance.
@@ -21,6 +27,6 @@ public interface JsonUtil
      */
     static JsonNode parseJsonArray(String jsonArrayString) throws JsonProcessingException
     {
-        return (jsonArrayString == null) ? NullNode.getInstance() : new ObjectMapper().readTree(jsonArrayString);
+        return (jsonArrayString == null) ? NullNode.getInstance() : READER.readTree(jsonArrayString);
     }
 }
@@ -1,22 +1,44 @@
 package az.azercell.customer.util;
 
 import az.azercell.customer.dto.PageableDataDTO;
+import az.azercell.customer.generic.CursorPage;
+import az.azercell.customer.generic.TotalCount;
 import az.azercell.customer.model.base.BaseDTO;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriUtils;
 
+import javax.persistence.criteria.Path;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 public final class QueryProcessingUtils
@@ -25,7 +47,32 @@ public final class QueryProcessingUtils
     private static final String SORT_SELECTOR_FIELD = "selector";
     private static final String SORT_DESC_FIELD = "desc";
     private static final String DEFAULT_SORT_COLUMN = "id";
+    private static final int SORT_CACHE_SIZE = 256;
+    private static final int MIN_FILTER_LENGTH = 2;
+    private static final int MAX_FILTER_DEPTH = 8;
+    private static final int MAX_FILTER_CONDITIONS = 32;
+    private static final String FILTER_AND = "and";
+    private static final String FILTER_OR = "or";
+    private static final String FILTER_NOT = "!";
+    private static final char LIKE_ESCAPE = '\\';
+    private static final Set<String> FILTER_OPERATORS = new HashSet<>(Arrays.asList(
+        "=", "<>", ">", ">=", "<", "<=", "contains", "notcontains", "startswith", "endswith"));
+    private static final Set<String> INDEX_SEEK_OPERATORS = new HashSet<>(Arrays.asList(
+        "=", ">", ">=", "<", "<=", "startswith"));
 
+    /**
+     * Parsed sorts keyed by the raw {@code sort} parameter. Clients send the same handful of strings over and over,
+     * so the LRU bound only matters for junk input.
+     */
+    private static final Map<String, Sort> SORT_CACHE = Collections.synchronizedMap(
+        new LinkedHashMap<String, Sort>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sort> eldest)
+            {
+                return size() > SORT_CACHE_SIZE;
+            }
+        });
 
     private QueryProcessingUtils()
     {
@@ -52,26 +99,335 @@ public final class QueryProcessingUtils
         }
     }
 
+    /**
+     * Parses the DevExtreme style {@code sort} parameter, e.g.
+     * {@code [{"selector":"customerId","desc":false},{"selector":"id","desc":true}]}. Returns null when the parameter
+     * is empty or cannot be parsed.
+     */
     public static JsonNode parseSortParameter(String sort)
     {
         JsonNode sortNode = parseParameter(sort, MIN_SORT_LENGTH);
-        return sortNode != null && sortNode.isArray() && sortNode.size() > 0 ? sortNode.get(0) : null;
+        return sortNode != null && sortNode.isArray() && sortNode.size() > 0 ? sortNode : null;
+    }
+
+    /**
+     * Parses the DevExtreme style {@code filter} parameter, e.g. {@code ["amount", ">=", 10]} or
+     * {@code [["customerId", "=", 1], "and", ["operatedAt", "<", "2024-01-01T00:00:00"]]}. Unlike {@code sort}, a
+     * filter that cannot be parsed is rejected instead of being ignored.
+     *
+     * @throws IllegalArgumentException if the parameter is not a JSON array
+     */
+    public static JsonNode parseFilterParameter(String filter)
+    {
+        String decodedParam = UriUtils.decode(filter, StandardCharsets.UTF_8);
+
+        if (StringUtil.isEmptyOrNull(decodedParam) || decodedParam.trim().length() <= MIN_FILTER_LENGTH)
+        {
+            return null;
+        }
+
+        JsonNode filterNode;
+        try
+        {
+            filterNode = JsonUtil.parseJsonArray(decodedParam);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("Filter is not valid JSON.");
+        }
+
+        if (!filterNode.isArray())
+        {
+            throw new IllegalArgumentException("Filter must be a JSON array.");
+        }
+        return filterNode;
+    }
+
+    /**
+     * Compiles a parsed filter into a {@link Specification}. Field names are checked against
+     * {@code filterableFields} here; values are converted to the attribute type when the query is built.
+     * <p>
+     * Filterable fields that do not lead an index may only narrow a filter that MySQL can already answer through one
+     * of {@code indexedFields}, e.g. {@code transactionTypeId} next to {@code customerId}; alone they would scan the
+     * table.
+     *
+     * @throws IllegalArgumentException if the filter uses an unknown operator or a field that is not filterable, or
+     *                                  does not seek on any of {@code indexedFields}
+     */
+    public static <E> Specification<E> resolveFilterCriteria(JsonNode filterNode, Set<String> filterableFields,
+                                                             Set<String> indexedFields)
+    {
+        if (filterNode == null)
+        {
+            return null;
+        }
+        Specification<E> spec = compileFilter(filterNode, filterableFields, 0, new int[1]);
+        if (!seeksIndex(filterNode, indexedFields))
+        {
+            throw new IllegalArgumentException("Filter must compare one of " + new TreeSet<>(indexedFields)
+                                                   + " with =, <, <=, >, >= or startswith.");
+        }
+        return spec;
+    }
+
+    /**
+     * Whether every row the filter matches can be reached through an index on one of {@code indexedFields}: a
+     * condition on such a field with an operator MySQL can seek on, an "and" group with at least one such operand or
+     * an "or" group whose operands all are. Negations never qualify. Expects a filter that already compiled.
+     */
+    private static boolean seeksIndex(JsonNode node, Set<String> indexedFields)
+    {
+        JsonNode first = node.get(0);
+
+        if (first.isTextual() && FILTER_NOT.equals(first.asText()))
+        {
+            return false;
+        }
+        if (first.isTextual())
+        {
+            String op = node.size() == 2 ? "=" : node.get(1).asText().toLowerCase(Locale.ROOT);
+            return indexedFields.contains(first.asText()) && INDEX_SEEK_OPERATORS.contains(op);
+        }
+
+        boolean or  = false;
+        boolean any = false;
+        boolean all = true;
+        for (JsonNode element : node)
+        {
+            if (element.isTextual())
+            {
+                or = FILTER_OR.equals(element.asText().toLowerCase(Locale.ROOT));
+                continue;
+            }
+            boolean seeks = seeksIndex(element, indexedFields);
+            any |= seeks;
+            all &= seeks;
+        }
+        return or ? all : any;
+    }
+
+    private static <E> Specification<E> compileFilter(JsonNode node, Set<String> filterableFields, int depth,
+                                                      int[] conditions)
+    {
+        if (!node.isArray() || node.size() == 0)
+        {
+            throw new IllegalArgumentException("Filter expressions must be non-empty arrays.");
+        }
+        if (depth > MAX_FILTER_DEPTH)
+        {
+            throw new IllegalArgumentException("Filter is nested too deeply.");
+        }
+
+        JsonNode first = node.get(0);
+
+        if (first.isTextual() && FILTER_NOT.equals(first.asText()))
+        {
+            if (node.size() != 2)
+            {
+                throw new IllegalArgumentException("Negation takes exactly one expression.");
+            }
+            return Specification.not(compileFilter(node.get(1), filterableFields, depth + 1, conditions));
+        }
+
+        if (first.isTextual())
+        {
+            if (++conditions[0] > MAX_FILTER_CONDITIONS)
+            {
+                throw new IllegalArgumentException("Filter has too many conditions.");
+            }
+            if (node.size() == 2)
+            {
+                return compileCondition(first.asText(), "=", node.get(1), filterableFields);
+            }
+            if (node.size() == 3 && node.get(1).isTextual())
+            {
+                return compileCondition(first.asText(), node.get(1).asText(), node.get(2), filterableFields);
+            }
+            throw new IllegalArgumentException("Filter conditions must look like [field, operator, value].");
+        }
+
+        Specification<E> result   = null;
+        String           operator = null;
+        boolean          expectOperand = true;
+
+        for (JsonNode element : node)
+        {
+            if (element.isTextual())
+            {
+                String groupOperator = element.asText().toLowerCase(Locale.ROOT);
+                if (expectOperand || !(FILTER_AND.equals(groupOperator) || FILTER_OR.equals(groupOperator)))
+                {
+                    throw new IllegalArgumentException("Unexpected '" + element.asText() + "' in filter group.");
+                }
+                if (operator != null && !operator.equals(groupOperator))
+                {
+                    throw new IllegalArgumentException("Mixing 'and' and 'or' in one group requires nesting.");
+                }
+                operator = groupOperator;
+                expectOperand = true;
+                continue;
+            }
+
+            Specification<E> operand = compileFilter(element, filterableFields, depth + 1, conditions);
+            if (result == null)
+            {
+                result = Specification.where(operand);
+            }
+            else
+            {
+                result = FILTER_OR.equals(operator) ? result.or(operand) : result.and(operand);
+            }
+            expectOperand = false;
+        }
+
+        if (expectOperand)
+        {
+            throw new IllegalArgumentException("Filter group cannot end with an operator.");
+        }
+        return result;
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Specification<E> compileCondition(String field, String operator, JsonNode valueNode,
+                                                         Set<String> filterableFields)
+    {
+        if (!filterableFields.contains(field))
+        {
+            throw new IllegalArgumentException("Field '" + field + "' is not filterable.");
+        }
+        if (valueNode.isContainerNode())
+        {
+            throw new IllegalArgumentException("Filter value for '" + field + "' must be a scalar.");
+        }
+
+        String op    = operator.toLowerCase(Locale.ROOT);
+        String value = valueNode.isNull() ? null : valueNode.asText();
+
+        if (!FILTER_OPERATORS.contains(op))
+        {
+            throw new IllegalArgumentException("Unknown filter operator '" + operator + "'.");
+        }
+        if (value == null && !"=".equals(op) && !"<>".equals(op))
+        {
+            throw new IllegalArgumentException("Only '=' and '<>' can compare '" + field + "' with null.");
+        }
+
+        return (root, query, cb) ->
+        {
+            Path<Comparable> path = root.get(field);
+
+            if (value == null)
+            {
+                return "=".equals(op) ? cb.isNull(path) : cb.isNotNull(path);
+            }
+
+            switch (op)
+            {
+                case "contains":
+                    return cb.like(path.as(String.class), "%" + escapeLike(value) + "%", LIKE_ESCAPE);
+                case "notcontains":
+                    return cb.notLike(path.as(String.class), "%" + escapeLike(value) + "%", LIKE_ESCAPE);
+                case "startswith":
+                    return cb.like(path.as(String.class), escapeLike(value) + "%", LIKE_ESCAPE);
+                case "endswith":
+                    return cb.like(path.as(String.class), "%" + escapeLike(value), LIKE_ESCAPE);
+                default:
+                    break;
+            }
+
+            Comparable converted = (Comparable) convertValue(value, path.getJavaType());
+
+            switch (op)
+            {
+                case "=":
+                    return cb.equal(path, converted);
+                case "<>":
+                    return cb.notEqual(path, converted);
+                case ">":
+                    return cb.greaterThan(path, converted);
+                case ">=":
+                    return cb.greaterThanOrEqualTo(path, converted);
+                case "<":
+                    return cb.lessThan(path, converted);
+                default:
+                    return cb.lessThanOrEqualTo(path, converted);
+            }
+        };
+    }
+
+    private static String escapeLike(String value)
+    {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Builds one order per element of the sort array, in request order. Elements without a selector and repeated
+     * selectors are skipped; {@link Sort#unsorted()} is returned when nothing usable is left.
+     */
     public static Sort resolveSortCriteria(JsonNode sortNode)
     {
-        Sort.Direction direction = Sort.Direction.ASC;
-        String         column    = DEFAULT_SORT_COLUMN;
+        if (sortNode == null)
+        {
+            return Sort.unsorted();
+        }
+
+        List<Sort.Order> orders     = new ArrayList<>();
+        Set<String>      properties = new HashSet<>();
+
+        for (JsonNode element : sortNode)
+        {
+            JsonNode selector = element.get(SORT_SELECTOR_FIELD);
+            if (selector == null || !selector.isTextual() || selector.asText().isEmpty()
+                || !properties.add(selector.asText()))
+            {
+                continue;
+            }
+            boolean desc = element.path(SORT_DESC_FIELD).asBoolean();
+            orders.add(desc ? Sort.Order.desc(selector.asText()) : Sort.Order.asc(selector.asText()));
+        }
 
-        if (sortNode != null)
+        return Sort.by(orders);
+    }
+
+    /**
+     * Resolves the raw {@code sort} parameter through {@link #SORT_CACHE} and keeps the leading keys an index can
+     * return in order: they must follow one of {@code sortIndexes} column by column from its first column, all in the
+     * same direction. The first key that leaves every such prefix and the keys after it are dropped, since MySQL
+     * would have to filesort the whole result for them.
+     */
+    public static Sort resolveSortCriteria(String sort, List<List<String>> sortIndexes)
+    {
+        if (sort == null)
         {
-            String  selector = sortNode.get(SORT_SELECTOR_FIELD).asText();
-            boolean desc     = sortNode.get(SORT_DESC_FIELD).asBoolean();
-            direction = desc ? Sort.Direction.DESC : Sort.Direction.ASC;
-            column = selector;
+            return Sort.unsorted();
         }
 
-        return Sort.by(direction, column);
+        Sort parsed = SORT_CACHE.computeIfAbsent(sort, key -> resolveSortCriteria(parseSortParameter(key)));
+
+        List<Sort.Order>   orders  = new ArrayList<>();
+        List<List<String>> indexes = sortIndexes;
+        for (Sort.Order order : parsed)
+        {
+            int                position = orders.size();
+            List<List<String>> matching = new ArrayList<>();
+            for (List<String> index : indexes)
+            {
+                if (index.size() > position && index.get(position).equals(order.getProperty()))
+                {
+                    matching.add(index);
+                }
+            }
+
+            if (matching.isEmpty() || (position > 0 && order.getDirection() != orders.get(0).getDirection()))
+            {
+                log.debug("Dropping sort keys that leave the index order: {}",
+                          parsed.stream().skip(position).map(Sort.Order::getProperty).collect(Collectors.toList()));
+                break;
+            }
+            indexes = matching;
+            orders.add(order);
+        }
+        return Sort.by(orders);
     }
 
     public static <T extends BaseDTO> Page<T> loadPageResults(Pageable pageable,
@@ -83,14 +439,115 @@ public final class QueryProcessingUtils
     public static Pageable createPageRequest(int pageSize, int offset, Sort sort)
     {
         int pageNumber = offset / pageSize;
-        return PageRequest.of(pageNumber, pageSize, sort);
+        return PageRequest.of(pageNumber, pageSize, sort.isSorted() ? sort : Sort.by(DEFAULT_SORT_COLUMN));
     }
 
-    public static <T extends BaseDTO> ResponseEntity<Object> buildPageResponseEntity(Page<T> page)
+    /**
+     * Counts only when the slice cannot tell the total by itself: a last page that is not empty (or the empty first
+     * page) already knows it exactly.
+     */
+    public static TotalCount resolveTotalCount(Slice<?> slice, Supplier<TotalCount> counter)
     {
-        PageableDataDTO pageableDataDTO = new PageableDataDTO(page.getContent(), page.getTotalElements());
+        if (!slice.hasNext() && (slice.hasContent() || slice.isFirst()))
+        {
+            long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+            return TotalCount.exact(offset + slice.getNumberOfElements());
+        }
+        return counter.get();
+    }
+
+    public static <T extends BaseDTO> ResponseEntity<Object> buildPageResponseEntity(Slice<T> slice, TotalCount total)
+    {
+        PageableDataDTO pageableDataDTO = new PageableDataDTO(slice.getContent(), total.getValue(), total.isExact(), null);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
-            ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            ServletUriComponentsBuilder.fromCurrentRequest(), slice, total);
         return new ResponseEntity<>(pageableDataDTO, headers, HttpStatus.OK);
     }
+
+    public static <T extends BaseDTO> ResponseEntity<Object> buildSliceResponseEntity(Slice<T> slice)
+    {
+        PageableDataDTO pageableDataDTO = new PageableDataDTO(slice.getContent(), null, null, null);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+        return new ResponseEntity<>(pageableDataDTO, headers, HttpStatus.OK);
+    }
+
+    public static <T extends BaseDTO> ResponseEntity<Object> buildCursorResponseEntity(CursorPage<T> page, int pageSize)
+    {
+        PageableDataDTO pageableDataDTO = new PageableDataDTO(page.getContent(), null, null, page.getNextCursor());
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(), page.getNextCursor(), pageSize);
+        return new ResponseEntity<>(pageableDataDTO, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Converts a request or cursor value to the Java type of the entity attribute it is compared with.
+     *
+     * @throws IllegalArgumentException if the value cannot be converted or the type is not supported
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Object convertValue(String value, Class<?> type)
+    {
+        try
+        {
+            if (type == String.class)
+            {
+                return value;
+            }
+            if (type == Long.class || type == long.class)
+            {
+                return Long.valueOf(value);
+            }
+            if (type == Integer.class || type == int.class)
+            {
+                return Integer.valueOf(value);
+            }
+            if (type == Short.class || type == short.class)
+            {
+                return Short.valueOf(value);
+            }
+            if (type == Double.class || type == double.class)
+            {
+                return Double.valueOf(value);
+            }
+            if (type == Float.class || type == float.class)
+            {
+                return Float.valueOf(value);
+            }
+            if (type == Boolean.class || type == boolean.class)
+            {
+                return Boolean.valueOf(value);
+            }
+            if (type == BigDecimal.class)
+            {
+                return new BigDecimal(value);
+            }
+            if (type == BigInteger.class)
+            {
+                return new BigInteger(value);
+            }
+            if (type == LocalDateTime.class)
+            {
+                return LocalDateTime.parse(value);
+            }
+            if (type == LocalDate.class)
+            {
+                return LocalDate.parse(value);
+            }
+            if (type == Instant.class)
+            {
+                return Instant.parse(value);
+            }
+            if (type.isEnum())
+            {
+                return Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for type " + type.getSimpleName(), e);
+        }
+
+        throw new IllegalArgumentException("Unsupported type " + type.getSimpleName());
+    }
 }
@@ -0,0 +1,33 @@
+package az.azercell.customer.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} that counts the SQL statements prepared on each thread, registered through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}. The statement count filter resets the
+ * count when a request starts and reads it when the request ends.
+ */
+public class SqlStatementCounter implements StatementInspector
+{
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql)
+    {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset()
+    {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * @return the statements prepared on this thread since the last {@link #reset}
+     */
+    public static long count()
+    {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,65 @@
+package az.azercell.customer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code capacity} tokens and refilling the whole bucket every
+ * {@code refillPeriod}. The state is the single timestamp at which the bucket would be full again (the generic cell
+ * rate algorithm), so taking a token is one compare-and-set and no background refill is needed.
+ */
+public final class TokenBucket
+{
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, long refillPeriodNanos, long nowNanos)
+    {
+        if (capacity < 1 || refillPeriodNanos < capacity)
+        {
+            throw new IllegalArgumentException("capacity must be positive and refill period at least one ns per token.");
+        }
+        this.nanosPerToken = refillPeriodNanos / capacity;
+        this.burstNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token becomes available
+     */
+    public long tryAcquire(long nowNanos)
+    {
+        while (true)
+        {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + nanosPerToken;
+            long overdraft = next - nowNanos - burstNanos;
+            if (overdraft > 0)
+            {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next))
+            {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire}, for callers that were rejected further down the line.
+     */
+    public void release(long nowNanos)
+    {
+        fullAt.accumulateAndGet(nowNanos, (current, now) -> Math.max(current - nanosPerToken, now));
+    }
+
+    /**
+     * A full bucket behaves exactly like a new one, so it can be discarded.
+     */
+    public boolean isFull(long nowNanos)
+    {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
@@ -2,15 +2,20 @@ package az.azercell.customer.controller;
 
 import az.azercell.customer.dto.OtpDTO;
 import az.azercell.customer.security.JwtService;
+import az.azercell.customer.service.CustomerService;
+import az.azercell.customer.service.OtpRateLimiter;
 import az.azercell.customer.service.OtpService;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +32,12 @@ class AuthControllerTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private OtpRateLimiter otpRateLimiter;
+
+    @Mock
+    private CustomerService customerService;
+
     @Test
     public void testRequestOtp_Success() {
         String gsmNumber = "1234567890";
@@ -52,6 +63,19 @@ class AuthControllerTest {
         assertEquals("Error generating OTP code.", response.getBody());
     }
 
+    @Test
+    public void testRequestOtp_RateLimited() {
+        String gsmNumber = "1234567890";
+
+        when(otpRateLimiter.tryAcquire(gsmNumber)).thenReturn(42L);
+
+        ResponseEntity<String> response = authController.requestOtp(gsmNumber);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("42", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyNoInteractions(otpService);
+    }
+
     @Test
     public void testVerifyOtp_ValidOtp() {
         String gsmNumber = "1234567890";
@@ -59,7 +83,24 @@ class AuthControllerTest {
         String token = "generatedJwtToken";
 
         when(otpService.verifyOtp(any(OtpDTO.class))).thenReturn(true);
-        when(jwtService.generateToken(gsmNumber)).thenReturn(token);
+        when(customerService.findIdByGsmNumber(gsmNumber)).thenReturn(Optional.of(7L));
+        when(jwtService.generateToken(gsmNumber, 7L)).thenReturn(token);
+
+        ResponseEntity<String> response = authController.verifyOtp(gsmNumber, otpCode);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(token, response.getBody());
+    }
+
+    @Test
+    public void testVerifyOtp_UnknownCustomer() {
+        String gsmNumber = "1234567890";
+        int otpCode = 123456;
+        String token = "generatedJwtToken";
+
+        when(otpService.verifyOtp(any(OtpDTO.class))).thenReturn(true);
+        when(customerService.findIdByGsmNumber(gsmNumber)).thenReturn(Optional.empty());
+        when(jwtService.generateToken(gsmNumber, null)).thenReturn(token);
 
         ResponseEntity<String> response = authController.verifyOtp(gsmNumber, otpCode);
 
@@ -0,0 +1,83 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.dto.BalanceAdjustmentDTO;
+import az.azercell.customer.dto.CustomerDTO;
+import az.azercell.customer.model.Customer;
+import az.azercell.customer.repository.CustomerRepository;
+import az.azercell.customer.util.SqlStatementBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement budgets of the customer write paths against the real repository on H2. The tests run outside a test
+ * transaction so every service call commits and prepares the statements it would in production, and only assert on
+ * what the service returns so the budget counts nothing but the call under test.
+ */
+@DataJpaTest(properties = {"spring.liquibase.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import(CustomerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerServiceSqlBudgetTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private Customer existing;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = new Customer();
+        customer.setName("John");
+        customer.setSurname("Doe");
+        customer.setBirthdate("01-01-1990");
+        customer.setGsmNumber("994501234567");
+        customer.setBalance(BigDecimal.valueOf(100));
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setUpdatedAt(customer.getCreatedAt());
+        existing = customerRepository.save(customer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    void testUpdate_LoadsAndWritesOnce() {
+        CustomerDTO dto = new CustomerDTO(existing);
+        dto.setName("Jane");
+
+        assertEquals("Jane", customerService.update(existing.getId(), dto).orElseThrow().getName());
+    }
+
+    /**
+     * The lookup and {@code deleteById} share one persistence context, so the row is loaded once.
+     */
+    @Test
+    @SqlStatementBudget(2)
+    void testDelete_LoadsAndDeletesOnce() {
+        assertDoesNotThrow(() -> customerService.delete(existing.getId()));
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    void testAdjustBalance_UpdatesAndReadsBackTheBalance() {
+        BalanceAdjustmentDTO adjustment = customerService.adjustBalance(existing.getId(), BigDecimal.valueOf(-10));
+
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(adjustment.getBalanceAfter()));
+    }
+}
@@ -1,7 +1,10 @@
 package az.azercell.customer.service;
 
+import az.azercell.customer.dto.BalanceAdjustmentDTO;
 import az.azercell.customer.dto.CustomerDTO;
 import az.azercell.customer.exceptions.CustomerNotFoundException;
+import az.azercell.customer.exceptions.InsufficientBalanceException;
+import az.azercell.customer.generic.TotalCount;
 import az.azercell.customer.model.Customer;
 import az.azercell.customer.repository.CustomerRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +13,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,7 +40,7 @@ class CustomerServiceTest {
         String gsmNumber = "1234567890";
         Customer customer = new Customer();
         customer.setGsmNumber(gsmNumber);
-        when(customerRepository.findByGsmNumber(gsmNumber)).thenReturn(Collections.singletonList(customer));
+        when(customerRepository.findFirstByGsmNumberOrderByIdDesc(gsmNumber)).thenReturn(Optional.of(customer));
 
         // Act
         Customer result = customerService.getCustomerByGsmNumber(gsmNumber);
@@ -51,7 +54,7 @@ class CustomerServiceTest {
     void testGetCustomerByGsmNumber_Exception() {
         // Arrange
         String gsmNumber = "1234567890";
-        when(customerRepository.findByGsmNumber(gsmNumber)).thenThrow(new RuntimeException("Database error"));
+        when(customerRepository.findFirstByGsmNumberOrderByIdDesc(gsmNumber)).thenThrow(new RuntimeException("Database error"));
 
         // Assert & Act
         assertThrows(RuntimeException.class, () -> customerService.getCustomerByGsmNumber(gsmNumber));
@@ -115,6 +118,30 @@ class CustomerServiceTest {
         assertEquals(customerDTO.getName(), result.get().getName());
     }
 
+    @Test
+    void testUpdateCustomer_StampsUpdatedAt() {
+        // Arrange
+        Long customerId = 1L;
+        LocalDateTime previous = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Customer existingCustomer = new Customer();
+        existingCustomer.setId(customerId);
+        existingCustomer.setUpdatedAt(previous);
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(existingCustomer));
+        when(customerRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName("Updated Name");
+        customerDTO.setUpdatedAt(previous);
+
+        // Act
+        Optional<CustomerDTO> result = customerService.update(customerId, customerDTO);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertNotNull(result.get().getUpdatedAt());
+        assertTrue(result.get().getUpdatedAt().isAfter(previous));
+    }
+
     @Test
     void testUpdateCustomer_InvalidId() {
         // Arrange
@@ -154,4 +181,124 @@ class CustomerServiceTest {
         // Act & Assert
         assertDoesNotThrow(() -> customerService.delete(customerId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAdjustBalance_Debit() {
+        // Arrange
+        Long customerId = 1L;
+        BigDecimal delta = BigDecimal.valueOf(-30);
+        when(customerRepository.adjustBalance(customerId, delta)).thenReturn(1);
+        CustomerRepository.BalanceView balanceView = mock(CustomerRepository.BalanceView.class);
+        when(balanceView.getBalance()).thenReturn(BigDecimal.valueOf(70));
+        when(customerRepository.findBalanceById(customerId)).thenReturn(Optional.of(balanceView));
+
+        // Act
+        BalanceAdjustmentDTO result = customerService.adjustBalance(customerId, delta);
+
+        // Assert
+        assertEquals(customerId, result.getCustomerId());
+        assertEquals(BigDecimal.valueOf(100), result.getBalanceBefore());
+        assertEquals(BigDecimal.valueOf(70), result.getBalanceAfter());
+        verify(customerRepository, never()).save(any());
+    }
+
+    @Test
+    void testAdjustBalance_InsufficientBalance() {
+        // Arrange
+        Long customerId = 1L;
+        BigDecimal delta = BigDecimal.valueOf(-300);
+        when(customerRepository.adjustBalance(customerId, delta)).thenReturn(0);
+        when(customerRepository.existsById(customerId)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InsufficientBalanceException.class, () -> customerService.adjustBalance(customerId, delta));
+    }
+
+    @Test
+    void testAdjustBalance_CustomerNotFound() {
+        // Arrange
+        Long customerId = 2L;
+        BigDecimal delta = BigDecimal.TEN;
+        when(customerRepository.adjustBalance(customerId, delta)).thenReturn(0);
+        when(customerRepository.existsById(customerId)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(CustomerNotFoundException.class, () -> customerService.adjustBalance(customerId, delta));
+    }
+
+    @Test
+    void testCountAll_CachesExactCount() {
+        when(customerRepository.count()).thenReturn(42L);
+
+        TotalCount first = customerService.countAll();
+        TotalCount second = customerService.countAll();
+
+        assertEquals(42L, first.getValue());
+        assertTrue(first.isExact());
+        assertEquals(42L, second.getValue());
+        assertFalse(second.isExact());
+        verify(customerRepository, times(1)).count();
+    }
+
+    @Test
+    void testCountAll_ExpiredCacheCountsAgain() {
+        customerService.setTotalCountTtl(Duration.ZERO);
+        when(customerRepository.count()).thenReturn(1L, 2L);
+
+        customerService.countAll();
+        TotalCount second = customerService.countAll();
+
+        assertEquals(2L, second.getValue());
+        assertTrue(second.isExact());
+    }
+
+    @Test
+    void testCountAll_UsesEstimateForLargeTables() {
+        customerService.setApproximateCountThreshold(1_000_000L);
+        when(customerRepository.estimateCount()).thenReturn(5_000_000L);
+
+        TotalCount total = customerService.countAll();
+
+        assertEquals(5_000_000L, total.getValue());
+        assertFalse(total.isExact());
+        verify(customerRepository, never()).count();
+    }
+
+    @Test
+    void testCountAll_CountsSmallTablesExactly() {
+        customerService.setApproximateCountThreshold(1_000_000L);
+        when(customerRepository.estimateCount()).thenReturn(900L);
+        when(customerRepository.count()).thenReturn(910L);
+
+        TotalCount total = customerService.countAll();
+
+        assertEquals(910L, total.getValue());
+        assertTrue(total.isExact());
+    }
+
+    @Test
+    void testSave_DropsCachedCount() {
+        when(customerRepository.count()).thenReturn(42L, 43L);
+        when(customerRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        customerService.countAll();
+        customerService.save(new CustomerDTO());
+        TotalCount afterSave = customerService.countAll();
+
+        assertEquals(43L, afterSave.getValue());
+        assertTrue(afterSave.isExact());
+    }
+
+    @Test
+    void testDelete_DropsCachedCount() {
+        when(customerRepository.count()).thenReturn(42L, 41L);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(new Customer()));
+
+        customerService.countAll();
+        customerService.delete(1L);
+        TotalCount afterDelete = customerService.countAll();
+
+        assertEquals(41L, afterDelete.getValue());
+        assertTrue(afterDelete.isExact());
+    }
+}
@@ -0,0 +1,170 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InMemoryOtpStoreTest {
+
+    @Mock
+    private OtpAuditWriter auditWriter;
+
+    private InMemoryOtpStore otpStore;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        otpStore = new InMemoryOtpStore(auditWriter, 100);
+    }
+
+    @Test
+    public void testNewCodeReplacesOldOne() {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)));
+        otpStore.save(otp("994501234567", 2222, LocalDateTime.now().plusMinutes(5)));
+
+        assertEquals(2222, otpStore.findLatest("994501234567").get().getOtpCode());
+        assertEquals(1, otpStore.size());
+        verify(auditWriter, times(2)).issued(any(Otp.class));
+    }
+
+    @Test
+    public void testReservedAttemptsBlockTheCode() {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)));
+        Otp before = otpStore.findLatest("994501234567").get();
+
+        assertTrue(otpStore.reserveAttempt(before, 3));
+        assertTrue(otpStore.reserveAttempt(before, 3));
+        assertFalse(otpStore.findLatest("994501234567").get().isBlocked());
+        assertTrue(otpStore.reserveAttempt(before, 3));
+        assertFalse(otpStore.reserveAttempt(before, 3));
+        Otp blocked = otpStore.findLatest("994501234567").get();
+
+        assertEquals(3, blocked.getAttack());
+        assertTrue(blocked.isBlocked());
+        assertEquals(0, before.getAttack());
+        verify(auditWriter, times(3)).attempted(any(Otp.class));
+    }
+
+    @Test
+    public void testReleasedLastAttemptUnblocksTheCode() {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)));
+        Otp live = otpStore.findLatest("994501234567").get();
+        otpStore.reserveAttempt(live, 3);
+        otpStore.reserveAttempt(live, 3);
+        otpStore.reserveAttempt(live, 3);
+
+        otpStore.releaseAttempt(live, 3);
+        Otp released = otpStore.findLatest("994501234567").get();
+
+        assertEquals(2, released.getAttack());
+        assertFalse(released.isBlocked());
+    }
+
+    @Test
+    public void testAttemptAgainstReplacedCodeIsRefused() {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)));
+        Otp old = otpStore.findLatest("994501234567").get();
+        otpStore.save(otp("994501234567", 2222, LocalDateTime.now().plusMinutes(5)));
+
+        assertFalse(otpStore.reserveAttempt(old, 3));
+        otpStore.releaseAttempt(old, 3);
+
+        assertEquals(0, otpStore.findLatest("994501234567").get().getAttack());
+        verify(auditWriter, never()).attempted(any(Otp.class));
+    }
+
+    @Test
+    public void testAttemptWithoutCodeIsRefused() {
+        assertFalse(otpStore.reserveAttempt(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)), 3));
+
+        assertFalse(otpStore.findLatest("994501234567").isPresent());
+        verifyNoInteractions(auditWriter);
+    }
+
+    @Test
+    public void testConcurrentReservationsAreAllCounted() throws Exception {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().plusMinutes(5)));
+        Otp live = otpStore.findLatest("994501234567").get();
+        int threads = 16;
+        int attemptsPerThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    assertTrue(otpStore.reserveAttempt(live, Integer.MAX_VALUE));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * attemptsPerThread, otpStore.findLatest("994501234567").get().getAttack());
+    }
+
+    @Test
+    public void testCodeIsDroppedOnceExpired() {
+        LocalDateTime expiredAt = LocalDateTime.now().plusSeconds(2);
+        otpStore.save(otp("994501234567", 1111, expiredAt));
+
+        otpStore.expireDue(millis(expiredAt) - 500);
+        assertTrue(otpStore.findLatest("994501234567").isPresent());
+
+        otpStore.expireDue(millis(expiredAt) + 100);
+        assertFalse(otpStore.findLatest("994501234567").isPresent());
+        verify(auditWriter).expired(any(Otp.class));
+    }
+
+    @Test
+    public void testExpiryOfReplacedCodeKeepsNewCode() {
+        LocalDateTime firstExpiry = LocalDateTime.now().plusSeconds(1);
+        otpStore.save(otp("994501234567", 1111, firstExpiry));
+        otpStore.save(otp("994501234567", 2222, LocalDateTime.now().plusMinutes(5)));
+
+        otpStore.expireDue(millis(firstExpiry) + 100);
+
+        assertEquals(2222, otpStore.findLatest("994501234567").get().getOtpCode());
+        verify(auditWriter, never()).expired(any(Otp.class));
+    }
+
+    @Test
+    public void testAlreadyExpiredCodeIsNotKept() {
+        otpStore.save(otp("994501234567", 1111, LocalDateTime.now().minusMinutes(1)));
+
+        assertFalse(otpStore.findLatest("994501234567").isPresent());
+    }
+
+    private static Otp otp(String gsmNumber, int code, LocalDateTime expiredAt) {
+        Otp otp = new Otp();
+        otp.setGsmNumber(gsmNumber);
+        otp.setOtpCode(code);
+        otp.setExpiredAt(expiredAt);
+        return otp;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
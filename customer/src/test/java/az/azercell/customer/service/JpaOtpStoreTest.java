@@ -0,0 +1,76 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.model.Otp;
+import az.azercell.customer.repository.OtpRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the conditional updates of the JPA store on H2, outside a test transaction so each one commits on its own.
+ */
+@DataJpaTest(properties = {"spring.liquibase.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+        "otp.store=jpa"})
+@Import(JpaOtpStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaOtpStoreTest {
+
+    @Autowired
+    private JpaOtpStore otpStore;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    private Otp live;
+
+    @BeforeEach
+    void setUp() {
+        Otp otp = new Otp();
+        otp.setGsmNumber("994501234567");
+        otp.setOtpCode(1111);
+        otp.setExpiredAt(LocalDateTime.now().plusMinutes(5));
+        otp.setCreatedAt(new Date());
+        otpStore.save(otp);
+        live = otpStore.findLatest("994501234567").orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otpRepository.deleteAll();
+    }
+
+    @Test
+    void testReservationsStopAtMaxAttempts() {
+        assertTrue(otpStore.reserveAttempt(live, 3));
+        assertTrue(otpStore.reserveAttempt(live, 3));
+        assertTrue(otpStore.reserveAttempt(live, 3));
+        assertFalse(otpStore.reserveAttempt(live, 3));
+
+        Otp blocked = otpStore.findLatest("994501234567").orElseThrow();
+        assertEquals(3, blocked.getAttack());
+        assertTrue(blocked.isBlocked());
+    }
+
+    @Test
+    void testReleasedLastAttemptUnblocksTheCode() {
+        otpStore.reserveAttempt(live, 3);
+        otpStore.reserveAttempt(live, 3);
+        otpStore.reserveAttempt(live, 3);
+
+        otpStore.releaseAttempt(live, 3);
+
+        Otp released = otpStore.findLatest("994501234567").orElseThrow();
+        assertEquals(2, released.getAttack());
+        assertFalse(released.isBlocked());
+    }
+}
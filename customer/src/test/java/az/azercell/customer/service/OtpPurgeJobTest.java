@@ -0,0 +1,99 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.repository.OtpRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class OtpPurgeJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+    @Mock
+    private OtpRepository repository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testDeletesUntilBatchIsNotFull() {
+        when(repository.deleteExpiredBefore(any(), eq(100))).thenReturn(100, 100, 7);
+
+        long purged = job(10, false).purge(NOW);
+
+        assertEquals(207, purged);
+        verify(repository, times(3)).deleteExpiredBefore(NOW.minusDays(1), 100);
+    }
+
+    @Test
+    public void testStopsAtMaxBatchesPerRun() {
+        when(repository.deleteExpiredBefore(any(), eq(100))).thenReturn(100);
+
+        long purged = job(3, false).purge(NOW);
+
+        assertEquals(300, purged);
+        verify(repository, times(3)).deleteExpiredBefore(any(), eq(100));
+    }
+
+    @Test
+    public void testStatisticsAreRecorded() {
+        when(repository.deleteExpiredBefore(any(), eq(100))).thenReturn(40, 5);
+        OtpPurgeJob job = job(10, false);
+        job.bindTo(registry);
+
+        job.purge(NOW);
+        job.purge(NOW.plusMinutes(5));
+
+        assertEquals(45, registry.get("otp.purge.rows").functionCounter().count());
+        assertEquals(5, registry.get("otp.purge.last.run.rows").gauge().value());
+        assertEquals(2, registry.get("otp.purge.runs").timer().count());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testDropsPartitionsPastRetentionAndCreatesUpcomingOnes() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(Arrays.asList("p202404", "p202405", "p202406", "pmax"));
+
+        job(10, true).purge(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE otps DROP PARTITION p202404");
+        verify(jdbcTemplate).execute("ALTER TABLE otps DROP PARTITION p202405");
+        verify(jdbcTemplate).execute("ALTER TABLE otps REORGANIZE PARTITION pmax INTO (PARTITION p202407 "
+                + "VALUES LESS THAN ('2024-08-01'), PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+        verifyNoMoreInteractions(ignoreStubs(jdbcTemplate));
+    }
+
+    @Test
+    public void testKeepsPartitionWithinRetention() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(Arrays.asList("p202405", "p202406", "p202407", "pmax"));
+
+        job(10, true).purge(LocalDateTime.of(2024, 6, 2, 12, 0));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private OtpPurgeJob job(int maxBatchesPerRun, boolean dropPartitions) {
+        return new OtpPurgeJob(repository, jdbcTemplate, Duration.ofDays(1), 100, Duration.ZERO, maxBatchesPerRun,
+                dropPartitions);
+    }
+}
@@ -0,0 +1,65 @@
+package az.azercell.customer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OtpRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testPerGsmLimit() {
+        OtpRateLimiter limiter = limiter(true, 2, Duration.ofMinutes(5), 100, Duration.ofSeconds(1));
+
+        assertEquals(0, limiter.tryAcquire("994501234567"));
+        assertEquals(0, limiter.tryAcquire("994501234567"));
+        long retryAfter = limiter.tryAcquire("994501234567");
+
+        assertTrue(retryAfter > 0 && retryAfter <= 150, "retryAfter=" + retryAfter);
+        assertEquals(0, limiter.tryAcquire("994507654321"));
+        assertEquals(3, requests("allowed"));
+        assertEquals(1, requests("rejected-per-gsm"));
+    }
+
+    @Test
+    public void testGlobalLimitDoesNotSpendPerGsmToken() {
+        OtpRateLimiter limiter = limiter(true, 1, Duration.ofMinutes(5), 1, Duration.ofHours(1));
+
+        assertEquals(0, limiter.tryAcquire("994501234567"));
+        assertTrue(limiter.tryAcquire("994507654321") > 0);
+        assertEquals(1, requests("rejected-global"));
+
+        limiter.evictIdle();
+        assertEquals(1, trackedNumbers());
+    }
+
+    @Test
+    public void testDisabledLimiterAllowsEverything() {
+        OtpRateLimiter limiter = limiter(false, 1, Duration.ofMinutes(5), 1, Duration.ofHours(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire("994501234567"));
+        }
+        assertEquals(0, trackedNumbers());
+    }
+
+    private OtpRateLimiter limiter(boolean enabled, int perGsmCapacity, Duration perGsmRefillPeriod,
+                                   int globalCapacity, Duration globalRefillPeriod) {
+        OtpRateLimiter limiter = new OtpRateLimiter(enabled, perGsmCapacity, perGsmRefillPeriod, globalCapacity,
+                globalRefillPeriod);
+        limiter.bindTo(registry);
+        return limiter;
+    }
+
+    private double requests(String result) {
+        return registry.get("otp.rate.limit.requests").tag("result", result).functionCounter().count();
+    }
+
+    private double trackedNumbers() {
+        return registry.get("otp.rate.limit.tracked.numbers").gauge().value();
+    }
+}
@@ -11,11 +11,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -29,6 +29,9 @@ public class OtpServiceTest {
     @Mock
     private OtpRepository otpRepository;
 
+    @Mock
+    private OtpStore otpStore;
+
     @Test
     public void testVerifyOtp_ValidOtp() {
         // Arrange
@@ -39,14 +42,17 @@ public class OtpServiceTest {
         Otp otp = new Otp();
         otp.setOtpCode(1234);
         otp.setExpiredAt(LocalDateTime.now().plusMinutes(5));
-        when(otpRepository.findByGsmNumber(anyString())).thenReturn(Collections.singletonList(otp));
+        when(otpStore.findLatest(anyString())).thenReturn(Optional.of(otp));
+        when(otpStore.reserveAttempt(otp, 3)).thenReturn(true);
 
         // Act
         boolean result = otpService.verifyOtp(otpDTO);
 
         // Assert
         assertTrue(result);
-        verify(otpRepository, times(1)).findByGsmNumber("1234567890");
+        verify(otpStore, times(1)).findLatest("1234567890");
+        verify(otpStore, times(1)).releaseAttempt(otp, 3);
+        verifyNoInteractions(otpRepository);
     }
 
 
@@ -59,7 +65,7 @@ public class OtpServiceTest {
         Otp otp = new Otp();
         otp.setOtpCode(1234);
         otp.setExpiredAt(LocalDateTime.now().minusMinutes(1)); // Expired OTP
-        when(otpRepository.findByGsmNumber(anyString())).thenReturn(Collections.singletonList(otp));
+        when(otpStore.findLatest(anyString())).thenReturn(Optional.of(otp));
 
         // Act and Assert
         try {
@@ -69,7 +75,7 @@ public class OtpServiceTest {
             assertEquals("OTP verification timed out.", e.getMessage());
         }
 
-        verify(otpRepository, times(1)).findByGsmNumber("1234567890");
+        verify(otpStore, times(1)).findLatest("1234567890");
     }
 
     @Test
@@ -155,44 +161,66 @@ public class OtpServiceTest {
 
         // Assert
         assertFalse(result);
+        verifyNoInteractions(otpStore);
     }
 
     @Test
-    void testIncrementOtpAttempts_NotBlocked() {
+    void testReserveOtpAttempt_AttemptLeft() {
         // Arrange
         Otp validOtp = new Otp();
         validOtp.setGsmNumber("1234567890");
-        validOtp.setAttack(2); // Attack count: 2 (below MAX_ATTEMPTS)
-
-        when(otpRepository.findByGsmNumber(anyString())).thenReturn(Collections.singletonList(validOtp));
+        when(otpStore.reserveAttempt(validOtp, 3)).thenReturn(true);
 
         // Act
-        otpService.incrementOtpAttempts("1234567890");
+        otpService.reserveOtpAttempt(validOtp);
 
         // Assert
-        verify(otpRepository, times(1)).findByGsmNumber("1234567890");
-        verify(otpRepository, times(1)).save(any(Otp.class));
-        assertEquals(3, validOtp.getAttack());
-        assertTrue(validOtp.isBlocked());
+        verify(otpStore, times(1)).reserveAttempt(validOtp, 3);
+        verifyNoInteractions(otpRepository);
     }
 
     @Test
-    void testIncrementOtpAttempts_Blocked() {
+    void testVerifyOtp_NoAttemptLeftIsRefusedUncompared() {
         // Arrange
-        Otp blockedOtp = new Otp();
-        blockedOtp.setGsmNumber("9876543210");
-        blockedOtp.setAttack(3 - 1); // Attack count: MAX_ATTEMPTS - 1 (below MAX_ATTEMPTS)
+        OtpDTO otpDTO = new OtpDTO();
+        otpDTO.setGsmNumber("9876543210");
+        otpDTO.setOtpCode(1234);
+
+        Otp otp = new Otp();
+        otp.setGsmNumber("9876543210");
+        otp.setOtpCode(1234);
+        otp.setExpiredAt(LocalDateTime.now().plusMinutes(5));
+        when(otpStore.findLatest("9876543210")).thenReturn(Optional.of(otp));
+        when(otpStore.reserveAttempt(otp, 3)).thenReturn(false);
+
+        // Act and Assert
+        OtpVerificationException e = assertThrows(OtpVerificationException.class,
+                () -> otpService.verifyOtp(otpDTO));
+        assertEquals("OTP verification limit exceeded.", e.getMessage());
+        verify(otpStore, never()).releaseAttempt(any(Otp.class), anyInt());
+    }
+
+    @Test
+    void testVerifyOtp_InvalidOtpCodeCountsOneAttempt() {
+        // Arrange
+        OtpDTO otpDTO = new OtpDTO();
+        otpDTO.setGsmNumber("9876543210");
+        otpDTO.setOtpCode(5678);
 
-        when(otpRepository.findByGsmNumber(anyString())).thenReturn(Collections.singletonList(blockedOtp));
+        Otp otp = new Otp();
+        otp.setGsmNumber("9876543210");
+        otp.setOtpCode(1234);
+        otp.setExpiredAt(LocalDateTime.now().plusMinutes(5));
+        when(otpStore.findLatest("9876543210")).thenReturn(Optional.of(otp));
+        when(otpStore.reserveAttempt(otp, 3)).thenReturn(true);
 
         // Act
-        otpService.incrementOtpAttempts("9876543210");
+        boolean result = otpService.verifyOtp(otpDTO);
 
         // Assert
-        verify(otpRepository, times(1)).findByGsmNumber("9876543210");
-        verify(otpRepository, times(1)).save(any(Otp.class));
-        assertEquals(3, blockedOtp.getAttack());
-        assertTrue(blockedOtp.isBlocked());
+        assertFalse(result);
+        verify(otpStore, times(1)).reserveAttempt(otp, 3);
+        verify(otpStore, never()).releaseAttempt(any(Otp.class), anyInt());
     }
 
     @Test
@@ -210,32 +238,14 @@ public class OtpServiceTest {
         String gsmNumber = "1234567890";
         OtpDTO otpDTO = new OtpDTO();
         otpDTO.setGsmNumber(gsmNumber);
-        when(otpRepository.save(any(Otp.class))).thenReturn(new Otp());
 
         // Act
         Integer generatedOtpCode = otpService.generateOtp(gsmNumber);
 
         // Assert
-        verify(otpRepository, times(1)).save(any(Otp.class));
+        verify(otpStore, times(1)).save(argThat(otp -> otp.getOtpCode().equals(generatedOtpCode)));
+        verifyNoInteractions(otpRepository);
         assertTrue(generatedOtpCode >= 1000 && generatedOtpCode <= 9999);
     }
 
-    @Test
-    void testRetrieveOtpFromDatabase() {
-        // Arrange
-        String phoneNumber = "1234567890";
-        Otp otp1 = new Otp();
-        otp1.setGsmNumber(phoneNumber);
-        Otp otp2 = new Otp();
-        otp2.setGsmNumber(phoneNumber);
-        when(otpRepository.findByGsmNumber(phoneNumber)).thenReturn(Arrays.asList(otp1, otp2));
-
-        // Act
-        List<Otp> otpList = otpService.retrieveOtpFromDatabase(phoneNumber);
-
-        // Assert
-        verify(otpRepository, times(1)).findByGsmNumber(phoneNumber);
-        assertEquals(2, otpList.size());
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package az.azercell.customer.service;
+
+import az.azercell.customer.dto.OtpDTO;
+import az.azercell.customer.exceptions.OtpVerificationException;
+import az.azercell.customer.model.Otp;
+import az.azercell.customer.repository.OtpRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OtpVerificationConcurrencyTest {
+
+    private static final String GSM_NUMBER = "994501234567";
+
+    private InMemoryOtpStore otpStore;
+    private OtpService otpService;
+    private final AtomicInteger evaluated = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        otpStore = new InMemoryOtpStore(mock(OtpAuditWriter.class), 1000);
+        otpService = new OtpService(mock(OtpRepository.class), otpStore) {
+            @Override
+            protected boolean isOtpCodeValid(Otp otp, Integer otpCode) {
+                evaluated.incrementAndGet();
+                return super.isOtpCodeValid(otp, otpCode);
+            }
+        };
+    }
+
+    /**
+     * Wrong guesses keep arriving from many threads while the right code is sent once the code is blocked: only
+     * {@link OtpService#MAX_ATTEMPTS} guesses may ever be compared, and the right code must be refused.
+     */
+    @Test
+    public void testWrongGuessesFromManyThreadsBlockAfterMaxAttempts() throws Exception {
+        Integer code = otpService.generateOtp(GSM_NUMBER);
+        int wrongCode = code == 9999 ? 1000 : code + 1;
+        int threads = 32;
+
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger blocked = new AtomicInteger();
+        AtomicBoolean burstOver = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (!burstOver.get()) {
+                    try {
+                        assertFalse(otpService.verifyOtp(guess(wrongCode)));
+                        rejected.incrementAndGet();
+                    } catch (OtpVerificationException e) {
+                        blocked.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<Throwable> rightGuess = executor.submit(() -> {
+            start.await();
+            while (!otpStore.findLatest(GSM_NUMBER).get().isBlocked()) {
+                Thread.onSpinWait();
+            }
+            try {
+                return assertThrows(OtpVerificationException.class, () -> otpService.verifyOtp(guess(code)));
+            } finally {
+                burstOver.set(true);
+            }
+        });
+        start.countDown();
+        assertEquals("OTP verification limit exceeded.", rightGuess.get(10, TimeUnit.SECONDS).getMessage());
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Otp otp = otpStore.findLatest(GSM_NUMBER).get();
+        assertEquals(OtpService.MAX_ATTEMPTS, otp.getAttack());
+        assertTrue(otp.isBlocked());
+        assertEquals(OtpService.MAX_ATTEMPTS, evaluated.get());
+        assertEquals(OtpService.MAX_ATTEMPTS, rejected.get());
+        assertTrue(blocked.get() > 0);
+        assertThrows(OtpVerificationException.class, () -> otpService.verifyOtp(guess(code)));
+        assertEquals(OtpService.MAX_ATTEMPTS, evaluated.get());
+    }
+
+    @Test
+    public void testRightGuessGivesItsAttemptBack() {
+        Integer code = otpService.generateOtp(GSM_NUMBER);
+        int wrongCode = code == 9999 ? 1000 : code + 1;
+
+        assertFalse(otpService.verifyOtp(guess(wrongCode)));
+        assertFalse(otpService.verifyOtp(guess(wrongCode)));
+        assertTrue(otpService.verifyOtp(guess(code)));
+
+        Otp otp = otpStore.findLatest(GSM_NUMBER).get();
+        assertEquals(2, otp.getAttack());
+        assertFalse(otp.isBlocked());
+    }
+
+    private static OtpDTO guess(int code) {
+        OtpDTO otpDTO = new OtpDTO();
+        otpDTO.setGsmNumber(GSM_NUMBER);
+        otpDTO.setOtpCode(code);
+        return otpDTO;
+    }
+}
@@ -0,0 +1,62 @@
+package az.azercell.customer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    public void testItemIsReportedAtItsDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1000);
+
+        assertTrue(wheel.schedule("a", 1035));
+
+        assertEquals(Collections.emptyList(), wheel.advance(1034));
+        assertEquals(Collections.singletonList("a"), wheel.advance(1040));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testPastDeadlineIsNotScheduled() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1000);
+
+        assertFalse(wheel.schedule("a", 1000));
+        assertFalse(wheel.schedule("b", 995));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testFarDeadlinesCascadeThroughOverflowLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+
+        wheel.schedule("level0", 25);
+        wheel.schedule("level1", 130);
+        wheel.schedule("level2", 610);
+
+        List<String> expired = new ArrayList<>();
+        for (long now = 0; now <= 700; now += 10) {
+            for (String item : wheel.advance(now)) {
+                expired.add(item + "@" + now);
+            }
+        }
+
+        assertEquals(Arrays.asList("level0@30", "level1@130", "level2@610"), expired);
+    }
+
+    @Test
+    public void testLargeClockJumpReportsEverythingDue() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+        for (int i = 1; i <= 50; i++) {
+            wheel.schedule(i, i * 20L);
+        }
+
+        assertEquals(25, wheel.advance(500).size());
+        assertEquals(25, wheel.size());
+    }
+}
@@ -0,0 +1,76 @@
+package az.azercell.customer.util;
+
+import az.azercell.customer.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetPaginationUtilsTest {
+
+    @Test
+    public void testCursorRoundTrip() {
+        KeysetCursor cursor = new KeysetCursor("createdAt", true, "2024-01-02T03:04:05", 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals("createdAt", decoded.getColumn());
+        assertTrue(decoded.isDescending());
+        assertEquals("2024-01-02T03:04:05", decoded.getValue());
+        assertEquals(42L, decoded.getId());
+        assertEquals(Sort.Order.desc("createdAt"), decoded.toOrder());
+    }
+
+    @Test
+    public void testCursorIsUrlSafe() {
+        String token = new KeysetCursor("name", false, "a/b+c?d", 1L).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void testCursorRoundTripWithNullValue() {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor("updatedAt", false, null, 7L).encode());
+
+        assertNull(decoded.getValue());
+        assertEquals(7L, decoded.getId());
+    }
+
+    @Test
+    public void testDecodeRejectsForeignTokens() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("WzEsMl0"));
+    }
+
+    @Test
+    public void testKeysetSortAddsIdTieBreaker() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "balance").and(Sort.by(Sort.Direction.DESC, "id")),
+                KeysetPaginationUtils.keysetSort(Sort.Order.desc("balance")));
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), KeysetPaginationUtils.keysetSort(Sort.Order.asc("id")));
+    }
+
+    @Test
+    public void testCursorOfReadsSortValueAndId() {
+        Customer customer = new Customer();
+        customer.setId(5L);
+        customer.setBalance(new BigDecimal("1.50"));
+
+        KeysetCursor cursor = KeysetPaginationUtils.cursorOf(customer, Sort.Order.asc("balance"));
+
+        assertEquals("balance", cursor.getColumn());
+        assertEquals("1.50", cursor.getValue());
+        assertEquals(5L, cursor.getId());
+    }
+
+    @Test
+    public void testConvertValue() {
+        assertEquals(new BigDecimal("1.50"), QueryProcessingUtils.convertValue("1.50", BigDecimal.class));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+                QueryProcessingUtils.convertValue("2024-01-02T03:04:05", LocalDateTime.class));
+        assertEquals(3L, QueryProcessingUtils.convertValue("3", Long.class));
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.convertValue("x", Long.class));
+    }
+}
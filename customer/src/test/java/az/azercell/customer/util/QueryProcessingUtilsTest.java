@@ -0,0 +1,180 @@
+package az.azercell.customer.util;
+
+import az.azercell.customer.generic.TotalCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryProcessingUtilsTest {
+
+    private static final TotalCount COUNTED = TotalCount.exact(1000);
+    private static final Set<String> FILTERABLE = new HashSet<>(Arrays.asList("id", "gsmNumber", "balance"));
+    private static final Set<String> INDEXED = new HashSet<>(Arrays.asList("id", "gsmNumber"));
+    private static final List<List<String>> SORT_INDEXES = Arrays.asList(Arrays.asList("gsmNumber", "id"),
+            Collections.singletonList("id"));
+
+    @Test
+    public void testLastPageKnowsItsTotal() {
+        SliceImpl<String> slice = new SliceImpl<>(Arrays.asList("a", "b"), PageRequest.of(3, 10), false);
+
+        TotalCount total = QueryProcessingUtils.resolveTotalCount(slice, () -> fail("must not count"));
+
+        assertEquals(32, total.getValue());
+        assertTrue(total.isExact());
+    }
+
+    @Test
+    public void testEmptyFirstPageKnowsItsTotal() {
+        SliceImpl<String> slice = new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 10), false);
+
+        assertEquals(0, QueryProcessingUtils.resolveTotalCount(slice, () -> fail("must not count")).getValue());
+    }
+
+    @Test
+    public void testPageWithNextIsCounted() {
+        SliceImpl<String> slice = new SliceImpl<>(Arrays.asList("a", "b"), PageRequest.of(0, 2), true);
+
+        assertSame(COUNTED, QueryProcessingUtils.resolveTotalCount(slice, () -> COUNTED));
+    }
+
+    @Test
+    public void testEmptyPageBeyondTheEndIsCounted() {
+        SliceImpl<String> slice = new SliceImpl<>(Collections.emptyList(), PageRequest.of(5, 10), false);
+
+        assertSame(COUNTED, QueryProcessingUtils.resolveTotalCount(slice, () -> COUNTED));
+    }
+
+    @Test
+    public void testEmptyFilterIsIgnored() {
+        assertNull(QueryProcessingUtils.parseFilterParameter("[]"));
+        assertNull(QueryProcessingUtils.resolveFilterCriteria(null, FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testNestedFilterCompiles() {
+        String filter = "[[\"gsmNumber\", \"startswith\", \"99450\"], \"and\", "
+                + "[[\"balance\", \">=\", 10], \"or\", [\"!\", [\"id\", null]]]]";
+
+        assertNotNull(QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter(filter), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testInvalidJsonIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryProcessingUtils.parseFilterParameter("[\"id\", \"=\""));
+    }
+
+    @Test
+    public void testUnknownFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"password\", \"=\", \"x\"]"), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testUnknownOperatorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"id\", \"like\", 1]"), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testMixedGroupOperatorsAreRejected() {
+        String filter = "[[\"id\", 1], \"and\", [\"id\", 2], \"or\", [\"id\", 3]]";
+
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter(filter), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testRangeOperatorWithNullIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"balance\", \">\", null]"), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testUnindexedFieldAloneIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"balance\", \">=\", 10]"), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testUnindexedFieldNarrowingIndexedLookupIsAccepted() {
+        String filter = "[[\"gsmNumber\", \"994501234567\"], \"and\", [\"balance\", \">=\", 10]]";
+
+        assertNotNull(QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter(filter), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testOrWithUnindexedBranchIsRejected() {
+        String filter = "[[\"id\", \"<\", 10], \"or\", [\"balance\", \">=\", 10]]";
+
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter(filter), FILTERABLE, INDEXED));
+    }
+
+    @Test
+    public void testIndexedFieldWithoutSeekIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"!\", [\"id\", 1]]"), FILTERABLE, INDEXED));
+        assertThrows(IllegalArgumentException.class, () -> QueryProcessingUtils.resolveFilterCriteria(
+                QueryProcessingUtils.parseFilterParameter("[\"gsmNumber\", \"contains\", \"45\"]"), FILTERABLE,
+                INDEXED));
+    }
+
+    @Test
+    public void testMultiColumnSortKeepsRequestOrder() {
+        String sort = "[{\"selector\":\"gsmNumber\",\"desc\":true},{\"selector\":\"id\",\"desc\":true}]";
+
+        assertEquals(Sort.by(Sort.Order.desc("gsmNumber"), Sort.Order.desc("id")),
+                QueryProcessingUtils.resolveSortCriteria(sort, SORT_INDEXES));
+    }
+
+    @Test
+    public void testKeysAfterLeavingTheIndexPrefixAreDropped() {
+        String sort = "[{\"selector\":\"id\",\"desc\":true},{\"selector\":\"gsmNumber\",\"desc\":true}]";
+
+        assertEquals(Sort.by(Sort.Order.desc("id")), QueryProcessingUtils.resolveSortCriteria(sort, SORT_INDEXES));
+    }
+
+    @Test
+    public void testNonSortableLeadingColumnDropsTheWholeSort() {
+        String sort = "[{\"selector\":\"balance\",\"desc\":true},{\"selector\":\"id\",\"desc\":true}]";
+
+        assertTrue(QueryProcessingUtils.resolveSortCriteria(sort, SORT_INDEXES).isUnsorted());
+    }
+
+    @Test
+    public void testKeysInTheOtherDirectionAreDropped() {
+        String sort = "[{\"selector\":\"gsmNumber\",\"desc\":true},{\"selector\":\"id\",\"desc\":false}]";
+
+        assertEquals(Sort.by(Sort.Order.desc("gsmNumber")),
+                QueryProcessingUtils.resolveSortCriteria(sort, SORT_INDEXES));
+    }
+
+    @Test
+    public void testInvalidSortFallsBackToId() {
+        Sort sort = QueryProcessingUtils.resolveSortCriteria("[{\"selector\":", SORT_INDEXES);
+
+        assertTrue(sort.isUnsorted());
+        assertEquals(Sort.by("id"), QueryProcessingUtils.createPageRequest(10, 0, sort).getSort());
+    }
+
+    @Test
+    public void testCachedSortIsRestrictedPerCaller() {
+        String sort = "[{\"selector\":\"balance\",\"desc\":false}]";
+
+        assertTrue(QueryProcessingUtils.resolveSortCriteria(sort, SORT_INDEXES).isUnsorted());
+        assertEquals(Sort.by("balance"), QueryProcessingUtils.resolveSortCriteria(sort,
+                Collections.singletonList(Collections.singletonList("balance"))));
+    }
+}
@@ -0,0 +1,82 @@
+package az.azercell.customer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstUpToCapacityThenWaitForRefill() {
+        TokenBucket bucket = new TokenBucket(3, 300, 1000);
+
+        assertEquals(0, bucket.tryAcquire(1000));
+        assertEquals(0, bucket.tryAcquire(1000));
+        assertEquals(0, bucket.tryAcquire(1000));
+        assertEquals(100, bucket.tryAcquire(1000));
+        assertEquals(40, bucket.tryAcquire(1060));
+        assertEquals(0, bucket.tryAcquire(1100));
+    }
+
+    @Test
+    public void testReleaseReturnsToken() {
+        TokenBucket bucket = new TokenBucket(1, 100, 1000);
+
+        assertEquals(0, bucket.tryAcquire(1000));
+        bucket.release(1000);
+
+        assertTrue(bucket.isFull(1000));
+        assertEquals(0, bucket.tryAcquire(1000));
+    }
+
+    @Test
+    public void testBucketIsFullAfterRefillPeriod() {
+        TokenBucket bucket = new TokenBucket(2, 200, 1000);
+
+        bucket.tryAcquire(1000);
+        bucket.tryAcquire(1000);
+
+        assertFalse(bucket.isFull(1199));
+        assertTrue(bucket.isFull(1200));
+    }
+
+    @Test
+    public void testConcurrentCallersNeverExceedCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, TimeUnit.HOURS.toNanos(1), 0);
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                granted.add(executor.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        if (bucket.tryAcquire(0) == 0) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : granted) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(100, total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package az.azercell.dataset;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Writes one customer with its transactions and OTPs, as the services would have recorded them:
+ * <ul>
+ *     <li>purchases ({@code OUT}) never take the balance below zero; a customer who cannot pay tops up instead,</li>
+ *     <li>top-ups ({@code IN}) come in the usual denominations, a few of them credited by the system,</li>
+ *     <li>refunds ({@code REFUND}) point at the customer's latest purchase through {@code parent_id} and never return
+ *     more than is left of it,</li>
+ *     <li>{@code before_amount} and {@code after_amount} chain from one transaction to the next, and the customer's
+ *     balance is the last {@code after_amount},</li>
+ *     <li>OTPs expire five minutes after they are created, and a few are blocked after three failed attempts.</li>
+ * </ul>
+ * Transactions of a customer are spread over the time from its creation until {@link DatasetOptions#getUntil} and
+ * their ids increase with time.
+ */
+final class CustomerHistoryGenerator {
+
+    static final int IN = 0;
+    static final int OUT = 1;
+    static final int REFUND = 2;
+    static final int CREATED_BY_SYSTEM = 0;
+    static final int CREATED_BY_CUSTOMER = 1;
+
+    private static final String[] NAMES = {
+            "Aysel", "Elvin", "Leyla", "Rashad", "Nigar", "Farid", "Gunay", "Orkhan", "Sevinj", "Tural", "Aynur",
+            "Kamran", "Narmin", "Vugar", "Lala", "Elnur", "Aygun", "Samir", "Konul", "Ramin"};
+    private static final String[] SURNAMES = {
+            "Aliyev", "Mammadov", "Hasanov", "Huseynov", "Guliyev", "Ismayilov", "Abbasov", "Jafarov", "Rzayev",
+            "Babayev", "Karimov", "Suleymanov", "Najafov", "Ahmadov", "Mustafayev"};
+    private static final long[] TOP_UP_CENTS = {100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+    private static final LocalDate OLDEST_BIRTHDATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTHDATE_RANGE_DAYS = 55 * 365;
+    private static final long OTP_TTL_SECONDS = 5 * 60;
+    private static final int OTP_MAX_ATTEMPTS = 3;
+
+    private static final double PURCHASE_SHARE = 0.6;
+    private static final double TOP_UP_SHARE = 0.3;
+    private static final double SYSTEM_TOP_UP_SHARE = 0.05;
+    private static final double BLOCKED_OTP_SHARE = 0.02;
+    private static final double FAILED_OTP_SHARE = 0.1;
+
+    private final DatasetOptions options;
+    private final DatasetPlan plan;
+    private final LocalDateTime from;
+    private final long spanSeconds;
+
+    CustomerHistoryGenerator(DatasetOptions options, DatasetPlan plan) {
+        this.options = options;
+        this.plan = plan;
+        this.from = options.getUntil().minusDays(options.getDays());
+        this.spanSeconds = ChronoUnit.SECONDS.between(from, options.getUntil());
+    }
+
+    /**
+     * Writes customer {@code index}, whose id is {@code index + 1}.
+     */
+    void generate(long index, long firstTransactionId, long firstOtpId, RowSink sink) throws SQLException {
+        SplittableRandom random = plan.random(index, DatasetPlan.HISTORY_STREAM);
+        long customerId = index + 1;
+        String gsmNumber = GsmNumbers.of(index, options.getSeed());
+        String name = NAMES[random.nextInt(NAMES.length)];
+        String surname = SURNAMES[random.nextInt(SURNAMES.length)];
+        String birthdate = OLDEST_BIRTHDATE.plusDays(random.nextInt(BIRTHDATE_RANGE_DAYS)).toString();
+        // Customers join during the first 90% of the period, so everyone has some time to transact.
+        long joinedAfter = random.nextLong(Math.max(1, spanSeconds * 9 / 10));
+        LocalDateTime createdAt = from.plusSeconds(joinedAfter);
+        long activeSeconds = spanSeconds - joinedAfter;
+
+        History history = new History(plan.transactionCount(index));
+        long step = activeSeconds / (history.size + 1);
+        long balance = 0;
+        int lastPurchase = -1;
+        long lastPurchaseLeft = 0;
+        for (int i = 0; i < history.size; i++) {
+            long at = (i + 1) * step - (step > 0 ? random.nextLong(step) : 0);
+            double kind = random.nextDouble();
+            long purchase = purchaseCents(random);
+
+            if (kind >= PURCHASE_SHARE + TOP_UP_SHARE && lastPurchaseLeft > 0) {
+                long refund = random.nextBoolean() ? lastPurchaseLeft : 1 + random.nextLong(lastPurchaseLeft);
+                history.set(i, REFUND, CREATED_BY_CUSTOMER, refund, balance, balance + refund,
+                        firstTransactionId + lastPurchase, createdAt.plusSeconds(at));
+                balance += refund;
+                lastPurchaseLeft -= refund;
+            } else if (kind < PURCHASE_SHARE && purchase <= balance) {
+                history.set(i, OUT, CREATED_BY_CUSTOMER, purchase, balance, balance - purchase, null,
+                        createdAt.plusSeconds(at));
+                balance -= purchase;
+                lastPurchase = i;
+                lastPurchaseLeft = purchase;
+            } else {
+                long topUp = TOP_UP_CENTS[random.nextInt(TOP_UP_CENTS.length)];
+                int createdBy = random.nextDouble() < SYSTEM_TOP_UP_SHARE ? CREATED_BY_SYSTEM : CREATED_BY_CUSTOMER;
+                history.set(i, IN, createdBy, topUp, balance, balance + topUp, null, createdAt.plusSeconds(at));
+                balance += topUp;
+            }
+        }
+
+        sink.customer(customerId, name, surname, birthdate, gsmNumber, balance, createdAt);
+        for (int i = 0; i < history.size; i++) {
+            sink.transaction(firstTransactionId + i, customerId, history.parentIds[i], history.types[i],
+                    history.amounts[i], history.createdBy[i], history.before[i], history.after[i],
+                    history.operatedAt[i]);
+        }
+
+        int otps = plan.otpCount(index);
+        for (int i = 0; i < otps; i++) {
+            LocalDateTime otpCreatedAt = createdAt.plusSeconds(random.nextLong(Math.max(1, activeSeconds)));
+            boolean blocked = random.nextDouble() < BLOCKED_OTP_SHARE;
+            int attack = blocked ? OTP_MAX_ATTEMPTS : random.nextDouble() < FAILED_OTP_SHARE ? 1 : 0;
+            sink.otp(firstOtpId + i, gsmNumber, 100_000 + random.nextInt(900_000), otpCreatedAt,
+                    otpCreatedAt.plusSeconds(OTP_TTL_SECONDS), blocked, attack);
+        }
+    }
+
+    /**
+     * Most purchases are a few manat with a long tail, between 0.10 and 500.00.
+     */
+    private static long purchaseCents(SplittableRandom random) {
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+                * Math.cos(2 * Math.PI * random.nextDouble());
+        long cents = Math.round(Math.exp(5.5 + 1.1 * gaussian));
+        return Math.max(10, Math.min(cents, 50_000));
+    }
+
+    private static final class History {
+        private final int size;
+        private final int[] types;
+        private final int[] createdBy;
+        private final long[] amounts;
+        private final long[] before;
+        private final long[] after;
+        private final Long[] parentIds;
+        private final LocalDateTime[] operatedAt;
+
+        History(int size) {
+            this.size = size;
+            types = new int[size];
+            createdBy = new int[size];
+            amounts = new long[size];
+            before = new long[size];
+            after = new long[size];
+            parentIds = new Long[size];
+            operatedAt = new LocalDateTime[size];
+        }
+
+        void set(int i, int type, int creator, long amount, long beforeCents, long afterCents, Long parentId,
+                 LocalDateTime at) {
+            types[i] = type;
+            createdBy[i] = creator;
+            amounts[i] = amount;
+            before[i] = beforeCents;
+            after[i] = afterCents;
+            parentIds[i] = parentId;
+            operatedAt[i] = at;
+        }
+    }
+}
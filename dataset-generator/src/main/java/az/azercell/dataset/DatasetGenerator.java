@@ -0,0 +1,143 @@
+package az.azercell.dataset;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills {@code customers}, {@code otps} and {@code transactions} with a synthetic production-sized history, see
+ * {@link CustomerHistoryGenerator} for what the rows look like. The output depends only on the options: the same seed
+ * writes the same rows, ids included, whatever the number of writer threads.
+ * <p>
+ * The schema must exist (run the customer and top-up services once for Liquibase) and the tables must be empty, or
+ * be emptied with {@code --truncate=true}. Writers take chunks of customers from a shared counter, each on its own
+ * connection with batched multi-row inserts, and the tables are analyzed at the end so the optimizer sees the new
+ * statistics:
+ * <pre>
+ * mvn -f dataset-generator package
+ * java -jar dataset-generator/target/dataset-generator-0.0.1-SNAPSHOT.jar \
+ *     --url=jdbc:mysql://localhost:3306/mysqldbdev --user=user --password=... \
+ *     --customers=1000000 --transactions=10000000 --threads=8 --seed=42 --truncate=true
+ * </pre>
+ * See {@link DatasetOptions} for all options.
+ */
+public class DatasetGenerator {
+
+    private static final String BATCH_REWRITE = "rewriteBatchedStatements=true";
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+    private static final String[] TABLES = {"transactions", "otps", "customers"};
+
+    public static void main(String[] args) throws Exception {
+        DatasetOptions options = DatasetOptions.parse(args);
+        String url = withBatchRewrite(options.getUrl());
+
+        long planned = System.nanoTime();
+        DatasetPlan plan = new DatasetPlan(options);
+        System.out.printf("Planned %d customers, %d transactions and %d OTPs in %d ms%n", options.getCustomers(),
+                plan.getTotalTransactions(), plan.getTotalOtps(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - planned));
+
+        try (Connection connection = DriverManager.getConnection(url, options.getUser(), options.getPassword())) {
+            prepareTables(connection, options.isTruncate());
+        }
+
+        long started = System.nanoTime();
+        LongAdder written = new LongAdder();
+        write(options, url, plan, written);
+        double seconds = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("Wrote %d rows in %.1f s, %.0f rows/s%n", written.sum(), seconds, written.sum() / seconds);
+
+        try (Connection connection = DriverManager.getConnection(url, options.getUser(), options.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE customers, otps, transactions");
+        }
+    }
+
+    private static void write(DatasetOptions options, String url, DatasetPlan plan, LongAdder written)
+            throws InterruptedException, ExecutionException {
+        CustomerHistoryGenerator generator = new CustomerHistoryGenerator(options, plan);
+        AtomicInteger nextChunk = new AtomicInteger();
+        long totalRows = options.getCustomers() + plan.getTotalTransactions() + plan.getTotalOtps();
+
+        ExecutorService writers = Executors.newFixedThreadPool(options.getThreads());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < options.getThreads(); i++) {
+                futures.add(writers.submit(() -> {
+                    try (JdbcRowSink sink = new JdbcRowSink(
+                            DriverManager.getConnection(url, options.getUser(), options.getPassword()),
+                            options.getBatchSize(), written)) {
+                        for (int chunk = nextChunk.getAndIncrement(); chunk < plan.getChunks();
+                             chunk = nextChunk.getAndIncrement()) {
+                            writeChunk(generator, plan, chunk, sink);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                while (true) {
+                    try {
+                        future.get(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        long rows = written.sum();
+                        System.out.printf("%d of %d rows (%.1f%%)%n", rows, totalRows, 100.0 * rows / totalRows);
+                    }
+                }
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    private static void writeChunk(CustomerHistoryGenerator generator, DatasetPlan plan, int chunk, JdbcRowSink sink)
+            throws SQLException {
+        long transactionId = plan.firstTransactionId(chunk);
+        long otpId = plan.firstOtpId(chunk);
+        for (long index = plan.firstCustomer(chunk); index < plan.endCustomer(chunk); index++) {
+            generator.generate(index, transactionId, otpId, sink);
+            transactionId += plan.transactionCount(index);
+            otpId += plan.otpCount(index);
+        }
+    }
+
+    private static void prepareTables(Connection connection, boolean truncate) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (truncate) {
+                statement.execute("SET foreign_key_checks = 0");
+                for (String table : TABLES) {
+                    statement.execute("TRUNCATE TABLE " + table);
+                }
+                statement.execute("SET foreign_key_checks = 1");
+                return;
+            }
+            for (String table : TABLES) {
+                try (ResultSet rows = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                    if (rows.next()) {
+                        throw new IllegalStateException(table + " is not empty; pass --truncate=true to empty it");
+                    }
+                }
+            }
+        }
+    }
+
+    static String withBatchRewrite(String url) {
+        if (url.contains("rewriteBatchedStatements")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + BATCH_REWRITE;
+    }
+}
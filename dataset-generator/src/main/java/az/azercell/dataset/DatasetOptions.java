@@ -0,0 +1,173 @@
+package az.azercell.dataset;
+
+import java.time.LocalDateTime;
+
+/**
+ * Command line of {@link DatasetGenerator}, given as {@code --name=value}. The defaults write a million customers
+ * with ten million transactions into the dev database.
+ */
+public class DatasetOptions {
+
+    private static final String PREFIX = "--";
+
+    private String url = "jdbc:mysql://localhost:3306/mysqldbdev";
+    private String user = "user";
+    private String password = "";
+    private long customers = 1_000_000;
+    private long transactions = 10_000_000;
+    private double otpsPerCustomer = 3;
+    private double skew = 1.2;
+    private int maxTransactionsPerCustomer = 50_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1_000;
+    private int chunkSize = 1_000;
+    private long seed = 42;
+    private LocalDateTime until = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private int days = 365;
+    private boolean truncate;
+
+    public static DatasetOptions parse(String... args) {
+        DatasetOptions options = new DatasetOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith(PREFIX) || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.set(arg.substring(PREFIX.length(), separator), arg.substring(separator + 1));
+        }
+        if (options.customers <= 0 || options.customers > GsmNumbers.CAPACITY) {
+            throw new IllegalArgumentException("customers must be between 1 and " + GsmNumbers.CAPACITY);
+        }
+        if (options.transactions < 0 || options.otpsPerCustomer < 0 || options.skew <= 0 || options.days <= 0
+                || options.maxTransactionsPerCustomer <= 0 || options.threads <= 0 || options.batchSize <= 0
+                || options.chunkSize <= 0) {
+            throw new IllegalArgumentException("Counts, sizes, skew and days must be positive");
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "url":
+                url = value;
+                break;
+            case "user":
+                user = value;
+                break;
+            case "password":
+                password = value;
+                break;
+            case "customers":
+                customers = Long.parseLong(value);
+                break;
+            case "transactions":
+                transactions = Long.parseLong(value);
+                break;
+            case "otps-per-customer":
+                otpsPerCustomer = Double.parseDouble(value);
+                break;
+            case "skew":
+                skew = Double.parseDouble(value);
+                break;
+            case "max-transactions-per-customer":
+                maxTransactionsPerCustomer = Integer.parseInt(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "batch-size":
+                batchSize = Integer.parseInt(value);
+                break;
+            case "chunk-size":
+                chunkSize = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "until":
+                until = LocalDateTime.parse(value);
+                break;
+            case "days":
+                days = Integer.parseInt(value);
+                break;
+            case "truncate":
+                truncate = Boolean.parseBoolean(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public long getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Target total; the plan rounds per customer, so the actual total is close to but rarely exactly this.
+     */
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public double getOtpsPerCustomer() {
+        return otpsPerCustomer;
+    }
+
+    /**
+     * Pareto shape of the activity of customers: lower is more skewed, about 1.16 gives the 80/20 rule.
+     */
+    public double getSkew() {
+        return skew;
+    }
+
+    public int getMaxTransactionsPerCustomer() {
+        return maxTransactionsPerCustomer;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Customers per unit of work. Writers take chunks from a shared queue, so a few very active customers do not
+     * leave the other writers idle.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * End of the generated history, fixed by default so that a seed always gives the same rows.
+     */
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public boolean isTruncate() {
+        return truncate;
+    }
+}
@@ -0,0 +1,106 @@
+package az.azercell.dataset;
+
+import java.util.SplittableRandom;
+
+/**
+ * How many transactions and OTPs each customer gets, and so the ids of its rows. Everything about customer
+ * {@code index} comes from its own random streams, seeded with the run seed and the index, so a chunk of customers can
+ * be generated by any writer in any order and still give the same rows.
+ * <p>
+ * Transactions are shared out in proportion to a Pareto weight per customer, capped at
+ * {@link DatasetOptions#getMaxTransactionsPerCustomer}. Ids are assigned customer by customer, so the rows of a chunk
+ * are contiguous and the first id of every chunk is kept here.
+ */
+final class DatasetPlan {
+
+    static final int WEIGHT_STREAM = 0;
+    static final int OTP_STREAM = 1;
+    static final int HISTORY_STREAM = 2;
+    private static final int STREAMS = 3;
+
+    private final DatasetOptions options;
+    private final double weightSum;
+    private final long[] firstTransactionIds;
+    private final long[] firstOtpIds;
+    private final long totalTransactions;
+    private final long totalOtps;
+
+    DatasetPlan(DatasetOptions options) {
+        this.options = options;
+
+        double sum = 0;
+        for (long index = 0; index < options.getCustomers(); index++) {
+            sum += weight(index);
+        }
+        this.weightSum = sum;
+
+        int chunks = (int) ((options.getCustomers() + options.getChunkSize() - 1) / options.getChunkSize());
+        firstTransactionIds = new long[chunks];
+        firstOtpIds = new long[chunks];
+        long nextTransactionId = 1;
+        long nextOtpId = 1;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            firstTransactionIds[chunk] = nextTransactionId;
+            firstOtpIds[chunk] = nextOtpId;
+            for (long index = firstCustomer(chunk); index < endCustomer(chunk); index++) {
+                nextTransactionId += transactionCount(index);
+                nextOtpId += otpCount(index);
+            }
+        }
+        totalTransactions = nextTransactionId - 1;
+        totalOtps = nextOtpId - 1;
+    }
+
+    SplittableRandom random(long index, int stream) {
+        return new SplittableRandom(options.getSeed() * 0x9E3779B97F4A7C15L ^ (index * STREAMS + stream));
+    }
+
+    private double weight(long index) {
+        return Math.pow(1 - random(index, WEIGHT_STREAM).nextDouble(), -1 / options.getSkew());
+    }
+
+    int transactionCount(long index) {
+        long count = Math.round(options.getTransactions() * weight(index) / weightSum);
+        return (int) Math.min(count, options.getMaxTransactionsPerCustomer());
+    }
+
+    /**
+     * Geometric, so most customers have a few OTPs and some have many.
+     */
+    int otpCount(long index) {
+        double mean = options.getOtpsPerCustomer();
+        if (mean == 0) {
+            return 0;
+        }
+        double u = random(index, OTP_STREAM).nextDouble();
+        return (int) Math.floor(Math.log(1 - u) / Math.log(mean / (mean + 1)));
+    }
+
+    int getChunks() {
+        return firstTransactionIds.length;
+    }
+
+    long firstCustomer(int chunk) {
+        return (long) chunk * options.getChunkSize();
+    }
+
+    long endCustomer(int chunk) {
+        return Math.min(firstCustomer(chunk) + options.getChunkSize(), options.getCustomers());
+    }
+
+    long firstTransactionId(int chunk) {
+        return firstTransactionIds[chunk];
+    }
+
+    long firstOtpId(int chunk) {
+        return firstOtpIds[chunk];
+    }
+
+    long getTotalTransactions() {
+        return totalTransactions;
+    }
+
+    long getTotalOtps() {
+        return totalOtps;
+    }
+}
@@ -0,0 +1,31 @@
+package az.azercell.dataset;
+
+/**
+ * Maps customer indexes one-to-one onto valid Azercell numbers, {@code 994} followed by the operator code 10, 50 or 51
+ * and a seven-digit subscriber number that does not start with 0 or 1. Subscriber numbers are scrambled by an
+ * invertible affine map, so consecutive customers do not get consecutive numbers and no two customers share one.
+ */
+final class GsmNumbers {
+
+    private static final String COUNTRY_CODE = "994";
+    private static final String[] OPERATOR_CODES = {"10", "50", "51"};
+    private static final long FIRST_SUBSCRIBER = 2_000_000;
+    private static final long SUBSCRIBERS = 8_000_000;
+    // Coprime with SUBSCRIBERS (2^9 * 5^6), so multiplying by it permutes the subscriber numbers.
+    private static final long MULTIPLIER = 7_654_321;
+
+    static final long CAPACITY = OPERATOR_CODES.length * SUBSCRIBERS;
+
+    private GsmNumbers() {
+    }
+
+    static String of(long index, long seed) {
+        if (index < 0 || index >= CAPACITY) {
+            throw new IllegalArgumentException("Only " + CAPACITY + " GSM numbers exist, asked for index " + index);
+        }
+        String operatorCode = OPERATOR_CODES[(int) (index % OPERATOR_CODES.length)];
+        long offset = Math.floorMod(seed, SUBSCRIBERS);
+        long subscriber = FIRST_SUBSCRIBER + (index / OPERATOR_CODES.length * MULTIPLIER + offset) % SUBSCRIBERS;
+        return COUNTRY_CODE + operatorCode + subscriber;
+    }
+}
@@ -0,0 +1,132 @@
+package az.azercell.dataset;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches rows into one prepared insert per table and commits every {@code batchSize} rows. With
+ * {@code rewriteBatchedStatements=true} on the URL, which {@link DatasetGenerator} adds, the MySQL driver sends each
+ * batch as multi-row {@code INSERT ... VALUES (...), (...)} statements instead of one round trip per row.
+ * <p>
+ * Foreign key and unique checks are off for the session: ids are assigned up front and the generator only writes
+ * rows that satisfy them, so InnoDB does not have to look them up for every row.
+ */
+class JdbcRowSink implements RowSink, AutoCloseable {
+
+    private static final String INSERT_CUSTOMER = "INSERT INTO customers "
+            + "(id, name, surname, birthdate, gsm_number, balance, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions "
+            + "(id, customer_id, parent_id, transaction_type_id, amount, created_by_id, before_amount, after_amount, "
+            + "operated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_OTP = "INSERT INTO otps "
+            + "(id, gsm_number, otp_code, expired_at, is_blocked, attack, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Connection connection;
+    private final PreparedStatement customers;
+    private final PreparedStatement transactions;
+    private final PreparedStatement otps;
+    private final int batchSize;
+    private final LongAdder written;
+    private int pending;
+
+    JdbcRowSink(Connection connection, int batchSize, LongAdder written) throws SQLException {
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.written = written;
+        try (Statement session = connection.createStatement()) {
+            session.execute("SET foreign_key_checks = 0, unique_checks = 0");
+        }
+        connection.setAutoCommit(false);
+        customers = connection.prepareStatement(INSERT_CUSTOMER);
+        transactions = connection.prepareStatement(INSERT_TRANSACTION);
+        otps = connection.prepareStatement(INSERT_OTP);
+    }
+
+    @Override
+    public void customer(long id, String name, String surname, String birthdate, String gsmNumber, long balanceCents,
+                         LocalDateTime createdAt) throws SQLException {
+        customers.setLong(1, id);
+        customers.setString(2, name);
+        customers.setString(3, surname);
+        customers.setString(4, birthdate);
+        customers.setString(5, gsmNumber);
+        customers.setBigDecimal(6, BigDecimal.valueOf(balanceCents, 2));
+        customers.setTimestamp(7, Timestamp.valueOf(createdAt));
+        customers.setTimestamp(8, Timestamp.valueOf(createdAt));
+        add(customers);
+    }
+
+    @Override
+    public void transaction(long id, long customerId, Long parentId, int transactionTypeId, long amountCents,
+                            int createdById, long beforeCents, long afterCents, LocalDateTime operatedAt)
+            throws SQLException {
+        transactions.setLong(1, id);
+        transactions.setLong(2, customerId);
+        if (parentId == null) {
+            transactions.setNull(3, Types.BIGINT);
+        } else {
+            transactions.setLong(3, parentId);
+        }
+        transactions.setInt(4, transactionTypeId);
+        transactions.setBigDecimal(5, BigDecimal.valueOf(amountCents, 2));
+        transactions.setInt(6, createdById);
+        transactions.setBigDecimal(7, BigDecimal.valueOf(beforeCents, 2));
+        transactions.setBigDecimal(8, BigDecimal.valueOf(afterCents, 2));
+        transactions.setTimestamp(9, Timestamp.valueOf(operatedAt));
+        add(transactions);
+    }
+
+    @Override
+    public void otp(long id, String gsmNumber, int otpCode, LocalDateTime createdAt, LocalDateTime expiredAt,
+                    boolean blocked, int attack) throws SQLException {
+        otps.setLong(1, id);
+        otps.setString(2, gsmNumber);
+        otps.setInt(3, otpCode);
+        otps.setTimestamp(4, Timestamp.valueOf(expiredAt));
+        otps.setBoolean(5, blocked);
+        otps.setInt(6, attack);
+        otps.setTimestamp(7, Timestamp.valueOf(createdAt));
+        otps.setTimestamp(8, Timestamp.valueOf(createdAt));
+        add(otps);
+    }
+
+    private void add(PreparedStatement statement) throws SQLException {
+        statement.addBatch();
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    void flush() throws SQLException {
+        if (pending == 0) {
+            return;
+        }
+        customers.executeBatch();
+        otps.executeBatch();
+        transactions.executeBatch();
+        connection.commit();
+        written.add(pending);
+        pending = 0;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            customers.close();
+            transactions.close();
+            otps.close();
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package az.azercell.dataset;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Receives the rows of one customer's history from {@link CustomerHistoryGenerator}. Amounts are in cents (hundredths
+ * of a manat) and ids are final, so a sink only has to write them.
+ */
+public interface RowSink {
+
+    void customer(long id, String name, String surname, String birthdate, String gsmNumber, long balanceCents,
+                  LocalDateTime createdAt) throws SQLException;
+
+    void transaction(long id, long customerId, Long parentId, int transactionTypeId, long amountCents,
+                     int createdById, long beforeCents, long afterCents, LocalDateTime operatedAt) throws SQLException;
+
+    void otp(long id, String gsmNumber, int otpCode, LocalDateTime createdAt, LocalDateTime expiredAt,
+             boolean blocked, int attack) throws SQLException;
+}
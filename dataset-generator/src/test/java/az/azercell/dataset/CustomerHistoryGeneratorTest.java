@@ -0,0 +1,178 @@
+package az.azercell.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerHistoryGeneratorTest {
+
+    @Test
+    public void testGsmNumbersAreValidAndUnique() {
+        Set<String> seen = new HashSet<>();
+        for (long index = 0; index < 300_000; index++) {
+            String gsmNumber = GsmNumbers.of(index, 42);
+            assertTrue(gsmNumber.matches("994(10|50|51)[2-9]\\d{6}"), gsmNumber);
+            assertTrue(seen.add(gsmNumber), gsmNumber);
+        }
+        assertThrows(IllegalArgumentException.class, () -> GsmNumbers.of(GsmNumbers.CAPACITY, 42));
+    }
+
+    @Test
+    public void testSameSeedGivesSameRowsWhateverTheChunking() throws Exception {
+        List<String> bigChunks = generate(DatasetOptions.parse("--customers=500", "--transactions=20000",
+                "--chunk-size=500"));
+        List<String> smallChunks = generate(DatasetOptions.parse("--customers=500", "--transactions=20000",
+                "--chunk-size=7"));
+        List<String> otherSeed = generate(DatasetOptions.parse("--customers=500", "--transactions=20000",
+                "--seed=7"));
+
+        assertEquals(bigChunks, smallChunks);
+        assertNotEquals(bigChunks, otherSeed);
+    }
+
+    @Test
+    public void testPlanMatchesTargetAndIdsAreContiguous() throws Exception {
+        DatasetOptions options = DatasetOptions.parse("--customers=2000", "--transactions=50000", "--chunk-size=64");
+        DatasetPlan plan = new DatasetPlan(options);
+        RecordingSink sink = new RecordingSink();
+        generate(options, plan, sink);
+
+        assertEquals(50_000, plan.getTotalTransactions(), 2_000);
+        assertEquals(plan.getTotalTransactions(), sink.transactions.size());
+        assertEquals(plan.getTotalOtps(), sink.otpIds.size());
+        for (int i = 0; i < sink.transactions.size(); i++) {
+            assertEquals(i + 1, sink.transactions.get(i).id);
+        }
+        for (int i = 0; i < sink.otpIds.size(); i++) {
+            assertEquals(i + 1, (long) sink.otpIds.get(i));
+        }
+
+        int[] perCustomer = new int[2000];
+        sink.transactions.forEach(transaction -> perCustomer[(int) transaction.customerId - 1]++);
+        int busiest = 0;
+        for (int count : perCustomer) {
+            busiest = Math.max(busiest, count);
+        }
+        assertTrue(busiest > 10 * 25, "transactions per customer should be skewed, busiest had " + busiest);
+    }
+
+    @Test
+    public void testHistoriesAreConsistent() throws Exception {
+        DatasetOptions options = DatasetOptions.parse("--customers=1000", "--transactions=40000");
+        RecordingSink sink = new RecordingSink();
+        generate(options, new DatasetPlan(options), sink);
+
+        Map<Long, Row> byId = new HashMap<>();
+        Map<Long, Long> refunded = new HashMap<>();
+        Map<Long, Row> previous = new HashMap<>();
+        for (Row transaction : sink.transactions) {
+            byId.put(transaction.id, transaction);
+            assertTrue(transaction.amount > 0);
+            assertTrue(transaction.after >= 0);
+            Row before = previous.put(transaction.customerId, transaction);
+            assertEquals(before == null ? 0 : before.after, transaction.before);
+            if (before != null) {
+                assertFalse(transaction.operatedAt.isBefore(before.operatedAt));
+            }
+
+            switch (transaction.type) {
+                case CustomerHistoryGenerator.OUT:
+                    assertEquals(transaction.before - transaction.amount, transaction.after);
+                    break;
+                case CustomerHistoryGenerator.REFUND:
+                    Row purchase = byId.get(transaction.parentId);
+                    assertNotNull(purchase);
+                    assertEquals(CustomerHistoryGenerator.OUT, purchase.type);
+                    assertEquals(transaction.customerId, purchase.customerId);
+                    long total = refunded.merge(purchase.id, transaction.amount, Long::sum);
+                    assertTrue(total <= purchase.amount);
+                    assertEquals(transaction.before + transaction.amount, transaction.after);
+                    break;
+                default:
+                    assertNull(transaction.parentId);
+                    assertEquals(transaction.before + transaction.amount, transaction.after);
+            }
+        }
+        sink.balances.forEach((customerId, balance) ->
+                assertEquals(previous.containsKey(customerId) ? previous.get(customerId).after : 0, balance));
+    }
+
+    private static List<String> generate(DatasetOptions options) throws Exception {
+        RecordingSink sink = new RecordingSink();
+        generate(options, new DatasetPlan(options), sink);
+        return sink.lines;
+    }
+
+    private static void generate(DatasetOptions options, DatasetPlan plan, RowSink sink) throws Exception {
+        CustomerHistoryGenerator generator = new CustomerHistoryGenerator(options, plan);
+        for (int chunk = 0; chunk < plan.getChunks(); chunk++) {
+            long transactionId = plan.firstTransactionId(chunk);
+            long otpId = plan.firstOtpId(chunk);
+            for (long index = plan.firstCustomer(chunk); index < plan.endCustomer(chunk); index++) {
+                generator.generate(index, transactionId, otpId, sink);
+                transactionId += plan.transactionCount(index);
+                otpId += plan.otpCount(index);
+            }
+        }
+    }
+
+    private static final class Row {
+        long id;
+        long customerId;
+        Long parentId;
+        int type;
+        long amount;
+        long before;
+        long after;
+        LocalDateTime operatedAt;
+    }
+
+    private static final class RecordingSink implements RowSink {
+        final List<String> lines = new ArrayList<>();
+        final List<Row> transactions = new ArrayList<>();
+        final List<Long> otpIds = new ArrayList<>();
+        final Map<Long, Long> balances = new HashMap<>();
+
+        @Override
+        public void customer(long id, String name, String surname, String birthdate, String gsmNumber,
+                             long balanceCents, LocalDateTime createdAt) {
+            lines.add(String.join(",", "c", String.valueOf(id), name, surname, birthdate, gsmNumber,
+                    String.valueOf(balanceCents), createdAt.toString()));
+            balances.put(id, balanceCents);
+        }
+
+        @Override
+        public void transaction(long id, long customerId, Long parentId, int transactionTypeId, long amountCents,
+                                int createdById, long beforeCents, long afterCents, LocalDateTime operatedAt) {
+            lines.add(String.join(",", "t", String.valueOf(id), String.valueOf(customerId), String.valueOf(parentId),
+                    String.valueOf(transactionTypeId), String.valueOf(amountCents), String.valueOf(createdById),
+                    String.valueOf(beforeCents), String.valueOf(afterCents), operatedAt.toString()));
+            Row row = new Row();
+            row.id = id;
+            row.customerId = customerId;
+            row.parentId = parentId;
+            row.type = transactionTypeId;
+            row.amount = amountCents;
+            row.before = beforeCents;
+            row.after = afterCents;
+            row.operatedAt = operatedAt;
+            transactions.add(row);
+        }
+
+        @Override
+        public void otp(long id, String gsmNumber, int otpCode, LocalDateTime createdAt, LocalDateTime expiredAt,
+                        boolean blocked, int attack) {
+            lines.add(String.join(",", "o", String.valueOf(id), gsmNumber, String.valueOf(otpCode),
+                    createdAt.toString(), expiredAt.toString(), String.valueOf(blocked), String.valueOf(attack)));
+            otpIds.add(id);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package az.azercell.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the customer service: the OTP login of {@code /api/auth} and the endpoints of
+ * {@code /api/customers} that the transaction services call through their customer client. A customer is created
+ * with {@code initialBalance} the first time its GSM number asks for an OTP.
+ * <p>
+ * Answers follow the customer service: 404 for an unknown customer, 422 when a balance would go negative and a JWT
+ * signed with the shared secret, carrying the customer id, on a successful login.
+ */
+class CustomerServiceStub implements AutoCloseable {
+
+    // Same key as JwtService of the customer service, which the transaction services verify against.
+    private static final Key SIGNING_KEY =
+            Keys.hmacShaKeyFor(Decoders.BASE64.decode("2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58"));
+    private static final long TOKEN_TTL_MILLIS = 3_600_000;
+    private static final String CUSTOMERS_PATH = "/api/customers/";
+    private static final String BALANCE_ADJUSTMENTS = "/balance-adjustments";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BigDecimal initialBalance;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ConcurrentMap<String, StubCustomer> customersByGsmNumber = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, StubCustomer> customersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> otps = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    CustomerServiceStub(BigDecimal initialBalance) throws IOException {
+        this.initialBalance = initialBalance;
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/api/auth/request-otp", exchange -> handle(exchange, this::requestOtp));
+        server.createContext("/api/auth/verify-otp", exchange -> handle(exchange, this::verifyOtp));
+        server.createContext(CUSTOMERS_PATH, exchange -> handle(exchange, this::customers));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getAuthUrl() {
+        return getBaseUrl() + "/api/auth";
+    }
+
+    String getCustomersUrl() {
+        return getBaseUrl() + "/api/customers";
+    }
+
+    private String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private Response requestOtp(HttpExchange exchange) {
+        String gsmNumber = query(exchange).get("gsmNumber");
+        if (gsmNumber == null) {
+            return Response.text(400, "gsmNumber is required.");
+        }
+        customersByGsmNumber.computeIfAbsent(gsmNumber, key -> {
+            StubCustomer customer = new StubCustomer(nextId.getAndIncrement(), key, initialBalance);
+            customersById.put(customer.id, customer);
+            return customer;
+        });
+        int otpCode = ThreadLocalRandom.current().nextInt(100_000, 1_000_000);
+        otps.put(gsmNumber, otpCode);
+        return Response.text(200, String.valueOf(otpCode));
+    }
+
+    private Response verifyOtp(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String gsmNumber = query.get("gsmNumber");
+        String otpCode = query.get("otpCode");
+        if (gsmNumber == null || otpCode == null || !otps.remove(gsmNumber, Integer.valueOf(otpCode))) {
+            return Response.text(401, "Invalid OTP code.");
+        }
+        StubCustomer customer = customersByGsmNumber.get(gsmNumber);
+        Date now = new Date();
+        String token = Jwts.builder()
+                .setSubject(gsmNumber)
+                .claim("customerId", customer.id)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + TOKEN_TTL_MILLIS))
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
+                .compact();
+        return Response.text(200, token);
+    }
+
+    private Response customers(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (method.equals("GET")) {
+            StubCustomer customer = customersByGsmNumber.get(path.substring(CUSTOMERS_PATH.length()));
+            return customer == null ? Response.text(404, "Customer not found.") : Response.json(200, customer.toJson());
+        }
+        if (method.equals("PUT")) {
+            return Response.text(200, "");
+        }
+        if (method.equals("POST") && path.endsWith(BALANCE_ADJUSTMENTS)) {
+            long id = Long.parseLong(
+                    path.substring(CUSTOMERS_PATH.length(), path.length() - BALANCE_ADJUSTMENTS.length()));
+            StubCustomer customer = customersById.get(id);
+            if (customer == null) {
+                return Response.text(404, "Customer not found with id: " + id);
+            }
+            JsonNode adjustment = objectMapper.readTree(exchange.getRequestBody());
+            Map<String, Object> result = customer.adjustBalance(adjustment.path("delta").decimalValue());
+            return result == null
+                    ? Response.text(422, "Insufficient balance for customer with id: " + id)
+                    : Response.json(200, result);
+        }
+        return Response.text(404, "");
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            Response response;
+            try {
+                response = handler.handle(exchange);
+            } catch (RuntimeException e) {
+                response = Response.text(500, String.valueOf(e.getMessage()));
+            }
+            byte[] body = response.body instanceof String
+                    ? ((String) response.body).getBytes(StandardCharsets.UTF_8)
+                    : objectMapper.writeValueAsBytes(response.body);
+            exchange.getResponseHeaders().set("Content-Type", response.body instanceof String
+                    ? "text/plain;charset=UTF-8" : "application/json");
+            exchange.sendResponseHeaders(response.status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static final class Response {
+        private final int status;
+        private final Object body;
+
+        private Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response text(int status, String body) {
+            return new Response(status, body);
+        }
+
+        static Response json(int status, Map<String, Object> body) {
+            return new Response(status, body);
+        }
+    }
+
+    private static final class StubCustomer {
+        private final long id;
+        private final String gsmNumber;
+        // Balance changes leave the profile untouched, as in the customer service, so cached lookups stay valid.
+        private final String updatedAt = LocalDateTime.now().toString();
+        private BigDecimal balance;
+
+        StubCustomer(long id, String gsmNumber, BigDecimal balance) {
+            this.id = id;
+            this.gsmNumber = gsmNumber;
+            this.balance = balance;
+        }
+
+        /**
+         * @return the adjustment as the customer service returns it, or {@code null} if the balance would go negative
+         */
+        synchronized Map<String, Object> adjustBalance(BigDecimal delta) {
+            BigDecimal after = balance.add(delta);
+            if (after.signum() < 0) {
+                return null;
+            }
+            Map<String, Object> adjustment = new LinkedHashMap<>();
+            adjustment.put("customerId", id);
+            adjustment.put("delta", delta);
+            adjustment.put("balanceBefore", balance);
+            adjustment.put("balanceAfter", after);
+            adjustment.put("customerUpdatedAt", updatedAt);
+            balance = after;
+            return adjustment;
+        }
+
+        synchronized Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", id);
+            json.put("gsmNumber", gsmNumber);
+            json.put("balance", balance);
+            json.put("createdAt", updatedAt);
+            json.put("updatedAt", updatedAt);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package az.azercell.loadtest;
+
+import az.azercell.purchase.PurchaseApplication;
+import az.azercell.refund.RefundApplication;
+import az.azercell.topup.TopUpApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts purchase, top-up and refund in this JVM on free ports, all against one in-memory H2 database, as they share
+ * the MySQL schema in production, and all calling the given customer service. They are configured by
+ * {@code load-test.yml}; see there for why their own {@code application.yml} files are not used.
+ * <p>
+ * The services compete with the load generator for CPU, so use the remote mode for numbers to plan capacity with.
+ */
+class EmbeddedServices implements AutoCloseable {
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final String purchaseUrl;
+    private final String topUpUrl;
+    private final String refundUrl;
+
+    EmbeddedServices(String customersUrl) {
+        try {
+            purchaseUrl = start(PurchaseApplication.class, "purchase", customersUrl);
+            topUpUrl = start(TopUpApplication.class, "top-up", customersUrl);
+            refundUrl = start(RefundApplication.class, "refund", customersUrl);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private String start(Class<?> application, String name, String customersUrl) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .run("--spring.config.name=load-test",
+                        "--spring.application.name=" + name,
+                        "--server.port=0",
+                        "--client.url=" + customersUrl);
+        contexts.add(context);
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    String getPurchaseUrl() {
+        return purchaseUrl;
+    }
+
+    String getTopUpUrl() {
+        return topUpUrl;
+    }
+
+    String getRefundUrl() {
+        return refundUrl;
+    }
+
+    @Override
+    public void close() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        contexts.clear();
+    }
+}
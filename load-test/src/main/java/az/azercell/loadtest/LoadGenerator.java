@@ -0,0 +1,343 @@
+package az.azercell.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives purchase, top-up and refund at a fixed rate and reports latency percentiles and failures per operation.
+ * Each simulated customer logs in once through the OTP endpoints; the run then sends a weighted mix of
+ * {@code /purchases/make-purchase}, {@code /top-ups/add-funds} and {@code /refunds/make-refund} with their tokens.
+ * <p>
+ * Arrivals are open-loop: request {@code i} is due at a fixed point of the schedule and is sent then, whether or not
+ * earlier requests have completed, and its latency is measured from that point. A server that stalls therefore shows
+ * up in the percentiles with everything that queued behind it, instead of silently slowing down the generator
+ * (coordinated omission).
+ * <p>
+ * With {@code --mode=embedded}, the default, the services run in this JVM against an in-memory database and a
+ * {@link CustomerServiceStub}. With {@code --mode=remote} the {@code --*-url} options point at running services, and
+ * the customers {@code --first-gsm-number} onwards must exist. Results go to the console and, per operation, to an
+ * HdrHistogram percentile file ({@code .hgrm}, in milliseconds) in {@code --output-dir}:
+ * <pre>
+ * mvn -f purchase install &amp;&amp; mvn -f top-up install &amp;&amp; mvn -f refund install &amp;&amp; mvn -f load-test package
+ * java -jar load-test/target/load-test-0.0.1-SNAPSHOT.jar --rate=500 --duration=2m --mix=purchase=70,refund=30
+ * java -jar load-test/target/load-test-0.0.1-SNAPSHOT.jar --mode=remote --customers=10000 --rate=1000
+ * </pre>
+ * See {@link LoadTestOptions} for all options. Tokens are valid for an hour, which bounds the length of a run.
+ */
+public class LoadGenerator {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int LOGIN_CONCURRENCY = 32;
+    private static final int LOGIN_ATTEMPTS = 3;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final HttpClient http;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final PrintStream out = System.out;
+
+    LoadGenerator(LoadTestOptions options, ExecutorService httpExecutor) {
+        this.options = options;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpExecutor)
+                .build();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats(operation));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        try {
+            LoadGenerator generator = new LoadGenerator(options, httpExecutor);
+            if (options.isEmbedded()) {
+                try (CustomerServiceStub customers = new CustomerServiceStub(
+                        BigDecimal.valueOf(options.getInitialBalance()));
+                     EmbeddedServices services = new EmbeddedServices(customers.getCustomersUrl())) {
+                    generator.run(new Targets(customers.getAuthUrl(), services.getPurchaseUrl(),
+                            services.getTopUpUrl(), services.getRefundUrl()));
+                }
+            } else {
+                generator.run(new Targets(options.getAuthUrl(), options.getPurchaseUrl(), options.getTopUpUrl(),
+                        options.getRefundUrl()));
+            }
+        } finally {
+            httpExecutor.shutdownNow();
+        }
+    }
+
+    void run(Targets targets) throws IOException, InterruptedException {
+        out.println("Load test " + options.describe());
+
+        List<String> tokens = login(targets);
+        out.printf("Logged in %d of %d customers%n", tokens.size(), options.getCustomers());
+        report(List.of(Operation.REQUEST_OTP, Operation.VERIFY_OTP));
+        if (tokens.isEmpty()) {
+            throw new IllegalStateException("No customer could log in, see the failures above.");
+        }
+
+        drive(targets, tokens);
+        report(List.of(Operation.PURCHASE, Operation.TOP_UP, Operation.REFUND));
+        writeHistograms();
+    }
+
+    /**
+     * Requests and verifies an OTP for every customer, {@value #LOGIN_CONCURRENCY} at a time, and returns the tokens
+     * of those that logged in. A 429 is retried after its {@code Retry-After}.
+     */
+    private List<String> login(Targets targets) throws InterruptedException {
+        stats.get(Operation.REQUEST_OTP).startMeasuring();
+        stats.get(Operation.VERIFY_OTP).startMeasuring();
+        List<CompletableFuture<String>> logins = new ArrayList<>();
+        Semaphore permits = new Semaphore(LOGIN_CONCURRENCY);
+        for (int i = 0; i < options.getCustomers(); i++) {
+            String gsmNumber = String.valueOf(options.getFirstGsmNumber() + i);
+            permits.acquire();
+            logins.add(login(targets, gsmNumber, 1).whenComplete((token, e) -> permits.release()));
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (CompletableFuture<String> login : logins) {
+            String token = login.exceptionally(e -> null).join();
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private CompletableFuture<String> login(Targets targets, String gsmNumber, int attempt) {
+        String gsmParameter = "gsmNumber=" + URLEncoder.encode(gsmNumber, StandardCharsets.UTF_8);
+        return send(Operation.REQUEST_OTP, post(targets.authUrl + "/request-otp?" + gsmParameter, null),
+                System.nanoTime())
+                .thenCompose(otp -> {
+                    if (otp.statusCode() == 429 && attempt < LOGIN_ATTEMPTS) {
+                        long retryAfter = otp.headers().firstValueAsLong("Retry-After").orElse(1);
+                        return CompletableFuture.supplyAsync(() -> null,
+                                        CompletableFuture.delayedExecutor(retryAfter, TimeUnit.SECONDS))
+                                .thenCompose(ignored -> login(targets, gsmNumber, attempt + 1));
+                    }
+                    if (otp.statusCode() != 200) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    String verify = targets.authUrl + "/verify-otp?" + gsmParameter + "&otpCode=" + otp.body().trim();
+                    return send(Operation.VERIFY_OTP, post(verify, null), System.nanoTime())
+                            .thenApply(token -> token.statusCode() == 200 ? token.body().trim() : null);
+                });
+    }
+
+    /**
+     * Sends the mix open-loop for the warmup and the measured duration, then waits for outstanding requests.
+     */
+    private void drive(Targets targets, List<String> tokens) throws InterruptedException {
+        Random random = new Random(options.getSeed());
+        Operation[] mix = expandMix(options.getMix());
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        String amount = "?amount=" + options.getAmount();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        long reportInterval = options.getReportInterval().toNanos();
+        long nextReport = start + reportInterval;
+        boolean measuring = false;
+
+        double due = start;
+        while ((long) due < end) {
+            long now = System.nanoTime();
+            if (!measuring && now >= measureFrom) {
+                mixStats().forEach(OperationStats::startMeasuring);
+                measuring = true;
+            }
+            if (now >= nextReport) {
+                reportInterval(now - start, measuring);
+                nextReport += reportInterval;
+            }
+            long wait = (long) due - now;
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+
+            Operation operation = mix[random.nextInt(mix.length)];
+            String token = tokens.get(random.nextInt(tokens.size()));
+            fire(operation, targets.url(operation) + amount, token, (long) due);
+            due += options.getArrivals() == LoadTestOptions.Arrivals.POISSON
+                    ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+        }
+
+        long drainUntil = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            out.printf("%d requests were still outstanding after %s and are not counted%n", inFlight.get(),
+                    DRAIN_TIMEOUT);
+        }
+    }
+
+    private void fire(Operation operation, String url, String token, long due) {
+        OperationStats operationStats = stats.get(operation);
+        if (inFlight.incrementAndGet() > options.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            operationStats.drop();
+            return;
+        }
+        HttpRequest request = post(url, token);
+        send(operation, request, due).whenComplete((response, e) -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * Sends the request and records its latency from {@code due}. The returned future fails if there was no response.
+     */
+    private CompletableFuture<HttpResponse<String>> send(Operation operation, HttpRequest request, long due) {
+        OperationStats operationStats = stats.get(operation);
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, e) -> operationStats.record(System.nanoTime() - due,
+                        response != null ? response.statusCode() : OperationStats.NO_RESPONSE));
+    }
+
+    private static HttpRequest post(String url, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            request.header("Authorization", token).header("Idempotency-Key", UUID.randomUUID().toString());
+        }
+        return request.build();
+    }
+
+    /**
+     * One slot per unit of weight, so a uniform pick from the array follows the mix.
+     */
+    private static Operation[] expandMix(Map<Operation, Integer> weights) {
+        List<Operation> slots = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        return slots.toArray(new Operation[0]);
+    }
+
+    private List<OperationStats> mixStats() {
+        List<OperationStats> selected = new ArrayList<>();
+        options.getMix().forEach((operation, weight) -> {
+            if (weight > 0) {
+                selected.add(stats.get(operation));
+            }
+        });
+        return selected;
+    }
+
+    private void reportInterval(long elapsedNanos, boolean measuring) {
+        for (OperationStats operationStats : mixStats()) {
+            Histogram interval = operationStats.nextInterval();
+            out.printf("[%5ds%s] %-8s %8d req  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  in flight %d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), measuring ? "" : " warmup",
+                    operationStats.getOperation().getLabel(), interval.getTotalCount(),
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()), inFlight.get());
+        }
+    }
+
+    private void report(List<Operation> operations) {
+        out.printf("%-12s %10s %10s %9s %9s %9s %9s %9s %9s %9s%n", "operation", "requests", "failed", "dropped",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "req/s");
+        double seconds = options.getDuration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        for (Operation operation : operations) {
+            OperationStats operationStats = stats.get(operation);
+            operationStats.nextInterval();
+            Histogram total = operationStats.getTotal();
+            if (total.getTotalCount() == 0 && operationStats.getDropped() == 0) {
+                continue;
+            }
+            out.printf("%-12s %10d %10d %9d %9.2f %9.2f %9.2f %9.2f %9.2f %9s%n", operation.getLabel(),
+                    total.getTotalCount(), operationStats.getFailures(), operationStats.getDropped(),
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue()),
+                    !operation.isLogin() ? String.format("%.1f", total.getTotalCount() / seconds) : "-");
+            if (operationStats.getFailures() > 0) {
+                out.println("    failures by status (0 = no response): " + operationStats.getFailuresByStatus());
+            }
+        }
+    }
+
+    private void writeHistograms() throws IOException {
+        Path outputDir = options.getOutputDir();
+        Files.createDirectories(outputDir);
+        for (OperationStats operationStats : stats.values()) {
+            if (operationStats.getTotal().getTotalCount() == 0) {
+                continue;
+            }
+            Path file = outputDir.resolve(operationStats.getOperation().getLabel() + ".hgrm");
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                operationStats.getTotal().outputPercentileDistribution(hgrm, NANOS_PER_MILLI);
+            }
+        }
+        out.println("Percentile distributions written to " + outputDir.toAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    static final class Targets {
+        private final String authUrl;
+        private final String purchaseUrl;
+        private final String topUpUrl;
+        private final String refundUrl;
+
+        Targets(String authUrl, String purchaseUrl, String topUpUrl, String refundUrl) {
+            this.authUrl = authUrl;
+            this.purchaseUrl = purchaseUrl;
+            this.topUpUrl = topUpUrl;
+            this.refundUrl = refundUrl;
+        }
+
+        String url(Operation operation) {
+            switch (operation) {
+                case PURCHASE:
+                    return purchaseUrl + "/purchases/make-purchase";
+                case TOP_UP:
+                    return topUpUrl + "/top-ups/add-funds";
+                case REFUND:
+                    return refundUrl + "/refunds/make-refund";
+                default:
+                    throw new IllegalArgumentException("Not part of the mix: " + operation);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package az.azercell.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line of {@link LoadGenerator}, given as {@code --name=value}. Every option has a default, so a bare run
+ * starts the embedded services and drives them at 200 requests per second for a minute.
+ */
+public class LoadTestOptions {
+
+    public enum Arrivals {
+        /**
+         * Exponential gaps between requests, as from many independent clients.
+         */
+        POISSON,
+        /**
+         * A request exactly every {@code 1 / rate} seconds.
+         */
+        UNIFORM
+    }
+
+    private static final String PREFIX = "--";
+
+    private boolean embedded = true;
+    private String authUrl = "http://localhost:8080/api/auth";
+    private String purchaseUrl = "http://localhost:8082";
+    private String topUpUrl = "http://localhost:8081";
+    private String refundUrl = "http://localhost:8083";
+    private double rate = 200;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration reportInterval = Duration.ofSeconds(10);
+    private Arrivals arrivals = Arrivals.POISSON;
+    private Map<Operation, Integer> mix = parseMix("purchase=60,top-up=30,refund=10");
+    private int customers = 1_000;
+    private long firstGsmNumber = 994_500_000_000L;
+    private double amount = 1.00;
+    private double initialBalance = 1_000_000;
+    private int maxInFlight = 10_000;
+    private long seed = 42;
+    private Path outputDir = Path.of("target", "load-test");
+
+    public static LoadTestOptions parse(String... args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith(PREFIX) || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.set(arg.substring(PREFIX.length(), separator), arg.substring(separator + 1));
+        }
+        if (options.rate <= 0 || options.customers <= 0 || options.maxInFlight <= 0) {
+            throw new IllegalArgumentException("rate, customers and max-in-flight must be positive");
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "mode":
+                if (!value.equals("embedded") && !value.equals("remote")) {
+                    throw new IllegalArgumentException("mode is embedded or remote, got: " + value);
+                }
+                embedded = value.equals("embedded");
+                break;
+            case "auth-url":
+                authUrl = value;
+                break;
+            case "purchase-url":
+                purchaseUrl = value;
+                break;
+            case "top-up-url":
+                topUpUrl = value;
+                break;
+            case "refund-url":
+                refundUrl = value;
+                break;
+            case "rate":
+                rate = Double.parseDouble(value);
+                break;
+            case "warmup":
+                warmup = DurationStyle.detectAndParse(value);
+                break;
+            case "duration":
+                duration = DurationStyle.detectAndParse(value);
+                break;
+            case "report-interval":
+                reportInterval = DurationStyle.detectAndParse(value);
+                break;
+            case "arrivals":
+                arrivals = Arrivals.valueOf(value.toUpperCase());
+                break;
+            case "mix":
+                mix = parseMix(value);
+                break;
+            case "customers":
+                customers = Integer.parseInt(value);
+                break;
+            case "first-gsm-number":
+                firstGsmNumber = Long.parseLong(value);
+                break;
+            case "amount":
+                amount = Double.parseDouble(value);
+                break;
+            case "initial-balance":
+                initialBalance = Double.parseDouble(value);
+                break;
+            case "max-in-flight":
+                maxInFlight = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "output-dir":
+                outputDir = Path.of(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+
+    /**
+     * Parses {@code purchase=60,top-up=30,refund=10}; operations left out get no traffic.
+     */
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight, got: " + entry);
+            }
+            Operation operation = Operation.of(parts[0].trim());
+            if (operation.isLogin()) {
+                throw new IllegalArgumentException(
+                        "Logins are made once per customer, not mixed: " + operation.getLabel());
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight: " + entry);
+            }
+            mix.put(operation, weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix has no traffic: " + value);
+        }
+        return mix;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("mode", embedded ? "embedded" : "remote");
+        if (!embedded) {
+            description.put("auth-url", authUrl);
+            description.put("purchase-url", purchaseUrl);
+            description.put("top-up-url", topUpUrl);
+            description.put("refund-url", refundUrl);
+        }
+        description.put("rate", rate);
+        description.put("arrivals", arrivals.name().toLowerCase());
+        description.put("warmup", warmup);
+        description.put("duration", duration);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> weights.put(operation.getLabel(), weight));
+        description.put("mix", weights);
+        description.put("customers", customers);
+        description.put("amount", amount);
+        description.put("seed", seed);
+        return description;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    public String getAuthUrl() {
+        return authUrl;
+    }
+
+    public String getPurchaseUrl() {
+        return purchaseUrl;
+    }
+
+    public String getTopUpUrl() {
+        return topUpUrl;
+    }
+
+    public String getRefundUrl() {
+        return refundUrl;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public Arrivals getArrivals() {
+        return arrivals;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public long getFirstGsmNumber() {
+        return firstGsmNumber;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getInitialBalance() {
+        return initialBalance;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+}
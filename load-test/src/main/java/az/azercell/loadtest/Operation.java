@@ -0,0 +1,36 @@
+package az.azercell.loadtest;
+
+/**
+ * The requests the load generator makes. Logins are made once per simulated customer before the run; the
+ * money-movement operations are then mixed by weight, see {@link LoadTestOptions#getMix}.
+ */
+public enum Operation {
+    REQUEST_OTP("request-otp"),
+    VERIFY_OTP("verify-otp"),
+    PURCHASE("purchase"),
+    TOP_UP("top-up"),
+    REFUND("refund");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isLogin() {
+        return this == REQUEST_OTP || this == VERIFY_OTP;
+    }
+
+    public static Operation of(String label) {
+        for (Operation operation : values()) {
+            if (operation.label.equals(label)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + label);
+    }
+}
@@ -0,0 +1,101 @@
+package az.azercell.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures of one {@link Operation}. Completions are recorded from the HTTP client threads into a
+ * {@link Recorder}; the reporter swaps out an interval histogram on every report and, once the warmup is over, adds
+ * it to the run total.
+ * <p>
+ * Every completed request is recorded, failed ones included, measured from the time it was scheduled to be sent.
+ */
+class OperationStats {
+
+    /**
+     * Status recorded for requests that got no HTTP response, e.g. refused connections and timeouts.
+     */
+    static final int NO_RESPONSE = 0;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Operation operation;
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    private final ConcurrentMap<Integer, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean measuring;
+    private Histogram interval;
+
+    OperationStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.max(latencyNanos, 0));
+        if (measuring && status != 200) {
+            failures.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * A request that was due but not sent because {@code max-in-flight} requests were already outstanding.
+     */
+    void drop() {
+        if (measuring) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Discards what was recorded so far and counts from now on.
+     */
+    synchronized void startMeasuring() {
+        interval = recorder.getIntervalHistogram(interval);
+        failures.clear();
+        dropped.reset();
+        measuring = true;
+    }
+
+    /**
+     * @return what was recorded since the previous call, which is reused by the next call
+     */
+    synchronized Histogram nextInterval() {
+        interval = recorder.getIntervalHistogram(interval);
+        if (measuring) {
+            total.add(interval);
+        }
+        return interval;
+    }
+
+    Histogram getTotal() {
+        return total;
+    }
+
+    long getFailures() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return failures by HTTP status, {@link #NO_RESPONSE} for requests without a response
+     */
+    Map<Integer, Long> getFailuresByStatus() {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        failures.forEach((status, count) -> byStatus.put(status, count.sum()));
+        return byStatus;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,82 @@
+package az.azercell.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke test of the embedded mode: the three services start against {@link CustomerServiceStub}, a customer logs in
+ * through the stub and one purchase, top-up and refund go through with the headers the load generator sends.
+ */
+public class EmbeddedServicesTest {
+
+    private static final String GSM_NUMBER = "994501234567";
+
+    private static CustomerServiceStub customers;
+    private static EmbeddedServices services;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void start() throws IOException {
+        customers = new CustomerServiceStub(BigDecimal.valueOf(100));
+        services = new EmbeddedServices(customers.getCustomersUrl());
+    }
+
+    @AfterAll
+    public static void stop() {
+        if (services != null) {
+            services.close();
+        }
+        customers.close();
+    }
+
+    @Test
+    public void testPurchaseTopUpAndRefund() throws Exception {
+        HttpResponse<String> otp = post(customers.getAuthUrl() + "/request-otp?gsmNumber=" + GSM_NUMBER, null);
+        assertEquals(200, otp.statusCode());
+        HttpResponse<String> login = post(customers.getAuthUrl() + "/verify-otp?gsmNumber=" + GSM_NUMBER
+                + "&otpCode=" + otp.body().trim(), null);
+        assertEquals(200, login.statusCode());
+        String token = login.body().trim();
+
+        HttpResponse<String> purchase = post(services.getPurchaseUrl() + "/purchases/make-purchase?amount=10.0",
+                token);
+        HttpResponse<String> topUp = post(services.getTopUpUrl() + "/top-ups/add-funds?amount=5.0", token);
+        HttpResponse<String> refund = post(services.getRefundUrl() + "/refunds/make-refund?amount=3.0", token);
+
+        assertEquals(200, purchase.statusCode(), purchase.body());
+        assertEquals("Purchase successful. New balance: 90.0", purchase.body());
+        assertEquals(200, topUp.statusCode(), topUp.body());
+        assertEquals("Fund successful. New balance: 95.0", topUp.body());
+        assertEquals(200, refund.statusCode(), refund.body());
+        assertEquals("Refund successful. Refund transaction: 3.0", refund.body());
+        assertEquals(0, BigDecimal.valueOf(98).compareTo(balance()));
+    }
+
+    private BigDecimal balance() throws IOException, InterruptedException {
+        HttpResponse<String> customer = http.send(HttpRequest.newBuilder(
+                        URI.create(customers.getCustomersUrl() + "/" + GSM_NUMBER)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(customer.body()).path("balance").decimalValue();
+    }
+
+    private HttpResponse<String> post(String url, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            request.header("Authorization", token).header("Idempotency-Key", UUID.randomUUID().toString());
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,44 @@
+package az.azercell.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadTestOptionsTest {
+
+    @Test
+    public void testDefaults() {
+        LoadTestOptions options = LoadTestOptions.parse();
+
+        assertTrue(options.isEmbedded());
+        assertEquals(200, options.getRate());
+        assertEquals(LoadTestOptions.Arrivals.POISSON, options.getArrivals());
+        assertEquals(Map.of(Operation.PURCHASE, 60, Operation.TOP_UP, 30, Operation.REFUND, 10), options.getMix());
+    }
+
+    @Test
+    public void testParsesOptions() {
+        LoadTestOptions options = LoadTestOptions.parse("--mode=remote", "--rate=750.5", "--duration=2m",
+                "--arrivals=uniform", "--mix=purchase=3, refund=1", "--customers=20");
+
+        assertFalse(options.isEmbedded());
+        assertEquals(750.5, options.getRate());
+        assertEquals(Duration.ofMinutes(2), options.getDuration());
+        assertEquals(LoadTestOptions.Arrivals.UNIFORM, options.getArrivals());
+        assertEquals(Map.of(Operation.PURCHASE, 3, Operation.REFUND, 1), options.getMix());
+        assertEquals(20, options.getCustomers());
+    }
+
+    @Test
+    public void testRejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--rate"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--mode=local"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--rate=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--mix=verify-otp=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--mix=purchase=0"));
+    }
+}
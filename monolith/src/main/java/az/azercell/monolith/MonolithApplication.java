@@ -0,0 +1,67 @@
+package az.azercell.monolith;
+
+import az.azercell.customer.CustomerApplication;
+import az.azercell.customer.model.Customer;
+import az.azercell.customer.repository.CustomerRepository;
+import az.azercell.purchase.PurchaseApplication;
+import az.azercell.purchase.model.Transaction;
+import az.azercell.purchase.repository.TransactionRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.FullyQualifiedAnnotationBeanNameGenerator;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the customer and purchase services in one JVM against one database. By default purchases reach the customer
+ * service through {@link az.azercell.monolith.client.InProcessCustomerMicroserviceClient}; the {@value #REMOTE_PROFILE}
+ * profile wires the Feign client chain of the purchase service instead, see
+ * {@link az.azercell.monolith.config.RemoteCustomerClientConfig}.
+ * <p>
+ * Both services have classes with the same simple name, so beans are named by their fully qualified class name.
+ * The {@code Server-Timing} header comes from the purchase service, whose filter also times the customer repositories,
+ * and so does the SQL statement count, since both services share one Hibernate session factory. Swagger is
+ * configured by the purchase service too, which keeps springfox away from the actuator endpoints.
+ */
+@EnableScheduling
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = {Customer.class, Transaction.class})
+@ComponentScan(
+        basePackages = {"az.azercell.monolith", "az.azercell.customer", "az.azercell.purchase"},
+        nameGenerator = FullyQualifiedAnnotationBeanNameGenerator.class,
+        excludeFilters = {
+                @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                        classes = {CustomerApplication.class, PurchaseApplication.class}),
+                @ComponentScan.Filter(type = FilterType.REGEX, pattern = {
+                        "az\\.azercell\\.purchase\\.client\\..*",
+                        "az\\.azercell\\.purchase\\.config\\.FeignClientConfig",
+                        "az\\.azercell\\.customer\\.config\\.SwaggerConfig",
+                        "az\\.azercell\\.customer\\.config\\.ServerTimingConfig.*",
+                        "az\\.azercell\\.customer\\.config\\.SqlStatementCountConfig.*"})
+        })
+public class MonolithApplication {
+
+    public static final String REMOTE_PROFILE = "remote";
+
+    public static void main(String[] args) {
+        SpringApplication.run(MonolithApplication.class, args);
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = CustomerRepository.class,
+            repositoryBaseClass = az.azercell.customer.repository.BaseJpaSpecificationRepositoryImpl.class)
+    static class CustomerRepositories {
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = TransactionRepository.class,
+            repositoryBaseClass = az.azercell.purchase.repository.BaseJpaSpecificationRepositoryImpl.class)
+    static class PurchaseRepositories {
+    }
+}
@@ -0,0 +1,93 @@
+package az.azercell.monolith.client;
+
+import az.azercell.customer.exceptions.InsufficientBalanceException;
+import az.azercell.customer.model.Customer;
+import az.azercell.customer.service.CustomerService;
+import az.azercell.monolith.MonolithApplication;
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import az.azercell.purchase.exceptions.CustomerNotFoundException;
+import az.azercell.purchase.exceptions.InvalidRefundAmountException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CustomerMicroserviceClient} that calls {@link CustomerService} directly, without HTTP or JSON. The
+ * transaction services and {@link CustomerService} are both transactional, so a balance adjustment joins the
+ * transaction that records the purchase and both commit or roll back together.
+ * <p>
+ * Customer service errors are translated to the exceptions the transaction services raise for the matching HTTP
+ * responses of the remote client.
+ */
+@Component
+@Profile("!" + MonolithApplication.REMOTE_PROFILE)
+public class InProcessCustomerMicroserviceClient implements CustomerMicroserviceClient {
+
+    private final CustomerService customerService;
+
+    public InProcessCustomerMicroserviceClient(CustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @Override
+    public CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
+        Customer customer;
+        try {
+            customer = customerService.getCustomerByGsmNumber(gsmNumber);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof az.azercell.customer.exceptions.CustomerNotFoundException) {
+                return null;
+            }
+            throw e;
+        }
+        return toCustomerDTO(customer);
+    }
+
+    @Override
+    public void updateCustomer(CustomerDTO customerDTO, Long id) {
+        if (customerService.update(id, toCustomerServiceDTO(customerDTO)).isEmpty()) {
+            throw new CustomerNotFoundException("Customer not found.");
+        }
+    }
+
+    @Override
+    public BalanceAdjustmentDTO adjustBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        az.azercell.customer.dto.BalanceAdjustmentDTO result;
+        try {
+            result = customerService.adjustBalance(id, adjustment.getDelta());
+        } catch (az.azercell.customer.exceptions.CustomerNotFoundException e) {
+            throw new CustomerNotFoundException("Customer not found.");
+        } catch (InsufficientBalanceException e) {
+            throw new InvalidRefundAmountException("Invalid amount for Purchase.");
+        }
+        return new BalanceAdjustmentDTO(result.getCustomerId(), result.getDelta(), result.getBalanceBefore(),
+                result.getBalanceAfter(), result.getCustomerUpdatedAt());
+    }
+
+    private static CustomerDTO toCustomerDTO(Customer customer) {
+        return CustomerDTO.builder()
+                .id(customer.getId())
+                .name(customer.getName())
+                .surname(customer.getSurname())
+                .birthdate(customer.getBirthdate())
+                .gsmNumber(customer.getGsmNumber())
+                .balance(customer.getBalance())
+                .createdAt(customer.getCreatedAt())
+                .updatedAt(customer.getUpdatedAt())
+                .build();
+    }
+
+    private static az.azercell.customer.dto.CustomerDTO toCustomerServiceDTO(CustomerDTO customer) {
+        return az.azercell.customer.dto.CustomerDTO.builder()
+                .id(customer.getId())
+                .name(customer.getName())
+                .surname(customer.getSurname())
+                .birthdate(customer.getBirthdate())
+                .gsmNumber(customer.getGsmNumber())
+                .balance(customer.getBalance())
+                .createdAt(customer.getCreatedAt())
+                .updatedAt(customer.getUpdatedAt())
+                .build();
+    }
+}
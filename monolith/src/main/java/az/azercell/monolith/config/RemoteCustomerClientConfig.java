@@ -0,0 +1,24 @@
+package az.azercell.monolith.config;
+
+import az.azercell.monolith.MonolithApplication;
+import az.azercell.purchase.client.CachingCustomerMicroserviceClient;
+import az.azercell.purchase.client.CoalescingCustomerMicroserviceClient;
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.client.ResilientCustomerMicroserviceClient;
+import az.azercell.purchase.config.FeignClientConfig;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Calls the customer service over HTTP exactly as the standalone purchase service does, with {@code client.url}
+ * pointing back at this application. Used to compare against the in-process client.
+ */
+@Configuration
+@Profile(MonolithApplication.REMOTE_PROFILE)
+@EnableFeignClients(clients = CustomerMicroserviceClient.class)
+@Import({FeignClientConfig.class, CachingCustomerMicroserviceClient.class,
+        CoalescingCustomerMicroserviceClient.class, ResilientCustomerMicroserviceClient.class})
+public class RemoteCustomerClientConfig {
+}
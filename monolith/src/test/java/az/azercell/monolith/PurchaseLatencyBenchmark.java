@@ -0,0 +1,100 @@
+package az.azercell.monolith;
+
+import az.azercell.customer.security.JwtService;
+import az.azercell.customer.service.CustomerService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares end-to-end purchase latency of the in-process and the remote customer client. Each mode starts the
+ * application, makes {@code warmup} purchases of 0.01 and then times {@code requests} more, one at a time.
+ * <p>
+ * The customer with the given GSM number must exist in the configured database and have a balance of at least
+ * {@code 2 * (warmup + requests) * 0.01}; every purchase is recorded.
+ * <pre>
+ * mvn -f monolith test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=az.azercell.monolith.PurchaseLatencyBenchmark -Dexec.args="994501234567 2000 10000"
+ * </pre>
+ */
+public class PurchaseLatencyBenchmark {
+
+    private static final List<String> MODES = List.of("in-process", MonolithApplication.REMOTE_PROFILE);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: PurchaseLatencyBenchmark <gsmNumber> [warmup] [requests]");
+            System.exit(1);
+        }
+        String gsmNumber = args[0];
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        for (String mode : MODES) {
+            long[] latencies = run(mode, gsmNumber, warmup, requests);
+            report(mode, latencies);
+        }
+    }
+
+    private static long[] run(String mode, String gsmNumber, int warmup, int requests) throws Exception {
+        int port = freePort();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MonolithApplication.class)
+                .profiles(mode)
+                .properties("server.port=" + port)
+                .run()) {
+            Long customerId = context.getBean(CustomerService.class).findIdByGsmNumber(gsmNumber).orElse(null);
+            String token = context.getBean(JwtService.class).generateToken(gsmNumber, customerId);
+            HttpClient http = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/purchases/make-purchase?amount=0.01"))
+                    .header("Authorization", token)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+            for (int i = 0; i < warmup; i++) {
+                purchase(http, request);
+            }
+            long[] latencies = new long[requests];
+            for (int i = 0; i < requests; i++) {
+                long started = System.nanoTime();
+                purchase(http, request);
+                latencies[i] = System.nanoTime() - started;
+            }
+            return latencies;
+        }
+    }
+
+    private static void purchase(HttpClient http, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Purchase failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static void report(String mode, long[] latencies) {
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0);
+        System.out.printf("%-10s n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus%n", mode,
+                latencies.length, mean / 1_000, percentile(latencies, 50), percentile(latencies, 90),
+                percentile(latencies, 99), latencies[latencies.length - 1] / 1_000.0);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
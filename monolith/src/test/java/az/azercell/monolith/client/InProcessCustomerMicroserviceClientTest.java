@@ -0,0 +1,85 @@
+package az.azercell.monolith.client;
+
+import az.azercell.customer.exceptions.InsufficientBalanceException;
+import az.azercell.customer.model.Customer;
+import az.azercell.customer.service.CustomerService;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import az.azercell.purchase.exceptions.CustomerNotFoundException;
+import az.azercell.purchase.exceptions.InvalidRefundAmountException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class InProcessCustomerMicroserviceClientTest {
+
+    private static final String GSM_NUMBER = "994501234567";
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private CustomerService customerService;
+
+    private InProcessCustomerMicroserviceClient client;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        client = new InProcessCustomerMicroserviceClient(customerService);
+    }
+
+    @Test
+    public void testCustomerIsMappedWithBalance() {
+        Customer customer = new Customer(1L, "John", "Doe", "01-01-1990", GSM_NUMBER, BigDecimal.TEN,
+                UPDATED_AT, UPDATED_AT);
+        when(customerService.getCustomerByGsmNumber(GSM_NUMBER)).thenReturn(customer);
+
+        CustomerDTO result = client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        assertEquals(1L, result.getId());
+        assertEquals(GSM_NUMBER, result.getGsmNumber());
+        assertEquals(BigDecimal.TEN, result.getBalance());
+        assertEquals(UPDATED_AT, result.getUpdatedAt());
+    }
+
+    @Test
+    public void testUnknownCustomerIsNull() {
+        when(customerService.getCustomerByGsmNumber(GSM_NUMBER)).thenThrow(new RuntimeException("lookup failed",
+                new az.azercell.customer.exceptions.CustomerNotFoundException("Customer not found")));
+
+        assertNull(client.getCustomerByGsmNumber(GSM_NUMBER));
+    }
+
+    @Test
+    public void testBalanceAdjustmentIsMapped() {
+        BigDecimal delta = BigDecimal.valueOf(-3);
+        when(customerService.adjustBalance(1L, delta)).thenReturn(new az.azercell.customer.dto.BalanceAdjustmentDTO(
+                1L, delta, BigDecimal.TEN, BigDecimal.valueOf(7), UPDATED_AT));
+
+        BalanceAdjustmentDTO result = client.adjustBalance(1L, BalanceAdjustmentDTO.of(delta));
+
+        assertEquals(BigDecimal.TEN, result.getBalanceBefore());
+        assertEquals(BigDecimal.valueOf(7), result.getBalanceAfter());
+        assertEquals(UPDATED_AT, result.getCustomerUpdatedAt());
+    }
+
+    @Test
+    public void testBalanceAdjustmentErrorsAreTranslated() {
+        when(customerService.adjustBalance(eq(1L), any()))
+                .thenThrow(new InsufficientBalanceException("Insufficient balance"));
+        when(customerService.adjustBalance(eq(2L), any()))
+                .thenThrow(new az.azercell.customer.exceptions.CustomerNotFoundException("Customer not found"));
+
+        assertThrows(InvalidRefundAmountException.class,
+                () -> client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.ONE)));
+        assertThrows(CustomerNotFoundException.class,
+                () -> client.adjustBalance(2L, BalanceAdjustmentDTO.of(BigDecimal.ONE)));
+    }
+}
@@ -0,0 +1,235 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import az.azercell.purchase.util.ServerTiming;
+import feign.FeignException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Near-cache in front of {@link CustomerMicroserviceClient} for the GSM number to customer mapping. Only the profile
+ * is cached: a customer served from the cache has no balance, which callers must read from the balance-adjustment
+ * response instead.
+ * <p>
+ * Entries live for {@code client.cache.ttl} in a bounded LRU. Balance adjustments return the profile's
+ * {@code updatedAt}, and an entry whose {@code updatedAt} no longer matches is dropped, as is the entry of a customer
+ * that is updated through this client or no longer found.
+ */
+@Primary
+@Component
+public class CachingCustomerMicroserviceClient implements CustomerMicroserviceClient, MeterBinder {
+
+    private static final String METRIC_PREFIX = "customer.client.cache.";
+
+    private final CustomerMicroserviceClient delegate;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final Map<Long, String> gsmNumbersById = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Timer loadTimer;
+
+    public CachingCustomerMicroserviceClient(@Qualifier(CoalescingCustomerMicroserviceClient.QUALIFIER)
+                                             CustomerMicroserviceClient delegate,
+                                             @Value("${client.cache.ttl:60s}") Duration ttl,
+                                             @Value("${client.cache.max-size:10000}") int maxSize) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                gsmNumbersById.remove(eldest.getValue().profile.getId(), eldest.getKey());
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
+        if (ttlNanos > 0) {
+            CustomerDTO cached = lookup(gsmNumber);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        long started = System.nanoTime();
+        long timingStarted = ServerTiming.start();
+        CustomerDTO customer;
+        try {
+            customer = delegate.getCustomerByGsmNumber(gsmNumber);
+        } finally {
+            ServerTiming.stop(ServerTiming.Stage.CUSTOMER_CLIENT, timingStarted);
+        }
+        if (loadTimer != null) {
+            loadTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+
+        if (ttlNanos > 0 && customer != null && customer.getId() != null) {
+            store(gsmNumber, customer);
+        }
+        return customer;
+    }
+
+    @Override
+    public void updateCustomer(CustomerDTO customerDTO, Long id) {
+        long timingStarted = ServerTiming.start();
+        try {
+            delegate.updateCustomer(customerDTO, id);
+        } finally {
+            ServerTiming.stop(ServerTiming.Stage.CUSTOMER_CLIENT, timingStarted);
+            invalidate(id, null);
+        }
+    }
+
+    @Override
+    public BalanceAdjustmentDTO adjustBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return adjust(id, () -> delegate.adjustBalance(id, adjustment));
+    }
+
+    @Override
+    public BalanceAdjustmentDTO compensateBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return adjust(id, () -> delegate.compensateBalance(id, adjustment));
+    }
+
+    private BalanceAdjustmentDTO adjust(Long id, Supplier<BalanceAdjustmentDTO> call) {
+        BalanceAdjustmentDTO result;
+        long timingStarted = ServerTiming.start();
+        try {
+            result = call.get();
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_FOUND.value()) {
+                invalidate(id, null);
+            }
+            throw e;
+        } finally {
+            ServerTiming.stop(ServerTiming.Stage.CUSTOMER_CLIENT, timingStarted);
+        }
+        if (result != null) {
+            invalidate(id, result.getCustomerUpdatedAt());
+        }
+        return result;
+    }
+
+    private CustomerDTO lookup(String gsmNumber) {
+        synchronized (entries) {
+            Entry entry = entries.get(gsmNumber);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                remove(gsmNumber, entry);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return copyOf(entry.profile);
+        }
+    }
+
+    private void store(String gsmNumber, CustomerDTO customer) {
+        Entry entry = new Entry(copyOf(customer), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            Entry previous = entries.put(gsmNumber, entry);
+            if (previous != null && !previous.profile.getId().equals(customer.getId())) {
+                gsmNumbersById.remove(previous.profile.getId(), gsmNumber);
+            }
+            gsmNumbersById.put(customer.getId(), gsmNumber);
+        }
+    }
+
+    /**
+     * Drops the entry of customer {@code id}, unless {@code currentUpdatedAt} is given and matches the cached profile.
+     * A missing {@code updatedAt} on either side counts as a mismatch.
+     */
+    private void invalidate(Long id, LocalDateTime currentUpdatedAt) {
+        synchronized (entries) {
+            String gsmNumber = gsmNumbersById.get(id);
+            Entry entry = gsmNumber == null ? null : entries.get(gsmNumber);
+            if (entry == null) {
+                return;
+            }
+            if (currentUpdatedAt != null && Objects.equals(currentUpdatedAt, entry.profile.getUpdatedAt())) {
+                return;
+            }
+            remove(gsmNumber, entry);
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private void remove(String gsmNumber, Entry entry) {
+        entries.remove(gsmNumber);
+        gsmNumbersById.remove(entry.profile.getId(), gsmNumber);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            gsmNumbersById.clear();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + "gets", hits, AtomicLong::get).tag("result", "hit").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "gets", misses, AtomicLong::get).tag("result", "miss").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "evictions", evictions, AtomicLong::get).register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "invalidations", invalidations, AtomicLong::get).register(registry);
+        Gauge.builder(METRIC_PREFIX + "size", this, CachingCustomerMicroserviceClient::size).register(registry);
+        Gauge.builder(METRIC_PREFIX + "hit.ratio", this, CachingCustomerMicroserviceClient::hitRatio).register(registry);
+        loadTimer = Timer.builder(METRIC_PREFIX + "load").register(registry);
+    }
+
+    double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private static CustomerDTO copyOf(CustomerDTO customer) {
+        return customer.toBuilder().balance(null).build();
+    }
+
+    private static final class Entry {
+        private final CustomerDTO profile;
+        private final long expiresAt;
+
+        private Entry(CustomerDTO profile, long expiresAt) {
+            this.profile = profile;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
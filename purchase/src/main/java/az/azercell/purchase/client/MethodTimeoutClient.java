@@ -0,0 +1,49 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.config.CustomerClientProperties;
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delegating Feign client that applies per-method timeouts on top of the pooled transport.
+ */
+public class MethodTimeoutClient implements Client {
+
+    private final Client delegate;
+    private final Map<String, CustomerClientProperties.Timeout> timeouts;
+
+    public MethodTimeoutClient(Client delegate, Map<String, CustomerClientProperties.Timeout> timeouts) {
+        this.delegate = delegate;
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return delegate.execute(request, resolveOptions(request, options));
+    }
+
+    private Request.Options resolveOptions(Request request, Request.Options defaults) {
+        RequestTemplate template = request.requestTemplate();
+        if (template == null || template.methodMetadata() == null || template.methodMetadata().method() == null) {
+            return defaults;
+        }
+
+        CustomerClientProperties.Timeout timeout = timeouts.get(template.methodMetadata().method().getName());
+        if (timeout == null) {
+            return defaults;
+        }
+
+        long connectTimeout = timeout.getConnectTimeout() != null
+                ? timeout.getConnectTimeout().toMillis() : defaults.connectTimeoutMillis();
+        long readTimeout = timeout.getReadTimeout() != null
+                ? timeout.getReadTimeout().toMillis() : defaults.readTimeoutMillis();
+        return new Request.Options(connectTimeout, TimeUnit.MILLISECONDS, readTimeout, TimeUnit.MILLISECONDS,
+                defaults.isFollowRedirects());
+    }
+}
@@ -0,0 +1,164 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.config.CustomerClientProperties;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import az.azercell.purchase.exceptions.CustomerServiceUnavailableException;
+import az.azercell.purchase.util.CircuitBreaker;
+import feign.FeignException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Guards every call to the customer service with a semaphore bulkhead and a {@link CircuitBreaker}, so a slow or
+ * failing customer service turns into fast {@link CustomerServiceUnavailableException}s instead of request threads
+ * piling up inside Feign. Client errors (4xx) are answers, not failures, and do not count against the breaker.
+ * Compensating adjustments are exempt, see {@link #compensateBalance}.
+ */
+@Component
+@Qualifier(ResilientCustomerMicroserviceClient.QUALIFIER)
+public class ResilientCustomerMicroserviceClient implements CustomerMicroserviceClient, MeterBinder {
+
+    public static final String QUALIFIER = "resilientCustomerMicroserviceClient";
+
+    private static final String METRIC_PREFIX = "customer.client.";
+
+    private final CustomerMicroserviceClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitNanos;
+    private final LongAdder bulkheadRejections = new LongAdder();
+
+    public ResilientCustomerMicroserviceClient(@Qualifier(CustomerMicroserviceClient.FEIGN_QUALIFIER)
+                                               CustomerMicroserviceClient delegate,
+                                               CustomerClientProperties properties) {
+        CustomerClientProperties.Breaker breaker = properties.getCircuitBreaker();
+        this.delegate = delegate;
+        this.circuitBreaker = breaker.isEnabled()
+                ? new CircuitBreaker(breaker.getSlidingWindowSize(), breaker.getMinimumNumberOfCalls(),
+                breaker.getFailureRateThreshold(), breaker.getSlowCallRateThreshold(),
+                breaker.getSlowCallDurationThreshold().toNanos(), breaker.getWaitDurationInOpenState().toNanos(),
+                breaker.getPermittedNumberOfCallsInHalfOpenState())
+                : null;
+        this.bulkhead = new Semaphore(properties.getBulkhead().getMaxConcurrentCalls());
+        this.bulkheadWaitNanos = properties.getBulkhead().getMaxWaitDuration().toNanos();
+    }
+
+    @Override
+    public CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
+        return call(() -> delegate.getCustomerByGsmNumber(gsmNumber));
+    }
+
+    @Override
+    public void updateCustomer(CustomerDTO customerDTO, Long id) {
+        call(() -> {
+            delegate.updateCustomer(customerDTO, id);
+            return null;
+        });
+    }
+
+    @Override
+    public BalanceAdjustmentDTO adjustBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return call(() -> delegate.adjustBalance(id, adjustment));
+    }
+
+    /**
+     * Goes around the bulkhead and the circuit breaker, and is not recorded by it: failing fast here would leave the
+     * customer charged for a transaction that was never written.
+     */
+    @Override
+    public BalanceAdjustmentDTO compensateBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return delegate.adjustBalance(id, adjustment);
+    }
+
+    private <T> T call(Supplier<T> action) {
+        acquireBulkhead();
+        try {
+            if (circuitBreaker == null) {
+                return action.get();
+            }
+            if (!circuitBreaker.tryAcquire(System.nanoTime())) {
+                throw new CustomerServiceUnavailableException("Customer service circuit breaker is open.");
+            }
+            long started = System.nanoTime();
+            boolean failure = true;
+            try {
+                T result = action.get();
+                failure = false;
+                return result;
+            } catch (FeignException e) {
+                failure = isFailure(e);
+                throw e;
+            } finally {
+                long now = System.nanoTime();
+                circuitBreaker.onResult(now, now - started, failure);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquireBulkhead() {
+        boolean acquired;
+        try {
+            acquired = bulkheadWaitNanos > 0
+                    ? bulkhead.tryAcquire(bulkheadWaitNanos, TimeUnit.NANOSECONDS)
+                    : bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            bulkheadRejections.increment();
+            throw new CustomerServiceUnavailableException("Too many concurrent calls to the customer service.");
+        }
+    }
+
+    /**
+     * Timeouts and connection errors have no status; only those and 5xx responses mean the service is unhealthy.
+     */
+    private static boolean isFailure(FeignException e) {
+        return e.status() < 400 || e.status() >= 500;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + "bulkhead.available", bulkhead, Semaphore::availablePermits).register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "bulkhead.rejections", bulkheadRejections, LongAdder::sum)
+                .register(registry);
+        if (circuitBreaker == null) {
+            return;
+        }
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder(METRIC_PREFIX + "circuit.breaker.state", circuitBreaker, cb -> cb.state() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        Gauge.builder(METRIC_PREFIX + "circuit.breaker.failure.rate", circuitBreaker, CircuitBreaker::failureRate)
+                .register(registry);
+        registerCallCounter(registry, "successful", CircuitBreaker::successfulCalls);
+        registerCallCounter(registry, "failed", CircuitBreaker::failedCalls);
+        registerCallCounter(registry, "slow", CircuitBreaker::slowCalls);
+        registerCallCounter(registry, "not_permitted", CircuitBreaker::notPermittedCalls);
+    }
+
+    private void registerCallCounter(MeterRegistry registry, String kind, ToLongFunction<CircuitBreaker> count) {
+        FunctionCounter.builder(METRIC_PREFIX + "circuit.breaker.calls", circuitBreaker, count::applyAsLong)
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    CircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.state();
+    }
+}
@@ -1,14 +1,21 @@
 package az.azercell.purchase.config;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 @Configuration
 @EnableSwagger2
 @Import(springfox.documentation.swagger2.configuration.Swagger2DocumentationConfiguration.class)
@@ -21,4 +28,30 @@ public class SwaggerConfig {
                 .paths(PathSelectors.any())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Springfox 2.9 only reads ant-style request mappings, but the actuator endpoints are always mapped with path
+     * patterns and fail its startup with a NullPointerException. Hides those mappings from springfox; they are not
+     * part of the API it documents.
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerMappingsFilter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    handlerMappings((WebMvcRequestHandlerProvider) bean)
+                            .removeIf(mapping -> mapping.getPatternParser() != null);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RequestMappingInfoHandlerMapping> handlerMappings(WebMvcRequestHandlerProvider provider) {
+        Field field = ReflectionUtils.findField(WebMvcRequestHandlerProvider.class, "handlerMappings");
+        ReflectionUtils.makeAccessible(field);
+        return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, provider);
+    }
+}
@@ -0,0 +1,7 @@
+package az.azercell.purchase.exceptions;
+
+public class CustomerServiceUnavailableException extends RuntimeException {
+    public CustomerServiceUnavailableException(String message) {
+        super(message);
+    }
+}
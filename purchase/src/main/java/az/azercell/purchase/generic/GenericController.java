@@ -3,17 +3,22 @@ package az.azercell.purchase.generic;
 
 import az.azercell.purchase.model.base.BaseDTO;
 import az.azercell.purchase.model.base.BaseEntity;
+import az.azercell.purchase.util.KeysetCursor;
 import az.azercell.purchase.util.QueryProcessingUtils;
-import com.fasterxml.jackson.databind.JsonNode;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.util.function.Function;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 public abstract class GenericController<T extends BaseDTO, E extends BaseEntity>
 {
@@ -28,19 +33,40 @@ public abstract class GenericController<T extends BaseDTO, E extends BaseEntity>
     public ResponseEntity<Object> findAll(
             @RequestParam(value = "take", required = false, defaultValue = "100") int take,
             @RequestParam(value = "skip", required = false, defaultValue = "0") int skip,
-            @RequestParam(value = "sort", required = false, defaultValue = "[]") String sort) throws IOException
+            @RequestParam(value = "sort", required = false, defaultValue = "[]") String sort,
+            @RequestParam(value = "filter", required = false, defaultValue = "[]") String filter,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", required = false, defaultValue = "true") boolean withTotal) throws IOException
     {
 
-        JsonNode sortNode   = QueryProcessingUtils.parseSortParameter(sort);
+        Sort sortObj = QueryProcessingUtils.resolveSortCriteria(sort, getSortIndexes());
+
+        Specification<E> spec = resolveFilter(filter);
+
+        if (after != null)
+        {
+            return findAllAfter(spec, after, take, sortObj);
+        }
 
-        Sort sortObj  = QueryProcessingUtils.resolveSortCriteria(sortNode);
         Pageable pageable = QueryProcessingUtils.createPageRequest(take, skip, sortObj);
 
-        Function<Pageable, Page<T>> findAllFunction = genericService::findAll;
+        try
+        {
+            Slice<T> slice = genericService.findSlice(spec, pageable);
 
-        Page<T> page = QueryProcessingUtils.loadPageResults(pageable, findAllFunction);
+            if (!withTotal)
+            {
+                return QueryProcessingUtils.buildSliceResponseEntity(slice);
+            }
 
-        return QueryProcessingUtils.buildPageResponseEntity(page);
+            TotalCount total = QueryProcessingUtils.resolveTotalCount(slice, () -> genericService.count(spec));
+
+            return QueryProcessingUtils.buildPageResponseEntity(slice, total);
+        }
+        catch (IllegalArgumentException | InvalidDataAccessApiUsageException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid filter value or sort column.");
+        }
     }
 
 
@@ -56,4 +82,105 @@ public abstract class GenericController<T extends BaseDTO, E extends BaseEntity>
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    /**
+     * Keyset mode: {@code after} is the {@code nextCursor} of the previous page, or empty for the first page. The
+     * cursor fixes the sort, so a different explicit {@code sort} is rejected. Only one sort column (plus the id
+     * tie-breaker) is supported here.
+     */
+    private ResponseEntity<Object> findAllAfter(Specification<E> spec, String after, int take, Sort requestedSort)
+    {
+        if (take < 1)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "take must be positive.");
+        }
+        if (requestedSort.stream().count() > 1)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Keyset mode supports a single sort column.");
+        }
+
+        KeysetCursor cursor;
+        try
+        {
+            cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+        if (cursor != null && !isLeadingSortColumn(cursor.getColumn()))
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+
+        Sort.Order requestedOrder = requestedSort.isSorted() ? requestedSort.iterator().next() : null;
+        Sort.Order order;
+        if (cursor == null)
+        {
+            order = requestedOrder != null ? requestedOrder : Sort.Order.asc("id");
+        }
+        else
+        {
+            order = cursor.toOrder();
+            if (requestedOrder != null && !requestedOrder.equals(order))
+            {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort.");
+            }
+        }
+
+        try
+        {
+            return QueryProcessingUtils.buildCursorResponseEntity(genericService.findAll(spec, order, cursor, take), take);
+        }
+        catch (IllegalArgumentException | InvalidDataAccessApiUsageException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid filter value, cursor or sort column.");
+        }
+    }
+
+    private Specification<E> resolveFilter(String filter)
+    {
+        try
+        {
+            return QueryProcessingUtils.resolveFilterCriteria(QueryProcessingUtils.parseFilterParameter(filter),
+                                                              getFilterableFields(), getIndexedFilterFields());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Entity attributes accepted in the {@code filter} parameter. Conditions are pushed down to SQL; the default empty
+     * set disables filtering.
+     */
+    protected Set<String> getFilterableFields()
+    {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Filterable attributes that lead an index. Every filter must seek on one of them, so the other filterable
+     * attributes can only narrow an indexed lookup instead of scanning the table. Defaults to all filterable fields.
+     */
+    protected Set<String> getIndexedFilterFields()
+    {
+        return getFilterableFields();
+    }
+
+    /**
+     * Column orders of the indexes on the entity's table, as entity attributes. A {@code sort} is cut off at the
+     * first key that leaves all of them, so paging never turns into a filesort. Defaults to the primary key only.
+     */
+    protected List<List<String>> getSortIndexes()
+    {
+        return Collections.singletonList(Collections.singletonList("id"));
+    }
+
+    private boolean isLeadingSortColumn(String column)
+    {
+        return getSortIndexes().stream().anyMatch(index -> index.get(0).equals(column));
+    }
+
 }
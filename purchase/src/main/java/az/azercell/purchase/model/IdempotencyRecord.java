@@ -0,0 +1,54 @@
+package az.azercell.purchase.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key}. A row without a status code is claimed by a request that
+ * is still running.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys")
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "scope", nullable = false, length = 64)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false)
+    private String requestFingerprint;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", length = 1024)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord(String scope, String idempotencyKey, String requestFingerprint, LocalDateTime createdAt) {
+        this.scope = scope;
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.createdAt = createdAt;
+    }
+
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+}
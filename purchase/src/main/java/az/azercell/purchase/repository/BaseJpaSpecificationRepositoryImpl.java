@@ -0,0 +1,82 @@
+package az.azercell.purchase.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.Table;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+public class BaseJpaSpecificationRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
+        implements BaseJpaSpecificationRepository<T, ID>
+{
+    private static final String TABLE_ROWS_QUERY =
+            "SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = :table";
+
+    private final EntityManager entityManager;
+    private final String tableName;
+
+    public BaseJpaSpecificationRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager)
+    {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+
+        Table table = entityInformation.getJavaType().getAnnotation(Table.class);
+        this.tableName = table != null && !table.name().isEmpty() ? table.name() : entityInformation.getEntityName();
+    }
+
+    @Override
+    public List<T> findAll(@Nullable Specification<T> spec, Sort sort, int limit)
+    {
+        TypedQuery<T> query = getQuery(spec, sort);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public Slice<T> findSlice(@Nullable Specification<T> spec, Pageable pageable)
+    {
+        if (pageable.isUnpaged())
+        {
+            return new SliceImpl<>(findAll(spec, pageable.getSort()), pageable, false);
+        }
+
+        TypedQuery<T> query = getQuery(spec, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        List<T> rows    = query.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Runs outside the caller's transaction: a failing statistics query must not mark it rollback-only.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long estimateCount()
+    {
+        try
+        {
+            Object rows = entityManager.createNativeQuery(TABLE_ROWS_QUERY)
+                    .setParameter("table", tableName)
+                    .getSingleResult();
+            return rows instanceof Number ? ((Number) rows).longValue() : -1;
+        }
+        catch (PersistenceException e)
+        {
+            return -1;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package az.azercell.purchase.service;
 
 import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
 import az.azercell.purchase.dto.CustomerDTO;
 import az.azercell.purchase.dto.TransactionDTO;
 import az.azercell.purchase.enumeration.CreatedBy;
@@ -10,44 +11,77 @@ import az.azercell.purchase.exceptions.InvalidRefundAmountException;
 import az.azercell.purchase.generic.GenericServiceImpl;
 import az.azercell.purchase.model.Transaction;
 import az.azercell.purchase.repository.TransactionRepository;
-import az.azercell.purchase.util.JwtTokenUtil;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Outcome;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Stage;
+import feign.FeignException;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
-import static az.azercell.purchase.util.CalculateBalance.calculateNewBalance;
-import static az.azercell.purchase.util.JwtTokenUtil.validateToken;
+import static az.azercell.purchase.util.CalculateBalance.calculateBalanceDelta;
+import static az.azercell.purchase.util.JwtTokenUtil.extractCustomerId;
+import static az.azercell.purchase.util.JwtTokenUtil.extractPhoneNumber;
+import static az.azercell.purchase.util.JwtTokenUtil.verifyToken;
 import static az.azercell.purchase.util.TransactionValidationHelper.validateCustomer;
 
 
+@Slf4j
 @Service
 public class TransactionService extends GenericServiceImpl<TransactionDTO, Transaction> {
     private final TransactionRepository repository;
     private final CustomerMicroserviceClient customerMicroserviceClient;
+    private final TransactionPipelineMetrics metrics;
 
-    public TransactionService(TransactionRepository repository, CustomerMicroserviceClient customerMicroserviceClient) {
+    public TransactionService(TransactionRepository repository, CustomerMicroserviceClient customerMicroserviceClient,
+                              TransactionPipelineMetrics metrics) {
         super(repository, TransactionDTO::new, TransactionService::dtoToEntity);
         this.repository = repository;
         this.customerMicroserviceClient = customerMicroserviceClient;
+        this.metrics = metrics;
     }
 
     public String makePurchase(String jwtToken, double amount) {
+        long started = System.nanoTime();
+        try {
+            String result = purchase(jwtToken, amount, started);
+            metrics.outcome(Outcome.SUCCESS, started);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failure(e, started);
+            throw e;
+        }
+    }
 
-        validateToken(jwtToken);
+    private String purchase(String jwtToken, double amount, long started) {
+        Claims claims = verifyToken(jwtToken);
+        long stageStarted = metrics.stage(Stage.TOKEN_VALIDATION, started);
 
-        String gsmNumber = extractPhoneNumberFromToken(jwtToken);
-        CustomerDTO customer = getCustomerByGsmNumber(gsmNumber);
+        CustomerDTO customer = resolveCustomer(claims);
         validateCustomer(customer);
+        stageStarted = metrics.stage(Stage.CUSTOMER_LOOKUP, stageStarted);
+
+        // A cached customer, or one taken from the token, has no balance; the balance adjustment then rejects an
+        // overdraft with 422.
+        BigDecimal balance = customer.getBalance();
+        validatePurchaseAmount(amount, balance != null ? balance.doubleValue() : Double.MAX_VALUE);
+        stageStarted = metrics.stage(Stage.VALIDATION, stageStarted);
+
+        BalanceAdjustmentDTO adjustment = adjustCustomerBalance(customer, calculateBalanceDelta(amount));
+        stageStarted = metrics.stage(Stage.BALANCE_UPDATE, stageStarted);
+        try {
+            saveTransaction(customer, amount, adjustment);
+        } catch (RuntimeException e) {
+            revertCustomerBalance(customer, adjustment, e);
+            throw e;
+        }
+        metrics.stage(Stage.TRANSACTION_INSERT, stageStarted);
 
-        validatePurchaseAmount(amount, customer.getBalance().doubleValue());
-
-        BigDecimal newBalance = calculateNewBalance(customer.getBalance(), amount);
-        saveTransaction(customer, amount, newBalance);
-        updateCustomerBalance(customer, newBalance);
-
-        return "Purchase successful. New balance: " + newBalance;
+        return "Purchase successful. New balance: " + adjustment.getBalanceAfter();
     }
 
     protected void validatePurchaseAmount(double amount, double balance) {
@@ -57,6 +91,18 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
         }
     }
 
+    /**
+     * A token minted at login carries the customer id, which is all the balance adjustment needs. Older tokens only
+     * carry the GSM number, which still costs a customer lookup.
+     */
+    protected CustomerDTO resolveCustomer(Claims claims) {
+        Long customerId = extractCustomerId(claims);
+        if (customerId != null) {
+            return CustomerDTO.builder().id(customerId).build();
+        }
+        return getCustomerByGsmNumber(extractPhoneNumber(claims));
+    }
+
     protected CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
         CustomerDTO customer = customerMicroserviceClient.getCustomerByGsmNumber(gsmNumber);
         if (customer == null) {
@@ -65,17 +111,40 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
         return customer;
     }
 
-    protected void updateCustomerBalance(CustomerDTO customer, BigDecimal newBalance) {
-        customer.setBalance(newBalance);
-        customerMicroserviceClient.updateCustomer(customer, customer.getId());
+    protected BalanceAdjustmentDTO adjustCustomerBalance(CustomerDTO customer, BigDecimal delta) {
+        try {
+            BalanceAdjustmentDTO adjustment = customerMicroserviceClient.adjustBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+            customer.setBalance(adjustment.getBalanceAfter());
+            return adjustment;
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_FOUND.value()) {
+                throw new CustomerNotFoundException("Customer not found.");
+            }
+            if (e.status() == HttpStatus.UNPROCESSABLE_ENTITY.value()) {
+                throw new InvalidRefundAmountException("Invalid amount for Purchase.");
+            }
+            throw e;
+        }
     }
 
-    private String extractPhoneNumberFromToken(String jwtToken) {
-        return JwtTokenUtil.extractPhoneNumber(jwtToken);
+    /**
+     * Credits back {@code adjustment} after the transaction row could not be written. A failed compensation is logged
+     * for reconciliation and attached to {@code cause}, which stays the error the caller sees.
+     */
+    protected void revertCustomerBalance(CustomerDTO customer, BalanceAdjustmentDTO adjustment,
+                                         RuntimeException cause) {
+        BigDecimal delta = adjustment.getDelta().negate();
+        try {
+            customerMicroserviceClient.compensateBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+        } catch (RuntimeException e) {
+            log.error("Could not revert a balance adjustment of {} for customer {}; the balance needs reconciling",
+                    adjustment.getDelta(), customer.getId(), e);
+            cause.addSuppressed(e);
+        }
     }
 
-    protected void saveTransaction(CustomerDTO customer, double amount, BigDecimal newBalance) {
-        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, newBalance);
+    protected void saveTransaction(CustomerDTO customer, double amount, BalanceAdjustmentDTO adjustment) {
+        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, adjustment);
         save(transactionDTO);
     }
 
@@ -83,6 +152,7 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
     public Transaction save(TransactionDTO dto) {
         Transaction entity = dtoToEntity(dto, Optional.empty());
         Transaction saved = repository.save(entity);
+        invalidateTotalCount();
         return saved;
     }
 
@@ -103,11 +173,11 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
 
     protected static TransactionDTO customerToTransactionDTO(CustomerDTO customer,
                                                              Optional<TransactionDTO> existingDto,
-                                                             double amount, BigDecimal newBalance) {
+                                                             double amount, BalanceAdjustmentDTO adjustment) {
         TransactionDTO dto = existingDto.orElseGet(TransactionDTO::new);
         dto.setAmount(BigDecimal.valueOf(amount));
-        dto.setAfterAmount(customer.getBalance());
-        dto.setBeforeAmount(newBalance);
+        dto.setBeforeAmount(adjustment.getBalanceBefore());
+        dto.setAfterAmount(adjustment.getBalanceAfter());
         dto.setOperatedAt(LocalDateTime.now());
         dto.setTransactionTypeId(TransactionType.OUT.getOrder());
         dto.setCustomerId(customer.getId());
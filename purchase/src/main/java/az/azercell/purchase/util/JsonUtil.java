@@ -4,11 +4,17 @@ package az.azercell.purchase.util;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.NullNode;
 
 public interface JsonUtil {
+    /**
+     * Shared, immutable reader; building an {@link ObjectMapper} per call is far more expensive than the parse.
+     */
+    ObjectReader READER = new ObjectMapper().reader();
+
     static JsonNode parseJsonArray(String jsonArrayString) throws JsonProcessingException
     {
-        return (jsonArrayString == null) ? NullNode.getInstance() : new ObjectMapper().readTree(jsonArrayString);
+        return (jsonArrayString == null) ? NullNode.getInstance() : READER.readTree(jsonArrayString);
     }
 }
@@ -0,0 +1,81 @@
+package az.azercell.purchase.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of already verified claims, keyed by the SHA-256 digest of the token so raw tokens are not retained.
+ * An entry is served only until the token's {@code exp}.
+ */
+public class JwtClaimsCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, Claims> entries;
+
+    public JwtClaimsCache(int maxSize) {
+        this.entries = new LinkedHashMap<String, Claims>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Claims get(String token) {
+        String key = digest(token);
+        synchronized (entries) {
+            Claims claims = entries.get(key);
+            if (claims != null && isExpired(claims)) {
+                entries.remove(key);
+                return null;
+            }
+            return claims;
+        }
+    }
+
+    public void put(String token, Claims claims) {
+        if (claims.getExpiration() == null || isExpired(claims)) {
+            return;
+        }
+        String key = digest(token);
+        synchronized (entries) {
+            entries.put(key, claims);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -0,0 +1,89 @@
+package az.azercell.purchase.util;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.math.BigDecimal;
+
+public final class KeysetPaginationUtils
+{
+    private static final String ID_COLUMN = "id";
+
+    private KeysetPaginationUtils()
+    {
+        // Prevent instantiation
+    }
+
+    /**
+     * Orders by the requested column and then by id in the same direction, so that every row has a unique position.
+     */
+    public static Sort keysetSort(Sort.Order order)
+    {
+        Sort sort = Sort.by(order.getDirection(), order.getProperty());
+        return ID_COLUMN.equals(order.getProperty()) ? sort : sort.and(Sort.by(order.getDirection(), ID_COLUMN));
+    }
+
+    /**
+     * Rows strictly after the cursor in {@link #keysetSort(Sort.Order)} order, i.e. {@code (col, id) > (?, ?)}
+     * expanded into {@code col > ? OR (col = ? AND id > ?)} so it can be expressed with the Criteria API. NULLs are
+     * placed the way MySQL sorts them: first when ascending, last when descending.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <E> Specification<E> after(KeysetCursor cursor)
+    {
+        return (root, query, cb) ->
+        {
+            boolean    descending = cursor.isDescending();
+            Path<Long> id         = root.get(ID_COLUMN);
+            Predicate  idAfter    = descending ? cb.lessThan(id, cursor.getId()) : cb.greaterThan(id, cursor.getId());
+
+            if (ID_COLUMN.equals(cursor.getColumn()))
+            {
+                return idAfter;
+            }
+
+            Path<Comparable> column = root.get(cursor.getColumn());
+
+            if (cursor.getValue() == null)
+            {
+                Predicate sameNull = cb.and(cb.isNull(column), idAfter);
+                return descending ? sameNull : cb.or(sameNull, cb.isNotNull(column));
+            }
+
+            Comparable value  = (Comparable) QueryProcessingUtils.convertValue(cursor.getValue(), column.getJavaType());
+            Predicate  beyond = descending ? cb.lessThan(column, value) : cb.greaterThan(column, value);
+            Predicate  after  = cb.or(beyond, cb.and(cb.equal(column, value), idAfter));
+
+            return descending ? cb.or(after, cb.isNull(column)) : after;
+        };
+    }
+
+    public static KeysetCursor cursorOf(Object entity, Sort.Order order)
+    {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(entity);
+        Object          value   = wrapper.getPropertyValue(order.getProperty());
+        Object          id      = wrapper.getPropertyValue(ID_COLUMN);
+
+        return new KeysetCursor(order.getProperty(), order.isDescending(), formatValue(value), ((Number) id).longValue());
+    }
+
+    private static String formatValue(Object value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        if (value instanceof BigDecimal)
+        {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Enum)
+        {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+}
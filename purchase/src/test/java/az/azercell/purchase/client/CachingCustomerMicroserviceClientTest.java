@@ -0,0 +1,147 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CachingCustomerMicroserviceClientTest {
+
+    private static final String GSM_NUMBER = "994501234567";
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private CustomerMicroserviceClient delegate;
+
+    private CachingCustomerMicroserviceClient client;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(delegate.getCustomerByGsmNumber(GSM_NUMBER)).thenAnswer(invocation -> customer());
+        client = new CachingCustomerMicroserviceClient(delegate, Duration.ofMinutes(1), 2);
+    }
+
+    @Test
+    public void testProfileIsServedFromCacheWithoutBalance() {
+        CustomerDTO first = client.getCustomerByGsmNumber(GSM_NUMBER);
+        CustomerDTO second = client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        assertEquals(BigDecimal.valueOf(100), first.getBalance());
+        assertEquals(1L, second.getId());
+        assertEquals("Julian", second.getName());
+        assertNull(second.getBalance());
+        verify(delegate, times(1)).getCustomerByGsmNumber(GSM_NUMBER);
+        assertEquals(0.5, client.hitRatio());
+    }
+
+    @Test
+    public void testAdjustmentWithSameProfileVersionKeepsEntry() {
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        when(delegate.adjustBalance(eq(1L), any())).thenReturn(adjustment(UPDATED_AT));
+
+        client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.TEN));
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(1)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testAdjustmentWithNewerProfileVersionInvalidatesEntry() {
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        when(delegate.adjustBalance(eq(1L), any())).thenReturn(adjustment(UPDATED_AT.plusMinutes(1)));
+
+        client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.TEN));
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(2)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testAdjustmentWithoutProfileVersionInvalidatesEntry() {
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        when(delegate.adjustBalance(eq(1L), any())).thenReturn(adjustment(null));
+
+        client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.TEN));
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(2)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testCachedProfileWithoutVersionIsInvalidated() {
+        when(delegate.getCustomerByGsmNumber(GSM_NUMBER)).thenAnswer(invocation ->
+                customer().toBuilder().updatedAt(null).build());
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        when(delegate.adjustBalance(eq(1L), any())).thenReturn(adjustment(UPDATED_AT));
+
+        client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.TEN));
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(2)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testUpdateInvalidatesEntry() {
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        client.updateCustomer(customer(), 1L);
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(2)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        when(delegate.getCustomerByGsmNumber("994500000002")).thenReturn(CustomerDTO.builder().id(2L).build());
+        when(delegate.getCustomerByGsmNumber("994500000003")).thenReturn(CustomerDTO.builder().id(3L).build());
+
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        client.getCustomerByGsmNumber("994500000002");
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        client.getCustomerByGsmNumber("994500000003");
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        client.getCustomerByGsmNumber("994500000002");
+
+        assertEquals(2, client.size());
+        verify(delegate, times(1)).getCustomerByGsmNumber(GSM_NUMBER);
+        verify(delegate, times(2)).getCustomerByGsmNumber("994500000002");
+    }
+
+    @Test
+    public void testZeroTtlDisablesCache() {
+        client = new CachingCustomerMicroserviceClient(delegate, Duration.ZERO, 2);
+
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+        client.getCustomerByGsmNumber(GSM_NUMBER);
+
+        verify(delegate, times(2)).getCustomerByGsmNumber(GSM_NUMBER);
+        assertEquals(0, client.size());
+    }
+
+    private static CustomerDTO customer() {
+        return CustomerDTO.builder()
+                .id(1L)
+                .name("Julian")
+                .surname("Alvarez")
+                .gsmNumber(GSM_NUMBER)
+                .balance(BigDecimal.valueOf(100))
+                .updatedAt(UPDATED_AT)
+                .build();
+    }
+
+    private static BalanceAdjustmentDTO adjustment(LocalDateTime customerUpdatedAt) {
+        return new BalanceAdjustmentDTO(1L, BigDecimal.TEN, BigDecimal.valueOf(100), BigDecimal.valueOf(110),
+                customerUpdatedAt);
+    }
+}
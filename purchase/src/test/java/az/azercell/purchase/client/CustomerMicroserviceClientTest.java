@@ -1,6 +1,7 @@
 package az.azercell.purchase.client;
 
 import az.azercell.purchase.controller.PurchaseController;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
 import az.azercell.purchase.dto.CustomerDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -85,4 +86,19 @@ public class CustomerMicroserviceClientTest {
 
         verify(customerMicroserviceClient, times(1)).updateCustomer(eq(customerToUpdate), eq(1L));
     }
+
+    @Test
+    public void testAdjustBalance() {
+        BalanceAdjustmentDTO request = BalanceAdjustmentDTO.of(BigDecimal.valueOf(-100));
+        BalanceAdjustmentDTO response = new BalanceAdjustmentDTO(1L, request.getDelta(),
+                BigDecimal.valueOf(1000), BigDecimal.valueOf(900));
+
+        when(customerMicroserviceClient.adjustBalance(eq(1L), eq(request))).thenReturn(response);
+
+        BalanceAdjustmentDTO result = customerMicroserviceClient.adjustBalance(1L, request);
+
+        assertEquals(BigDecimal.valueOf(1000), result.getBalanceBefore());
+        assertEquals(BigDecimal.valueOf(900), result.getBalanceAfter());
+        verify(customerMicroserviceClient, times(1)).adjustBalance(eq(1L), eq(request));
+    }
 }
@@ -0,0 +1,91 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.config.CustomerClientProperties;
+import feign.Client;
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MethodTimeoutClientTest {
+
+    interface TestApi {
+        @RequestLine("GET /fast")
+        void fast();
+
+        @RequestLine("GET /other")
+        void other();
+    }
+
+    private final Request.Options defaults = new Request.Options(1, TimeUnit.SECONDS, 3, TimeUnit.SECONDS, true);
+
+    private Client delegate;
+    private MethodTimeoutClient client;
+
+    @BeforeEach
+    public void setup() {
+        delegate = mock(Client.class);
+
+        CustomerClientProperties.Timeout timeout = new CustomerClientProperties.Timeout();
+        timeout.setReadTimeout(Duration.ofMillis(250));
+        Map<String, CustomerClientProperties.Timeout> timeouts = new HashMap<>();
+        timeouts.put("fast", timeout);
+
+        client = new MethodTimeoutClient(delegate, timeouts);
+    }
+
+    @Test
+    public void testConfiguredMethodUsesItsOwnReadTimeout() throws Exception {
+        client.execute(request("fast"), defaults);
+
+        ArgumentCaptor<Request.Options> captor = ArgumentCaptor.forClass(Request.Options.class);
+        verify(delegate).execute(any(Request.class), captor.capture());
+        assertEquals(250, captor.getValue().readTimeoutMillis());
+        assertEquals(defaults.connectTimeoutMillis(), captor.getValue().connectTimeoutMillis());
+    }
+
+    @Test
+    public void testUnconfiguredMethodKeepsDefaults() throws Exception {
+        client.execute(request("other"), defaults);
+
+        verify(delegate).execute(any(Request.class), same(defaults));
+    }
+
+    @Test
+    public void testRequestWithoutMetadataKeepsDefaults() throws Exception {
+        Request request = Request.create(Request.HttpMethod.GET, "http://localhost/fast",
+                Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+
+        client.execute(request, defaults);
+
+        ArgumentCaptor<Request.Options> captor = ArgumentCaptor.forClass(Request.Options.class);
+        verify(delegate).execute(any(Request.class), captor.capture());
+        assertSame(defaults, captor.getValue());
+    }
+
+    private Request request(String methodName) {
+        MethodMetadata metadata = new Contract.Default().parseAndValidateMetadata(TestApi.class).stream()
+                .filter(md -> md.method().getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(IllegalArgumentException::new);
+        RequestTemplate template = new RequestTemplate().methodMetadata(metadata);
+        return Request.create(Request.HttpMethod.GET, "http://localhost/" + methodName,
+                Collections.emptyMap(), null, StandardCharsets.UTF_8, template);
+    }
+}
@@ -0,0 +1,121 @@
+package az.azercell.purchase.client;
+
+import az.azercell.purchase.config.CustomerClientProperties;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.CustomerDTO;
+import az.azercell.purchase.exceptions.CustomerServiceUnavailableException;
+import az.azercell.purchase.util.CircuitBreaker;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ResilientCustomerMicroserviceClientTest {
+
+    private static final String GSM_NUMBER = "994501234567";
+
+    @Mock
+    private CustomerMicroserviceClient delegate;
+
+    private CustomerClientProperties properties;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CustomerClientProperties();
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMinutes(1));
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+    }
+
+    @Test
+    public void testServerErrorsOpenTheBreaker() {
+        when(delegate.getCustomerByGsmNumber(GSM_NUMBER)).thenThrow(error(503));
+        ResilientCustomerMicroserviceClient client = new ResilientCustomerMicroserviceClient(delegate, properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(FeignException.class, () -> client.getCustomerByGsmNumber(GSM_NUMBER));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitBreakerState());
+        assertThrows(CustomerServiceUnavailableException.class, () -> client.getCustomerByGsmNumber(GSM_NUMBER));
+        verify(delegate, times(4)).getCustomerByGsmNumber(GSM_NUMBER);
+    }
+
+    @Test
+    public void testCompensationGoesAroundTheOpenBreaker() {
+        when(delegate.getCustomerByGsmNumber(GSM_NUMBER)).thenThrow(error(503));
+        ResilientCustomerMicroserviceClient client = new ResilientCustomerMicroserviceClient(delegate, properties);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(FeignException.class, () -> client.getCustomerByGsmNumber(GSM_NUMBER));
+        }
+        BalanceAdjustmentDTO credit = BalanceAdjustmentDTO.of(BigDecimal.TEN);
+        when(delegate.adjustBalance(1L, credit)).thenReturn(credit);
+
+        assertThrows(CustomerServiceUnavailableException.class, () -> client.adjustBalance(1L, credit));
+        assertSame(credit, client.compensateBalance(1L, credit));
+
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitBreakerState());
+        verify(delegate, times(1)).adjustBalance(1L, credit);
+    }
+
+    @Test
+    public void testClientErrorsDoNotOpenTheBreaker() {
+        when(delegate.adjustBalance(eq(1L), any())).thenThrow(error(422));
+        ResilientCustomerMicroserviceClient client = new ResilientCustomerMicroserviceClient(delegate, properties);
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(FeignException.class, () -> client.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.ONE)));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitBreakerState());
+    }
+
+    @Test
+    public void testBulkheadRejectsCallsOverTheLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getCustomerByGsmNumber(GSM_NUMBER)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CustomerDTO();
+        });
+        ResilientCustomerMicroserviceClient client = new ResilientCustomerMicroserviceClient(delegate, properties);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> client.getCustomerByGsmNumber(GSM_NUMBER));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CustomerServiceUnavailableException.class, () -> client.getCustomerByGsmNumber(GSM_NUMBER));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertNotNull(client.getCustomerByGsmNumber(GSM_NUMBER));
+    }
+
+    private static FeignException error(int status) {
+        Request request = Request.create(Request.HttpMethod.GET, "/customers", Collections.emptyMap(), null,
+                StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("CustomerMicroserviceClient#call",
+                feign.Response.builder().status(status).request(request).headers(Collections.emptyMap()).build());
+    }
+}
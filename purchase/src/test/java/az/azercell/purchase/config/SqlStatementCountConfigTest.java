@@ -0,0 +1,76 @@
+package az.azercell.purchase.config;
+
+import az.azercell.purchase.util.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatementCountConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRecordsStatementsPerHandler() throws Exception {
+        filter(false).doFilter(request(), new MockHttpServletResponse(), chain(2));
+        filter(false).doFilter(request(), new MockHttpServletResponse(), chain(0));
+
+        DistributionSummary summary = registry.get("http.server.requests.sql.statements")
+                .tag("uri", "/purchases/make-purchase")
+                .summary();
+        CountAtBucket[] buckets = summary.takeSnapshot().histogramCounts();
+        assertEquals(2, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+        assertEquals(1.0, buckets[0].bucket());
+        assertEquals(1.0, buckets[0].count());
+        assertEquals(2.0, buckets[1].count());
+    }
+
+    @Test
+    public void testDebugHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(true).doFilter(request(), response, chain(3));
+
+        assertEquals("3", response.getHeader(SqlStatementCountConfig.HEADER));
+        assertEquals("ok", response.getContentAsString());
+    }
+
+    private SqlStatementCountConfig.SqlStatementCountFilter filter(boolean debugHeader) {
+        return new SqlStatementCountConfig.SqlStatementCountFilter(registry, debugHeader);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/purchases/make-purchase");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/purchases/make-purchase");
+        return request;
+    }
+
+    /**
+     * A handler that prepares {@code statements} SQL statements and writes a body.
+     */
+    private static MockFilterChain chain(int statements) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+                    throws IOException {
+                SqlStatementCounter counter = new SqlStatementCounter();
+                for (int i = 0; i < statements; i++) {
+                    counter.inspect("select " + i);
+                }
+                response.getWriter().write("ok");
+            }
+        });
+    }
+}
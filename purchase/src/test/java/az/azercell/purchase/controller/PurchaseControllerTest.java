@@ -4,6 +4,7 @@ import az.azercell.purchase.dto.CustomerDTO;
 import az.azercell.purchase.exceptions.CustomerNotFoundException;
 import az.azercell.purchase.exceptions.InvalidRefundAmountException;
 import az.azercell.purchase.exceptions.TokenExpiredException;
+import az.azercell.purchase.service.IdempotencyService;
 import az.azercell.purchase.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -37,10 +40,14 @@ public class PurchaseControllerTest {
     private PurchaseController purchaseController;
     @Mock
     private TransactionService transactionService;
+    @Mock
+    private IdempotencyService idempotencyService;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<String>>>getArgument(4).get());
         mockMvc = MockMvcBuilders.standaloneSetup(purchaseController).build();
     }
 
@@ -50,7 +57,7 @@ public class PurchaseControllerTest {
         when(transactionService.makePurchase(anyString(), anyDouble())).thenReturn("Purchase successful.");
 
         // Perform the test
-        ResponseEntity<String> response = purchaseController.makePurchase("mockedToken", 50.0);
+        ResponseEntity<String> response = purchaseController.makePurchase("mockedToken", 50.0, null);
 
         // Assert the response
         assertAll(() -> {
@@ -65,7 +72,7 @@ public class PurchaseControllerTest {
 
         when(transactionService.makePurchase(anyString(), anyDouble())).thenReturn("Purchase successful.");
 
-        ResponseEntity<String> response = purchaseController.makePurchase("mockedToken", 50.0);
+        ResponseEntity<String> response = purchaseController.makePurchase("mockedToken", 50.0, null);
 
         assertAll(() -> {
             verify(transactionService, times(1)).makePurchase(anyString(), anyDouble());
@@ -0,0 +1,148 @@
+package az.azercell.purchase.controller;
+
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.model.IdempotencyRecord;
+import az.azercell.purchase.repository.IdempotencyRecordRepository;
+import az.azercell.purchase.repository.TransactionRepository;
+import az.azercell.purchase.service.IdempotencyService;
+import az.azercell.purchase.service.TransactionPipelineMetrics;
+import az.azercell.purchase.service.TransactionService;
+import az.azercell.purchase.util.JwtTokenUtil;
+import feign.Request;
+import feign.RetryableException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Retries of a purchase whose first attempt may already have moved money must not reach the customer service again.
+ */
+public class PurchaseIdempotencyTest {
+
+    private static final String SECRET = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final String TOKEN = Jwts.builder()
+            .setSubject("994501234567")
+            .claim(JwtTokenUtil.CUSTOMER_ID_CLAIM, 1L)
+            .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CustomerMicroserviceClient customerMicroserviceClient;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+    private TransactionService transactionService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotencyRecordRepository.findByScopeAndIdempotencyKey(anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(records.get(invocation.getArgument(0) + "\n"
+                        + invocation.getArgument(1))));
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        when(idempotencyRecordRepository.save(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            return records.remove(record.getScope() + "\n" + record.getIdempotencyKey());
+        }).when(idempotencyRecordRepository).delete(any());
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        transactionService = new TransactionService(transactionRepository, customerMicroserviceClient,
+                new TransactionPipelineMetrics());
+    }
+
+    @Test
+    public void testStaleClaimIsNotRunAgain() {
+        when(customerMicroserviceClient.adjustBalance(eq(1L), any())).thenReturn(adjustment());
+        when(transactionRepository.save(any())).thenThrow(new InstanceCrash());
+
+        assertThrows(InstanceCrash.class, () -> controller().makePurchase(TOKEN, 10.0, "k1"));
+        records.values().forEach(record -> record.setCreatedAt(LocalDateTime.now().minusHours(1)));
+
+        ResponseStatusException retried = assertThrows(ResponseStatusException.class,
+                () -> controller().makePurchase(TOKEN, 10.0, "k1"));
+
+        assertEquals(HttpStatus.CONFLICT, retried.getStatus());
+        verify(customerMicroserviceClient, times(1)).adjustBalance(eq(1L), any());
+    }
+
+    @Test
+    public void testTimeoutAfterTheAdjustmentIsNotRunAgain() {
+        when(customerMicroserviceClient.adjustBalance(eq(1L), any())).thenThrow(readTimeout());
+        PurchaseController controller = controller();
+
+        ResponseEntity<String> failed = controller.makePurchase(TOKEN, 10.0, "k1");
+        ResponseStatusException retried = assertThrows(ResponseStatusException.class,
+                () -> controller.makePurchase(TOKEN, 10.0, "k1"));
+        ResponseStatusException retriedElsewhere = assertThrows(ResponseStatusException.class,
+                () -> controller().makePurchase(TOKEN, 10.0, "k1"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, retried.getStatus());
+        assertEquals(HttpStatus.CONFLICT, retriedElsewhere.getStatus());
+        verify(customerMicroserviceClient, times(1)).adjustBalance(eq(1L), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    /**
+     * A fresh controller and idempotency service over the same {@code idempotency_keys} rows, as after a restart or on
+     * another instance.
+     */
+    private PurchaseController controller() {
+        IdempotencyService idempotencyService = new IdempotencyService(idempotencyRecordRepository,
+                Duration.ofMinutes(10), Duration.ofHours(24), Duration.ofSeconds(30));
+        return new PurchaseController(transactionService, transactionService, idempotencyService);
+    }
+
+    private IdempotencyRecord store(IdempotencyRecord record) {
+        records.put(record.getScope() + "\n" + record.getIdempotencyKey(), record);
+        return record;
+    }
+
+    private static BalanceAdjustmentDTO adjustment() {
+        return BalanceAdjustmentDTO.builder()
+                .customerId(1L)
+                .delta(BigDecimal.valueOf(-10))
+                .balanceBefore(BigDecimal.valueOf(100))
+                .balanceAfter(BigDecimal.valueOf(90))
+                .build();
+    }
+
+    private static RetryableException readTimeout() {
+        Request request = Request.create(Request.HttpMethod.POST, "/api/customers/1/balance-adjustments",
+                Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+        return new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, null, request);
+    }
+
+    /**
+     * Stands in for the instance dying after the balance was adjusted and before the transaction row was written.
+     */
+    private static final class InstanceCrash extends Error {
+    }
+}
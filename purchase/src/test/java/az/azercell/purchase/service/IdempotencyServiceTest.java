@@ -0,0 +1,193 @@
+package az.azercell.purchase.service;
+
+import az.azercell.purchase.model.IdempotencyRecord;
+import az.azercell.purchase.repository.IdempotencyRecordRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    private static final String SECRET = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final String TOKEN = Jwts.builder()
+            .setSubject("994501234567")
+            .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.findByScopeAndIdempotencyKey(anyString(), anyString())).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        idempotencyService = new IdempotencyService(repository, Duration.ofMinutes(10), Duration.ofHours(24),
+                Duration.ofSeconds(5));
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    public void testRequestWithoutKeyAlwaysRuns() {
+        idempotencyService.execute("make-purchase", TOKEN, null, "amount=10.0", this::purchase);
+        idempotencyService.execute("make-purchase", TOKEN, null, "amount=10.0", this::purchase);
+
+        assertEquals(2, calls.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void testDuplicateIsReplayedFromMemory() {
+        ResponseEntity<String> first = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase);
+        ResponseEntity<String> second = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repository, times(1)).findByScopeAndIdempotencyKey("make-purchase:994501234567", "k1");
+        verify(repository).save(argThat(record -> record.getStatusCode() == 200));
+    }
+
+    @Test
+    public void testStoredResponseIsReplayedWithoutRunning() {
+        IdempotencyRecord record = new IdempotencyRecord("make-purchase:994501234567", "k1", "amount=10.0",
+                LocalDateTime.now());
+        record.setStatusCode(200);
+        record.setResponseBody("Purchase successful. New balance: 90");
+        when(repository.findByScopeAndIdempotencyKey("make-purchase:994501234567", "k1")).thenReturn(Optional.of(record));
+
+        ResponseEntity<String> response = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase);
+
+        assertEquals(0, calls.get());
+        assertEquals("Purchase successful. New balance: 90", response.getBody());
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=20.0", this::purchase));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testServerErrorKeepsTheKeyClaimed() {
+        ResponseEntity<String> failed = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0",
+                () -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred."));
+        ResponseStatusException retried = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, retried.getStatus());
+        assertEquals(0, calls.get());
+        verify(repository, never()).delete(any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    public void testUnavailableReleasesTheKey() {
+        ResponseEntity<String> failed = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0",
+                () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Customer service is unavailable."));
+        ResponseEntity<String> retried = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, failed.getStatusCode());
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals(1, calls.get());
+        verify(repository, times(1)).delete(any());
+    }
+
+    @Test
+    public void testStaleClaimIsNotRunAgain() {
+        IdempotencyRecord record = new IdempotencyRecord("make-purchase:994501234567", "k1", "amount=10.0",
+                LocalDateTime.now().minusHours(1));
+        when(repository.findByScopeAndIdempotencyKey("make-purchase:994501234567", "k1")).thenReturn(Optional.of(record));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0", this::purchase));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatus());
+        assertTrue(e.getReason().contains("unknown"));
+        assertEquals(0, calls.get());
+        verify(repository, never()).delete(any());
+    }
+
+    @Test
+    public void testInvalidKeyIsRejected() {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 129; i++) {
+            key.append('k');
+        }
+
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("make-purchase", TOKEN, key.toString(), "amount=10.0", this::purchase));
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("make-purchase", TOKEN, " ", "amount=10.0", this::purchase));
+    }
+
+    @Test
+    public void testConcurrentDuplicatesAreCollapsed() throws Exception {
+        int threads = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> idempotencyService.execute("make-purchase", TOKEN, "k1",
+                        "amount=10.0", () -> {
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return purchase();
+                        })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<ResponseEntity<String>> response : responses) {
+                assertEquals("Purchase successful. New balance: 90", response.get(5, TimeUnit.SECONDS).getBody());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        verify(repository, times(1)).saveAndFlush(any());
+    }
+
+    private ResponseEntity<String> purchase() {
+        calls.incrementAndGet();
+        return ResponseEntity.ok("Purchase successful. New balance: 90");
+    }
+}
@@ -0,0 +1,35 @@
+package az.azercell.purchase.service;
+
+import az.azercell.purchase.exceptions.CustomerNotFoundException;
+import az.azercell.purchase.exceptions.CustomerServiceUnavailableException;
+import az.azercell.purchase.exceptions.InvalidRefundAmountException;
+import az.azercell.purchase.exceptions.TokenExpiredException;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Outcome;
+import az.azercell.purchase.service.TransactionPipelineMetrics.Stage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionPipelineMetricsTest {
+
+    @Test
+    public void testOutcomeOfException() {
+        assertEquals(Outcome.EXPIRED_TOKEN, Outcome.of(new TokenExpiredException("expired")));
+        assertEquals(Outcome.NOT_FOUND, Outcome.of(new CustomerNotFoundException("not found")));
+        assertEquals(Outcome.INVALID_AMOUNT, Outcome.of(new InvalidRefundAmountException("invalid")));
+        assertEquals(Outcome.UNAVAILABLE, Outcome.of(new CustomerServiceUnavailableException("unavailable")));
+        assertEquals(Outcome.ERROR, Outcome.of(new IllegalStateException("boom")));
+    }
+
+    @Test
+    public void testRecordingBeforeBindingIsNoOp() {
+        TransactionPipelineMetrics metrics = new TransactionPipelineMetrics();
+        long started = System.nanoTime();
+
+        long next = metrics.stage(Stage.TOKEN_VALIDATION, started);
+        metrics.outcome(Outcome.SUCCESS, started);
+        metrics.failure(new IllegalStateException("boom"), started);
+
+        assertTrue(next - started >= 0);
+    }
+}
@@ -0,0 +1,122 @@
+package az.azercell.purchase.service;
+
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.client.ResilientCustomerMicroserviceClient;
+import az.azercell.purchase.config.CustomerClientProperties;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.exceptions.CustomerServiceUnavailableException;
+import az.azercell.purchase.repository.TransactionRepository;
+import az.azercell.purchase.util.JwtTokenUtil;
+import feign.FeignException;
+import feign.Request;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The credit that undoes a debit after a failed transaction insert must reach the customer service even while the
+ * circuit breaker is open.
+ */
+public class TransactionServiceCompensationTest {
+
+    private static final String SECRET = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final String GSM_NUMBER = "994501234567";
+    private static final String TOKEN = Jwts.builder()
+            .setSubject(GSM_NUMBER)
+            .claim(JwtTokenUtil.CUSTOMER_ID_CLAIM, 1L)
+            .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+
+    @Mock
+    private CustomerMicroserviceClient feignClient;
+
+    @Mock
+    private TransactionRepository repository;
+
+    private ResilientCustomerMicroserviceClient resilientClient;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        CustomerClientProperties properties = new CustomerClientProperties();
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMinutes(1));
+        resilientClient = new ResilientCustomerMicroserviceClient(feignClient, properties);
+        transactionService = new TransactionService(repository, resilientClient, new TransactionPipelineMetrics());
+    }
+
+    @Test
+    public void testDebitIsRevertedWhileTheBreakerIsOpen() {
+        when(feignClient.adjustBalance(eq(1L), any())).thenAnswer(invocation -> {
+            BalanceAdjustmentDTO request = invocation.getArgument(1);
+            return new BalanceAdjustmentDTO(1L, request.getDelta(), BigDecimal.valueOf(100),
+                    BigDecimal.valueOf(100).add(request.getDelta()), null);
+        });
+        when(feignClient.getCustomerByGsmNumber(GSM_NUMBER)).thenThrow(error(503));
+        DataAccessResourceFailureException insertFailure = new DataAccessResourceFailureException("Connection lost");
+        when(repository.save(any())).thenAnswer(invocation -> {
+            openBreaker();
+            throw insertFailure;
+        });
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> transactionService.makePurchase(TOKEN, 10.0));
+
+        assertSame(insertFailure, thrown);
+        assertEquals(0, thrown.getSuppressed().length);
+        assertThrows(CustomerServiceUnavailableException.class,
+                () -> resilientClient.adjustBalance(1L, BalanceAdjustmentDTO.of(BigDecimal.ONE)));
+        verify(feignClient).adjustBalance(eq(1L), argThat(a -> a.getDelta().compareTo(BigDecimal.valueOf(-10)) == 0));
+        verify(feignClient).adjustBalance(eq(1L), argThat(a -> a.getDelta().compareTo(BigDecimal.valueOf(10)) == 0));
+    }
+
+    @Test
+    public void testFailedCompensationKeepsTheOriginalError() {
+        when(feignClient.adjustBalance(eq(1L), any()))
+                .thenReturn(new BalanceAdjustmentDTO(1L, BigDecimal.valueOf(-10), BigDecimal.valueOf(100),
+                        BigDecimal.valueOf(90), null))
+                .thenThrow(error(503));
+        DataAccessResourceFailureException insertFailure = new DataAccessResourceFailureException("Connection lost");
+        when(repository.save(any())).thenThrow(insertFailure);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> transactionService.makePurchase(TOKEN, 10.0));
+
+        assertSame(insertFailure, thrown);
+        assertEquals(1, thrown.getSuppressed().length);
+        assertTrue(thrown.getSuppressed()[0] instanceof FeignException);
+    }
+
+    /**
+     * Other requests fail against the customer service until the breaker opens.
+     */
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> resilientClient.getCustomerByGsmNumber(GSM_NUMBER));
+        }
+    }
+
+    private static FeignException error(int status) {
+        Request request = Request.create(Request.HttpMethod.GET, "/customers", Collections.emptyMap(), null,
+                StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("CustomerMicroserviceClient#call",
+                feign.Response.builder().status(status).request(request).headers(Collections.emptyMap()).build());
+    }
+}
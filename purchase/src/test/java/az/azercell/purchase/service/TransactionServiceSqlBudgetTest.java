@@ -0,0 +1,134 @@
+package az.azercell.purchase.service;
+
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
+import az.azercell.purchase.dto.TransactionDTO;
+import az.azercell.purchase.model.Transaction;
+import az.azercell.purchase.repository.IdempotencyRecordRepository;
+import az.azercell.purchase.repository.TransactionRepository;
+import az.azercell.purchase.util.JwtTokenUtil;
+import az.azercell.purchase.util.SqlStatementBudget;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement budgets of the purchase write paths against the real repositories on H2. The tests run outside a test
+ * transaction so every service call commits and prepares the statements it would in production, and only assert on
+ * what the service returns so the budget counts nothing but the call under test.
+ */
+@DataJpaTest(properties = {"spring.liquibase.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import({TransactionService.class, TransactionPipelineMetrics.class, IdempotencyService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TransactionServiceSqlBudgetTest {
+
+    private static final String SECRET = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final String TOKEN = Jwts.builder()
+            .setSubject("994501234567")
+            .claim(JwtTokenUtil.CUSTOMER_ID_CLAIM, 1L)
+            .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @MockBean
+    private CustomerMicroserviceClient customerMicroserviceClient;
+
+    private Transaction existing;
+
+    @BeforeEach
+    public void setup() {
+        when(customerMicroserviceClient.adjustBalance(eq(1L), any())).thenReturn(BalanceAdjustmentDTO.builder()
+                .customerId(1L)
+                .delta(BigDecimal.valueOf(-10))
+                .balanceBefore(BigDecimal.valueOf(100))
+                .balanceAfter(BigDecimal.valueOf(90))
+                .build());
+        existing = transactionRepository.save(transaction());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionRepository.deleteAll();
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    @SqlStatementBudget(1)
+    public void testMakePurchase_InsertsOnlyTheTransaction() {
+        String result = transactionService.makePurchase(TOKEN, 10.0);
+
+        assertEquals("Purchase successful. New balance: 90", result);
+    }
+
+    /**
+     * Claim lookup and insert, the transaction insert, then storing the outcome, which merges the flushed claim and so
+     * reads it back before the update.
+     */
+    @Test
+    @SqlStatementBudget(5)
+    public void testMakePurchaseWithIdempotencyKey() {
+        ResponseEntity<String> response = idempotencyService.execute("make-purchase", TOKEN, "k1", "amount=10.0",
+                () -> ResponseEntity.ok(transactionService.makePurchase(TOKEN, 10.0)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    public void testUpdate_LoadsAndWritesOnce() {
+        TransactionDTO dto = new TransactionDTO(existing);
+        dto.setAmount(BigDecimal.valueOf(20));
+
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(transactionService.update(existing.getId(), dto)
+                .orElseThrow().getAmount()));
+    }
+
+    @Test
+    @SqlStatementBudget(2)
+    public void testDelete_LoadsAndDeletesOnce() {
+        assertDoesNotThrow(() -> transactionService.delete(existing.getId()));
+    }
+
+    private static Transaction transaction() {
+        Transaction transaction = new Transaction();
+        transaction.setCustomerId(1L);
+        transaction.setTransactionTypeId(1);
+        transaction.setCreatedById(1);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setBeforeAmount(BigDecimal.valueOf(100));
+        transaction.setAfterAmount(BigDecimal.valueOf(90));
+        transaction.setOperatedAt(LocalDateTime.now());
+        return transaction;
+    }
+}
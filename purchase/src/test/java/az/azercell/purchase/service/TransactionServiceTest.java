@@ -1,6 +1,7 @@
 package az.azercell.purchase.service;
 
 import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.BalanceAdjustmentDTO;
 import az.azercell.purchase.dto.CustomerDTO;
 import az.azercell.purchase.dto.TransactionDTO;
 import az.azercell.purchase.exceptions.CustomerNotFoundException;
@@ -8,12 +9,16 @@ import az.azercell.purchase.exceptions.InvalidRefundAmountException;
 import az.azercell.purchase.exceptions.TokenExpiredException;
 import az.azercell.purchase.model.Transaction;
 import az.azercell.purchase.repository.TransactionRepository;
+import az.azercell.purchase.util.JwtTokenUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +37,9 @@ public class TransactionServiceTest {
     @Mock
     private CustomerMicroserviceClient customerMicroserviceClient;
 
+    @Mock
+    private TransactionPipelineMetrics metrics;
+
     private CustomerDTO createCustomerDTO() {
         CustomerDTO customerDTO = new CustomerDTO();
         customerDTO.setId(1L);
@@ -83,25 +91,32 @@ public class TransactionServiceTest {
     }
 
     @Test
-    public void testUpdateCustomerBalance() {
+    public void testAdjustCustomerBalance() {
         CustomerDTO customer = createCustomerDTO();
-        BigDecimal newBalance = BigDecimal.valueOf(150.0);
+        BigDecimal delta = BigDecimal.valueOf(-50.0);
+
+        when(customerMicroserviceClient.adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class)))
+                .thenReturn(createAdjustment(delta));
 
-        doNothing().when(customerMicroserviceClient).updateCustomer(any(CustomerDTO.class), anyLong());
+        BalanceAdjustmentDTO result = transactionService.adjustCustomerBalance(customer, delta);
 
-        assertDoesNotThrow(() -> transactionService.updateCustomerBalance(customer, newBalance));
+        assertEquals(BigDecimal.valueOf(150.0), result.getBalanceAfter());
+        assertEquals(BigDecimal.valueOf(150.0), customer.getBalance());
+        verify(customerMicroserviceClient, never()).updateCustomer(any(CustomerDTO.class), anyLong());
     }
 
     @Test
     public void testSaveTransaction() {
         CustomerDTO customer = createCustomerDTO();
         double amount = 50.0;
-        BigDecimal newBalance = BigDecimal.valueOf(150.0);
+        BalanceAdjustmentDTO adjustment = createAdjustment(BigDecimal.valueOf(-amount));
 
-        TransactionDTO transactionDTO = transactionService.customerToTransactionDTO(customer, Optional.empty(), amount, newBalance);
+        TransactionDTO transactionDTO = transactionService.customerToTransactionDTO(customer, Optional.empty(), amount, adjustment);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(new Transaction());
 
-        assertDoesNotThrow(() -> transactionService.saveTransaction(customer, amount, newBalance));
+        assertEquals(adjustment.getBalanceBefore(), transactionDTO.getBeforeAmount());
+        assertEquals(adjustment.getBalanceAfter(), transactionDTO.getAfterAmount());
+        assertDoesNotThrow(() -> transactionService.saveTransaction(customer, amount, adjustment));
     }
 
 
@@ -116,23 +131,47 @@ public class TransactionServiceTest {
     }
 
     @Test
-    public void testUpdateCustomerBalance_SuccessfulUpdate() {
+    public void testMakePurchase_TokenWithCustomerIdSkipsLookup() {
+        String jwtToken = Jwts.builder()
+                .setSubject("994501234567")
+                .claim(JwtTokenUtil.CUSTOMER_ID_CLAIM, 1L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58")
+                .compact();
+
+        when(customerMicroserviceClient.adjustBalance(eq(1L), any(BalanceAdjustmentDTO.class)))
+                .thenReturn(createAdjustment(BigDecimal.valueOf(-50.0)));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(new Transaction());
+
+        assertEquals("Purchase successful. New balance: 150.0", transactionService.makePurchase(jwtToken, 50.0));
+        verify(customerMicroserviceClient, never()).getCustomerByGsmNumber(anyString());
+    }
+
+    @Test
+    public void testAdjustCustomerBalance_SuccessfulUpdate() {
         CustomerDTO customer = createCustomerDTO();
-        BigDecimal newBalance = BigDecimal.valueOf(150);
+        BigDecimal delta = BigDecimal.valueOf(-50);
 
-        doNothing().when(customerMicroserviceClient).updateCustomer(any(CustomerDTO.class), anyLong());
+        when(customerMicroserviceClient.adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class)))
+                .thenReturn(createAdjustment(delta));
 
-        assertDoesNotThrow(() -> transactionService.updateCustomerBalance(customer, newBalance));
+        assertDoesNotThrow(() -> transactionService.adjustCustomerBalance(customer, delta));
     }
 
     @Test
-    public void testUpdateCustomerBalance_FailedUpdate() {
+    public void testAdjustCustomerBalance_FailedUpdate() {
         CustomerDTO customer = createCustomerDTO();
-        BigDecimal newBalance = BigDecimal.valueOf(150);
+        BigDecimal delta = BigDecimal.valueOf(-50);
 
-        doThrow(new RuntimeException("Update failed")).when(customerMicroserviceClient).updateCustomer(any(CustomerDTO.class), anyLong());
+        when(customerMicroserviceClient.adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class)))
+                .thenThrow(new RuntimeException("Update failed"));
+
+        assertThrows(RuntimeException.class, () -> transactionService.adjustCustomerBalance(customer, delta));
+    }
 
-        assertThrows(RuntimeException.class, () -> transactionService.updateCustomerBalance(customer, newBalance));
+    private BalanceAdjustmentDTO createAdjustment(BigDecimal delta) {
+        BigDecimal balanceBefore = BigDecimal.valueOf(200.0);
+        return new BalanceAdjustmentDTO(1L, delta, balanceBefore, balanceBefore.add(delta));
     }
 
 
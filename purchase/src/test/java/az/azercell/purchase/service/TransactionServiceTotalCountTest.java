@@ -0,0 +1,67 @@
+package az.azercell.purchase.service;
+
+import az.azercell.purchase.client.CustomerMicroserviceClient;
+import az.azercell.purchase.dto.TransactionDTO;
+import az.azercell.purchase.generic.TotalCount;
+import az.azercell.purchase.model.Transaction;
+import az.azercell.purchase.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TransactionServiceTotalCountTest {
+
+    @Mock
+    private TransactionRepository repository;
+
+    @Mock
+    private CustomerMicroserviceClient customerMicroserviceClient;
+
+    private TransactionService transactionService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        transactionService = new TransactionService(repository, customerMicroserviceClient,
+                new TransactionPipelineMetrics());
+    }
+
+    @Test
+    public void testCountAll_CachedBetweenReads() {
+        when(repository.count()).thenReturn(7L, 8L);
+
+        transactionService.countAll();
+        TotalCount second = transactionService.countAll();
+
+        assertEquals(7L, second.getValue());
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    public void testSave_NextCountIncludesTheNewRow() {
+        when(repository.count()).thenReturn(7L, 8L);
+
+        transactionService.countAll();
+        transactionService.save(transaction());
+        TotalCount afterSave = transactionService.countAll();
+
+        assertEquals(8L, afterSave.getValue());
+        assertTrue(afterSave.isExact());
+        verify(repository, times(2)).count();
+    }
+
+    private static TransactionDTO transaction() {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setAmount(BigDecimal.TEN);
+        dto.setCustomerId(1L);
+        return dto;
+    }
+}
@@ -0,0 +1,101 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private static final long SLOW = 1_000;
+    private static final long OPEN = 10_000;
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 50, 80, SLOW, OPEN, 2);
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        call(0, false);
+        call(0, true);
+        call(0, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertEquals(-1, circuitBreaker.failureRate());
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        call(0, false);
+        call(0, false);
+        call(0, true);
+        call(0, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire(OPEN - 1));
+        assertEquals(1, circuitBreaker.notPermittedCalls());
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.tryAcquire(0);
+            circuitBreaker.onResult(0, SLOW, false);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertEquals(4, circuitBreaker.slowCalls());
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        for (int i = 0; i < 4; i++) {
+            call(0, i == 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            call(0, false);
+        }
+
+        assertEquals(0f, circuitBreaker.failureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterHealthyTrialCalls() {
+        open();
+
+        assertTrue(circuitBreaker.tryAcquire(OPEN));
+        assertTrue(circuitBreaker.tryAcquire(OPEN));
+        assertFalse(circuitBreaker.tryAcquire(OPEN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+
+        circuitBreaker.onResult(OPEN, 0, false);
+        circuitBreaker.onResult(OPEN, 0, false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertEquals(-1, circuitBreaker.failureRate());
+    }
+
+    @Test
+    public void testHalfOpenReopensAfterFailedTrialCalls() {
+        open();
+
+        circuitBreaker.tryAcquire(OPEN);
+        circuitBreaker.tryAcquire(OPEN);
+        circuitBreaker.onResult(OPEN, 0, true);
+        circuitBreaker.onResult(OPEN, 0, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire(2 * OPEN - 1));
+        assertTrue(circuitBreaker.tryAcquire(2 * OPEN));
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(0, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    }
+
+    private void call(long now, boolean failure) {
+        assertTrue(circuitBreaker.tryAcquire(now));
+        circuitBreaker.onResult(now, 0, failure);
+    }
+}
@@ -0,0 +1,102 @@
+package az.azercell.purchase.util;
+
+import az.azercell.purchase.exceptions.TokenExpiredException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtTokenUtilTest {
+
+    private static final String SECRET = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final String OTHER_SECRET = "c2VjcmV0LXRoYXQtaXMtbm90LXRoZS1jdXN0b21lci1zZXJ2aWNlLWtleQ==";
+
+    @BeforeEach
+    public void setup() {
+        JwtTokenUtil.getClaimsCache().clear();
+    }
+
+    @Test
+    public void testVerifyTokenParsesOnceAndCachesClaims() {
+        String token = token("+994501234567", 60_000, SECRET);
+
+        Claims first = JwtTokenUtil.verifyToken(token);
+        Claims second = JwtTokenUtil.verifyToken(token);
+
+        assertEquals("+994501234567", JwtTokenUtil.extractPhoneNumber(first));
+        assertSame(first, second);
+        assertEquals(1, JwtTokenUtil.getClaimsCache().size());
+    }
+
+    @Test
+    public void testExpiredTokenThrowsTokenExpiredException() {
+        String token = token("+994501234567", -60_000, SECRET);
+
+        assertThrows(TokenExpiredException.class, () -> JwtTokenUtil.verifyToken(token));
+        assertTrue(JwtTokenUtil.isTokenExpired(token));
+        assertNull(JwtTokenUtil.extractPhoneNumber(token));
+        assertEquals(0, JwtTokenUtil.getClaimsCache().size());
+    }
+
+    @Test
+    public void testTokenWithForeignSignatureIsRejected() {
+        String token = token("+994501234567", 60_000, OTHER_SECRET);
+
+        assertNull(JwtTokenUtil.verifyToken(token));
+        assertEquals(0, JwtTokenUtil.getClaimsCache().size());
+    }
+
+    @Test
+    public void testMalformedTokenIsRejected() {
+        assertNull(JwtTokenUtil.verifyToken("validToken"));
+        assertNull(JwtTokenUtil.extractPhoneNumber("validToken"));
+        assertNull(JwtTokenUtil.verifyToken(null));
+    }
+
+    @Test
+    public void testCustomerIdClaimIsOptional() {
+        String withCustomerId = Jwts.builder()
+                .setSubject("+994501234567")
+                .claim(JwtTokenUtil.CUSTOMER_ID_CLAIM, 7L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+        String withoutCustomerId = token("+994501234567", 60_000, SECRET);
+
+        assertEquals(7L, JwtTokenUtil.extractCustomerId(JwtTokenUtil.verifyToken(withCustomerId)));
+        assertNull(JwtTokenUtil.extractCustomerId(JwtTokenUtil.verifyToken(withoutCustomerId)));
+        assertNull(JwtTokenUtil.extractCustomerId((Claims) null));
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsedEntry() {
+        JwtClaimsCache cache = new JwtClaimsCache(2);
+        String first = token("1", 60_000, SECRET);
+        String second = token("2", 60_000, SECRET);
+        String third = token("3", 60_000, SECRET);
+
+        cache.put(first, JwtTokenUtil.verifyToken(first));
+        cache.put(second, JwtTokenUtil.verifyToken(second));
+        cache.get(first);
+        cache.put(third, JwtTokenUtil.verifyToken(third));
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    private static String token(String subject, long ttlMillis, String secret) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + ttlMillis))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+    }
+}
@@ -0,0 +1,41 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerTimingTest {
+
+    @Test
+    public void testStagesOutsideRequestAreNotTimed() {
+        ServerTiming.enable();
+        ServerTiming.begin().end();
+
+        assertEquals(ServerTiming.NOT_STARTED, ServerTiming.start());
+    }
+
+    @Test
+    public void testHeaderListsTimedStagesAndTotal() {
+        ServerTiming.enable();
+        ServerTiming timing = ServerTiming.begin();
+
+        ServerTiming.stop(ServerTiming.Stage.JWT, System.nanoTime() - 12_340_000);
+        ServerTiming.stop(ServerTiming.Stage.REPOSITORY, ServerTiming.start());
+        String header = timing.end();
+
+        assertTrue(header.startsWith("jwt;dur=12.3"), header);
+        assertTrue(header.matches("jwt;dur=\\d+\\.\\d{2}, (db;dur=\\d+\\.\\d{2}, )?total;dur=\\d+\\.\\d{2}"), header);
+        assertFalse(header.contains("customer-client"), header);
+    }
+
+    @Test
+    public void testContextIsResetForEachRequest() {
+        ServerTiming.enable();
+        ServerTiming.begin();
+        ServerTiming.stop(ServerTiming.Stage.JWT, System.nanoTime() - 5_000_000);
+
+        String header = ServerTiming.begin().end();
+
+        assertTrue(header.startsWith("total;dur="), header);
+    }
+}
@@ -0,0 +1,126 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final long MAX_WAIT = TimeUnit.SECONDS.toNanos(5);
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("994501234567", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "customer";
+                }, MAX_WAIT)));
+            }
+            while (singleFlight.followers() < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("customer", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.leaders());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void testSequentialCallersLoadAgain() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("994501234567", () -> "v" + loads.incrementAndGet(), MAX_WAIT);
+        String second = singleFlight.execute("994501234567", () -> "v" + loads.incrementAndGet(), MAX_WAIT);
+
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.followers());
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotKept() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("994501234567", () -> {
+                await(release);
+                throw new IllegalStateException("customer service down");
+            }, MAX_WAIT));
+            while (singleFlight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            Future<String> follower = executor.submit(() -> singleFlight.execute("994501234567", () -> "unused", MAX_WAIT));
+            while (singleFlight.followers() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : Arrays.asList(leader, follower)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertEquals("customer service down", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("fresh", singleFlight.execute("994501234567", () -> "fresh", MAX_WAIT));
+    }
+
+    @Test
+    public void testFollowerGivesUpAfterMaxWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> singleFlight.execute("994501234567", () -> {
+                await(release);
+                return "late";
+            }, MAX_WAIT));
+            while (singleFlight.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(TimeoutException.class,
+                    () -> singleFlight.execute("994501234567", () -> "unused", TimeUnit.MILLISECONDS.toNanos(50)));
+            assertEquals(1, singleFlight.timeouts());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
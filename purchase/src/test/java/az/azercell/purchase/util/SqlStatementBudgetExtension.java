@@ -0,0 +1,27 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementCounter.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        long statements = SqlStatementCounter.count();
+        SqlStatementBudget budget = AnnotationSupport
+                .findAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), SqlStatementBudget.class))
+                .orElseThrow();
+        if (statements > budget.value()) {
+            throw new AssertionError(context.getDisplayName() + " prepared " + statements
+                    + " SQL statements, over its budget of " + budget.value() + ".");
+        }
+    }
+}
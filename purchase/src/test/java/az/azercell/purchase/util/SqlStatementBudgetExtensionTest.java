@@ -0,0 +1,83 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SqlStatementBudgetExtensionTest {
+
+    private final SqlStatementBudgetExtension extension = new SqlStatementBudgetExtension();
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    public void testOverBudgetFails() throws NoSuchMethodException {
+        ExtensionContext context = context("twoStatements");
+
+        extension.beforeTestExecution(context);
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+        counter.inspect("select 3");
+
+        AssertionError error = assertThrows(AssertionError.class, () -> extension.afterTestExecution(context));
+        assertEquals("twoStatements() prepared 3 SQL statements, over its budget of 2.", error.getMessage());
+    }
+
+    @Test
+    public void testWithinBudgetPasses() throws NoSuchMethodException {
+        ExtensionContext context = context("twoStatements");
+
+        extension.beforeTestExecution(context);
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        assertDoesNotThrow(() -> extension.afterTestExecution(context));
+    }
+
+    @Test
+    public void testMethodBudgetOverridesClassBudget() throws NoSuchMethodException {
+        ExtensionContext context = context("classBudget");
+
+        extension.beforeTestExecution(context);
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        assertThrows(AssertionError.class, () -> extension.afterTestExecution(context));
+    }
+
+    @Test
+    public void testStatementsBeforeTheTestAreNotCounted() throws NoSuchMethodException {
+        ExtensionContext context = context("twoStatements");
+        counter.inspect("insert fixture 1");
+        counter.inspect("insert fixture 2");
+
+        extension.beforeTestExecution(context);
+        counter.inspect("select 1");
+
+        assertDoesNotThrow(() -> extension.afterTestExecution(context));
+    }
+
+    private static ExtensionContext context(String method) throws NoSuchMethodException {
+        Method testMethod = Budgeted.class.getDeclaredMethod(method);
+        ExtensionContext context = mock(ExtensionContext.class);
+        when(context.getRequiredTestMethod()).thenReturn(testMethod);
+        when(context.getRequiredTestClass()).thenReturn((Class) Budgeted.class);
+        when(context.getDisplayName()).thenReturn(method + "()");
+        return context;
+    }
+
+    @SqlStatementBudget(1)
+    private static class Budgeted {
+
+        @SqlStatementBudget(2)
+        void twoStatements() {
+        }
+
+        void classBudget() {
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package az.azercell.purchase.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatementCounterTest {
+
+    @Test
+    public void testCountsStatementsSinceReset() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        counter.inspect("select 1");
+        SqlStatementCounter.reset();
+
+        assertEquals("select 2", counter.inspect("select 2"));
+        counter.inspect("select 3");
+
+        assertEquals(2, SqlStatementCounter.count());
+    }
+
+    @Test
+    public void testCountsArePerThread() throws InterruptedException {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        SqlStatementCounter.reset();
+
+        Thread other = new Thread(() -> counter.inspect("select 1"));
+        other.start();
+        other.join();
+
+        assertEquals(0, SqlStatementCounter.count());
+    }
+}
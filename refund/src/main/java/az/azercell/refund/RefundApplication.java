@@ -1,13 +1,18 @@
 package az.azercell.refund;
 
+import az.azercell.refund.repository.BaseJpaSpecificationRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 @EnableSwagger2
 @EnableFeignClients
+@EnableScheduling
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = BaseJpaSpecificationRepositoryImpl.class)
 public class RefundApplication {
 
     public static void main(String[] args) {
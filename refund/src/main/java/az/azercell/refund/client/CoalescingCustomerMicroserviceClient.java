@@ -0,0 +1,80 @@
+package az.azercell.refund.client;
+
+import az.azercell.refund.dto.BalanceAdjustmentDTO;
+import az.azercell.refund.dto.CustomerDTO;
+import az.azercell.refund.exceptions.CustomerServiceUnavailableException;
+import az.azercell.refund.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lets concurrent lookups of the same GSM number share a single request to the customer service. Every caller gets
+ * its own copy of the customer, since callers update the balance on it. Balance adjustments and updates are never
+ * coalesced.
+ */
+@Component
+@Qualifier(CoalescingCustomerMicroserviceClient.QUALIFIER)
+public class CoalescingCustomerMicroserviceClient implements CustomerMicroserviceClient, MeterBinder {
+
+    public static final String QUALIFIER = "coalescingCustomerMicroserviceClient";
+
+    private static final String METRIC_PREFIX = "customer.client.single.flight.";
+    private static final String METHOD = "getCustomerByGsmNumber";
+
+    private final CustomerMicroserviceClient delegate;
+    private final SingleFlight<String, CustomerDTO> lookups = new SingleFlight<>();
+    private final long maxWaitNanos;
+
+    public CoalescingCustomerMicroserviceClient(@Qualifier(ResilientCustomerMicroserviceClient.QUALIFIER)
+                                                CustomerMicroserviceClient delegate,
+                                                @Value("${client.single-flight.max-wait:3s}") Duration maxWait) {
+        this.delegate = delegate;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @Override
+    public CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
+        CustomerDTO customer;
+        try {
+            customer = lookups.execute(gsmNumber, () -> delegate.getCustomerByGsmNumber(gsmNumber), maxWaitNanos);
+        } catch (TimeoutException e) {
+            throw new CustomerServiceUnavailableException("Timed out waiting for the customer service.");
+        }
+        return customer == null ? null : customer.toBuilder().build();
+    }
+
+    @Override
+    public void updateCustomer(CustomerDTO customerDTO, Long id) {
+        delegate.updateCustomer(customerDTO, id);
+    }
+
+    @Override
+    public BalanceAdjustmentDTO adjustBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return delegate.adjustBalance(id, adjustment);
+    }
+
+    @Override
+    public BalanceAdjustmentDTO compensateBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return delegate.compensateBalance(id, adjustment);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + "calls", lookups, SingleFlight::leaders)
+                .tag("method", METHOD).tag("role", "leader").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "calls", lookups, SingleFlight::followers)
+                .tag("method", METHOD).tag("role", "follower").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "timeouts", lookups, SingleFlight::timeouts)
+                .tag("method", METHOD).register(registry);
+        Gauge.builder(METRIC_PREFIX + "in.flight", lookups, SingleFlight::inFlight)
+                .tag("method", METHOD).register(registry);
+    }
+}
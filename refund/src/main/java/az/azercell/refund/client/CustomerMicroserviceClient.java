@@ -1,15 +1,36 @@
 package az.azercell.refund.client;
 
+import az.azercell.refund.dto.BalanceAdjustmentDTO;
 import az.azercell.refund.dto.CustomerDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
-@FeignClient(name = "customer-microservice",url = "${client.url}")
+@FeignClient(name = "customer-microservice", url = "${client.url}", primary = false,
+        qualifiers = CustomerMicroserviceClient.FEIGN_QUALIFIER)
 public interface CustomerMicroserviceClient {
 
+    /**
+     * Qualifier of the Feign proxy. Other beans get {@link CachingCustomerMicroserviceClient}, which calls it through
+     * {@link CoalescingCustomerMicroserviceClient} and {@link ResilientCustomerMicroserviceClient}.
+     */
+    String FEIGN_QUALIFIER = "customerMicroserviceFeignClient";
+
     @GetMapping(value = "/{gsmNumber}")
     CustomerDTO getCustomerByGsmNumber(@RequestParam(value="gsmNumber") String gsmNumber);
 
+
+
     @PutMapping("/{id}")
     void updateCustomer(@RequestBody CustomerDTO customerDTO, @PathVariable("id") Long id);
+
+    @PostMapping("/{id}/balance-adjustments")
+    BalanceAdjustmentDTO adjustBalance(@PathVariable("id") Long id, @RequestBody BalanceAdjustmentDTO adjustment);
+
+    /**
+     * Undoes an adjustment that was already applied, e.g. when the transaction row could not be written. Decorators
+     * must not reject it to protect the customer service: the customer would otherwise stay charged.
+     */
+    default BalanceAdjustmentDTO compensateBalance(Long id, BalanceAdjustmentDTO adjustment) {
+        return adjustBalance(id, adjustment);
+    }
 }
@@ -0,0 +1,60 @@
+package az.azercell.refund.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "client")
+public class CustomerClientProperties {
+
+    private String url;
+
+    /**
+     * Timeouts keyed by the {@code CustomerMicroserviceClient} method name. Methods without an entry use the
+     * {@code feign.client.config} defaults.
+     */
+    private Map<String, Timeout> timeouts = new HashMap<>();
+
+    private Breaker circuitBreaker = new Breaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    @Getter
+    @Setter
+    public static class Timeout {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+    }
+
+    /**
+     * Count-based circuit breaker over all calls to the customer service. 4xx responses count as successful calls.
+     */
+    @Getter
+    @Setter
+    public static class Breaker {
+        private boolean enabled = true;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedNumberOfCallsInHalfOpenState = 5;
+    }
+
+    /**
+     * Caps the calls to the customer service in flight at once, leaving the rest of the request threads free.
+     */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 25;
+        private Duration maxWaitDuration = Duration.ZERO;
+    }
+}
@@ -2,29 +2,62 @@ package az.azercell.refund.controller;
 
 import az.azercell.refund.dto.TransactionDTO;
 import az.azercell.refund.exceptions.CustomerNotFoundException;
+import az.azercell.refund.exceptions.CustomerServiceUnavailableException;
 import az.azercell.refund.exceptions.InvalidRefundAmountException;
 import az.azercell.refund.exceptions.TokenExpiredException;
 import az.azercell.refund.generic.GenericController;
 import az.azercell.refund.generic.GenericService;
 import az.azercell.refund.model.Transaction;
+import az.azercell.refund.service.IdempotencyService;
 import az.azercell.refund.service.TransactionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/refunds")
 public class RefundController extends GenericController<TransactionDTO, Transaction> {
 
+    /**
+     * customerId leads idx_transactions_customer_type_id, so it also serves customerId with transactionTypeId.
+     */
+    private static final Set<String> INDEXED_FILTER_FIELDS = new HashSet<>(Arrays.asList("id", "customerId",
+            "operatedAt"));
+    private static final Set<String> FILTERABLE_FIELDS = new HashSet<>(Arrays.asList("id", "customerId", "operatedAt",
+            "transactionTypeId", "amount"));
+    /**
+     * Column orders of idx_transactions_customer_type_id, idx_transactions_operated_at and the primary key. InnoDB
+     * ends every secondary index with the primary key, so id can follow the other columns.
+     */
+    private static final List<List<String>> SORT_INDEXES = Arrays.asList(
+            Arrays.asList("customerId", "transactionTypeId", "id"),
+            Arrays.asList("operatedAt", "id"),
+            Collections.singletonList("id"));
+
     private  TransactionService  transactionService;
+    private IdempotencyService idempotencyService;
 
-    public RefundController(GenericService<TransactionDTO, Transaction> genericService, TransactionService  transactionService) {
+    public RefundController(GenericService<TransactionDTO, Transaction> genericService, TransactionService transactionService,
+                            IdempotencyService idempotencyService) {
         super(genericService);
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/make-refund")
-    public ResponseEntity<String> makeRefund(@RequestHeader("Authorization") String jwtToken, @RequestParam double amount) {
+    public ResponseEntity<String> makeRefund(@RequestHeader("Authorization") String jwtToken, @RequestParam double amount,
+                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("make-refund", jwtToken, idempotencyKey, "amount=" + amount,
+                () -> doMakeRefund(jwtToken, amount));
+    }
+
+    private ResponseEntity<String> doMakeRefund(String jwtToken, double amount) {
         try {
             String result = transactionService.makeRefund(jwtToken, amount);
             return ResponseEntity.ok(result);
@@ -34,9 +67,26 @@ public class RefundController extends GenericController<TransactionDTO, Transact
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Customer not found.");
         } catch (InvalidRefundAmountException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid amount for refund.");
+        } catch (CustomerServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Customer service is unavailable. Try again later.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred.");
         }
     }
 
+    @Override
+    protected Set<String> getFilterableFields() {
+        return FILTERABLE_FIELDS;
+    }
+
+    @Override
+    protected Set<String> getIndexedFilterFields() {
+        return INDEXED_FILTER_FIELDS;
+    }
+
+    @Override
+    protected List<List<String>> getSortIndexes() {
+        return SORT_INDEXES;
+    }
+
 }
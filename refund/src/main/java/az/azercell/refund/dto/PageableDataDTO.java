@@ -1,5 +1,6 @@
 package az.azercell.refund.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -13,5 +14,10 @@ import lombok.Setter;
 public class PageableDataDTO {
     private Object data;
     @JsonProperty("totalCount")
-    private long totalCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean totalCountExact;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
\ No newline at end of file
@@ -1,14 +1,23 @@
 package az.azercell.refund.generic;
 
 import az.azercell.refund.repository.BaseJpaSpecificationRepository;
+import az.azercell.refund.util.KeysetCursor;
+import az.azercell.refund.util.KeysetPaginationUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Transactional
 public abstract class GenericServiceImpl<T, E> implements GenericService<T, E> {
@@ -17,6 +26,10 @@ public abstract class GenericServiceImpl<T, E> implements GenericService<T, E> {
     private final Function<E, T> entityToDtoMapper;
     protected BiFunction<T, Optional<E>, E> dtoToEntityMapper;
 
+    private Duration totalCountTtl = Duration.ofSeconds(5);
+    private long approximateCountThreshold;
+    private volatile CachedCount cachedCount;
+
     public GenericServiceImpl(BaseJpaSpecificationRepository<E, Long> repository,
                               Function<E, T> entityToDtoMapper,
                               BiFunction<T, Optional<E>, E> dtoToEntityMapper) {
@@ -25,11 +38,26 @@ public abstract class GenericServiceImpl<T, E> implements GenericService<T, E> {
         this.dtoToEntityMapper = dtoToEntityMapper;
     }
 
+    @Value("${pagination.total-count.cache-ttl:5s}")
+    public void setTotalCountTtl(Duration totalCountTtl) {
+        this.totalCountTtl = totalCountTtl;
+    }
+
+    /**
+     * Tables whose statistics report at least this many rows are not counted exactly; {@code 0} disables estimates.
+     */
+    @Value("${pagination.total-count.approximate-threshold:0}")
+    public void setApproximateCountThreshold(long approximateCountThreshold) {
+        this.approximateCountThreshold = approximateCountThreshold;
+    }
+
     @Override
     public E save(T dto) {
         E entity = dtoToEntityMapper.apply(dto, Optional.empty());
 
-        return repository.save(entity);
+        E saved = repository.save(entity);
+        invalidateTotalCount();
+        return saved;
     }
 
     @Override
@@ -57,11 +85,79 @@ public abstract class GenericServiceImpl<T, E> implements GenericService<T, E> {
         return repository.findAll(pageable).map(entityToDtoMapper);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<T> findSlice(Specification<E> spec, Pageable pageable) {
+        return repository.findSlice(spec, pageable).map(entityToDtoMapper);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TotalCount countAll() {
+        CachedCount cached = cachedCount;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.countedAt < totalCountTtl.toNanos()) {
+            return TotalCount.approximate(cached.value);
+        }
+
+        TotalCount total = null;
+        if (approximateCountThreshold > 0) {
+            long estimate = repository.estimateCount();
+            if (estimate >= approximateCountThreshold) {
+                total = TotalCount.approximate(estimate);
+            }
+        }
+        if (total == null) {
+            total = TotalCount.exact(repository.count());
+        }
+
+        cachedCount = new CachedCount(total.getValue(), now);
+        return total;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TotalCount count(Specification<E> spec) {
+        return spec == null ? countAll() : TotalCount.exact(repository.count(spec));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<T> findAll(Specification<E> spec, Sort.Order order, KeysetCursor after, int limit) {
+        Specification<E> keyset = after == null ? null : KeysetPaginationUtils.after(after);
+        List<E> rows = repository.findAll(Specification.where(spec).and(keyset), KeysetPaginationUtils.keysetSort(order), limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<E> content = hasNext ? rows.subList(0, limit) : rows;
+        String next = hasNext ? KeysetPaginationUtils.cursorOf(content.get(limit - 1), order).encode() : null;
+
+        return new CursorPage<>(content.stream().map(entityToDtoMapper).collect(Collectors.toList()), next);
+    }
+
 
     @Override
     public void delete(Long id) {
         E entity = repository.findById(id).orElseThrow(EntityNotFoundException::new);
         repository.delete(entity);
+        invalidateTotalCount();
+    }
+
+    /**
+     * Drops the cached total so the next {@link #countAll} counts again. Subclasses that write through their own
+     * repository instead of {@link #save} or {@link #delete} call this after every insert or delete.
+     */
+    protected void invalidateTotalCount() {
+        cachedCount = null;
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final long countedAt;
+
+        private CachedCount(long value, long countedAt) {
+            this.value = value;
+            this.countedAt = countedAt;
+        }
     }
 
 }
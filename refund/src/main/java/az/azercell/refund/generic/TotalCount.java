@@ -0,0 +1,26 @@
+package az.azercell.refund.generic;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Total row count of a list endpoint. {@code exact} is true only when the rows were counted for this request;
+ * cached counts and table statistics are reported as not exact.
+ */
+@Getter
+@AllArgsConstructor
+public class TotalCount
+{
+    private final long value;
+    private final boolean exact;
+
+    public static TotalCount exact(long value)
+    {
+        return new TotalCount(value, true);
+    }
+
+    public static TotalCount approximate(long value)
+    {
+        return new TotalCount(value, false);
+    }
+}
@@ -1,12 +1,24 @@
 package az.azercell.refund.repository;
 
-import az.azercell.refund.enumeration.TransactionType;
 import az.azercell.refund.model.Transaction;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 public interface TransactionRepository extends BaseJpaSpecificationRepository<Transaction,Long>{
 
     List<Transaction> findByCustomerId(Long customerId);
 
+    Optional<Transaction> findFirstByCustomerIdAndTransactionTypeIdOrderByIdDesc(Long customerId, Integer transactionTypeId);
+
+    @Query("select coalesce(sum(t.amount), 0) from Transaction t " +
+            "where t.customerId = :customerId and t.transactionTypeId = :transactionTypeId " +
+            "and (:parentId is null or t.parentId = :parentId)")
+    BigDecimal sumAmount(@Param("customerId") Long customerId,
+                         @Param("transactionTypeId") Integer transactionTypeId,
+                         @Param("parentId") Long parentId);
+
 }
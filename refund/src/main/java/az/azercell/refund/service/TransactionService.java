@@ -1,6 +1,7 @@
 package az.azercell.refund.service;
 
 import az.azercell.refund.client.CustomerMicroserviceClient;
+import az.azercell.refund.dto.BalanceAdjustmentDTO;
 import az.azercell.refund.dto.CustomerDTO;
 import az.azercell.refund.dto.TransactionDTO;
 import az.azercell.refund.enumeration.CreatedBy;
@@ -10,50 +11,90 @@ import az.azercell.refund.exceptions.InvalidRefundAmountException;
 import az.azercell.refund.generic.GenericServiceImpl;
 import az.azercell.refund.model.Transaction;
 import az.azercell.refund.repository.TransactionRepository;
-import az.azercell.refund.util.JwtTokenUtil;
+import az.azercell.refund.service.TransactionPipelineMetrics.Outcome;
+import az.azercell.refund.service.TransactionPipelineMetrics.Stage;
+import feign.FeignException;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-
 import java.util.Optional;
 
-import static az.azercell.refund.util.CalculateBalance.calculateNewBalance;
-import static az.azercell.refund.util.JwtTokenUtil.validateToken;
+import static az.azercell.refund.util.CalculateBalance.calculateBalanceDelta;
+import static az.azercell.refund.util.JwtTokenUtil.extractCustomerId;
+import static az.azercell.refund.util.JwtTokenUtil.extractPhoneNumber;
+import static az.azercell.refund.util.JwtTokenUtil.verifyToken;
 import static az.azercell.refund.util.TransactionValidationHelper.validateCustomer;
 
 
+@Slf4j
 @Service
 public class TransactionService extends GenericServiceImpl<TransactionDTO, Transaction> {
     private final TransactionRepository repository;
     private final CustomerMicroserviceClient customerMicroserviceClient;
+    private final TransactionPipelineMetrics metrics;
 
     public TransactionService(TransactionRepository repository,
-                              CustomerMicroserviceClient customerMicroserviceClient) {
+                              CustomerMicroserviceClient customerMicroserviceClient,
+                              TransactionPipelineMetrics metrics) {
         super(repository, TransactionDTO::new, TransactionService::dtoToEntity);
         this.repository = repository;
         this.customerMicroserviceClient = customerMicroserviceClient;
+        this.metrics = metrics;
     }
 
     public String makeRefund(String jwtToken, double amount) {
+        long started = System.nanoTime();
+        try {
+            String result = refund(jwtToken, amount, started);
+            metrics.outcome(Outcome.SUCCESS, started);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failure(e, started);
+            throw e;
+        }
+    }
 
-        validateToken(jwtToken);
+    private String refund(String jwtToken, double amount, long started) {
+        Claims claims = verifyToken(jwtToken);
+        long stageStarted = metrics.stage(Stage.TOKEN_VALIDATION, started);
 
-        String gsmNumber = extractPhoneNumberFromToken(jwtToken);
-        CustomerDTO customer = getCustomerByGsmNumber(gsmNumber);
+        CustomerDTO customer = resolveCustomer(claims);
         validateCustomer(customer);
+        stageStarted = metrics.stage(Stage.CUSTOMER_LOOKUP, stageStarted);
 
         Transaction transaction = getLastPurchaseTransaction(customer.getId());
         validateRefundAmount(amount, transaction);
-
-        BigDecimal newBalance = calculateNewBalance(customer.getBalance(), amount);
-        saveTransaction(customer, amount, newBalance, transaction.getId());
-        updateCustomerBalance(customer, newBalance);
+        stageStarted = metrics.stage(Stage.VALIDATION, stageStarted);
+
+        BalanceAdjustmentDTO adjustment = adjustCustomerBalance(customer, calculateBalanceDelta(amount));
+        stageStarted = metrics.stage(Stage.BALANCE_UPDATE, stageStarted);
+        try {
+            saveTransaction(customer, amount, adjustment, transaction.getId());
+        } catch (RuntimeException e) {
+            revertCustomerBalance(customer, adjustment, e);
+            throw e;
+        }
+        metrics.stage(Stage.TRANSACTION_INSERT, stageStarted);
 
         return "Refund successful. Refund transaction: " + amount;
     }
 
+    /**
+     * A token minted at login carries the customer id, which is all the balance adjustment needs. Older tokens only
+     * carry the GSM number, which still costs a customer lookup.
+     */
+    protected CustomerDTO resolveCustomer(Claims claims) {
+        Long customerId = extractCustomerId(claims);
+        if (customerId != null) {
+            return CustomerDTO.builder().id(customerId).build();
+        }
+        return getCustomerByGsmNumber(extractPhoneNumber(claims));
+    }
+
     protected CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
         CustomerDTO customer = customerMicroserviceClient.getCustomerByGsmNumber(gsmNumber);
         if (customer == null) {
@@ -63,35 +104,54 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
     }
 
 
-    protected void updateCustomerBalance(CustomerDTO customer, BigDecimal newBalance) {
-        customer.setBalance(newBalance);
-        customerMicroserviceClient.updateCustomer(customer, customer.getId());
+    protected BalanceAdjustmentDTO adjustCustomerBalance(CustomerDTO customer, BigDecimal delta) {
+        try {
+            BalanceAdjustmentDTO adjustment = customerMicroserviceClient.adjustBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+            customer.setBalance(adjustment.getBalanceAfter());
+            return adjustment;
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_FOUND.value()) {
+                throw new CustomerNotFoundException("Customer not found.");
+            }
+            if (e.status() == HttpStatus.UNPROCESSABLE_ENTITY.value()) {
+                throw new InvalidRefundAmountException("Invalid amount for refund.");
+            }
+            throw e;
+        }
     }
 
-    protected String extractPhoneNumberFromToken(String jwtToken) {
-        return JwtTokenUtil.extractPhoneNumber(jwtToken);
+    /**
+     * Credits back {@code adjustment} after the transaction row could not be written. A failed compensation is logged
+     * for reconciliation and attached to {@code cause}, which stays the error the caller sees.
+     */
+    protected void revertCustomerBalance(CustomerDTO customer, BalanceAdjustmentDTO adjustment,
+                                         RuntimeException cause) {
+        BigDecimal delta = adjustment.getDelta().negate();
+        try {
+            customerMicroserviceClient.compensateBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+        } catch (RuntimeException e) {
+            log.error("Could not revert a balance adjustment of {} for customer {}; the balance needs reconciling",
+                    adjustment.getDelta(), customer.getId(), e);
+            cause.addSuppressed(e);
+        }
     }
 
     protected void validateRefundAmount(double amount, Transaction transaction) {
         double lastPurchase = transaction.getAmount().doubleValue();
         double totalRefund = getTotalRefund(transaction.getId(), transaction.getCustomerId());
 
-        if (amount > 0.01 || amount > (lastPurchase - totalRefund)) {
+        if (amount < 0.01 || amount > (lastPurchase - totalRefund)) {
             throw new InvalidRefundAmountException("Invalid amount for refund.");
         }
     }
 
 
     protected double getTotalRefund(Long parentId, Long customerId) {
-        return repository.findByCustomerId(customerId).stream()
-                .filter(transaction -> transaction.getTransactionTypeId() == TransactionType.REFUND.getOrder() &&
-                        (parentId == null || parentId.equals(transaction.getParentId())))
-                .mapToDouble(transaction -> transaction.getAmount().doubleValue())
-                .sum();
+        return repository.sumAmount(customerId, TransactionType.REFUND.getOrder(), parentId).doubleValue();
     }
 
-    protected void saveTransaction(CustomerDTO customer, double amount, BigDecimal newBalance, Long transactionId) {
-        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, newBalance, transactionId);
+    protected void saveTransaction(CustomerDTO customer, double amount, BalanceAdjustmentDTO adjustment, Long transactionId) {
+        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, adjustment, transactionId);
         save(transactionDTO);
     }
 
@@ -100,18 +160,13 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
     public Transaction save(TransactionDTO dto) {
         Transaction entity = dtoToEntity(dto, Optional.empty());
         Transaction saved = repository.save(entity);
+        invalidateTotalCount();
         return saved;
     }
 
     protected Transaction getLastPurchaseTransaction(Long customerId) {
-        List<Transaction> transactionList = repository.findByCustomerId(customerId);
-        Transaction transaction = transactionList.stream()
-                .filter(transaction1 -> TransactionType.OUT.getOrder() == transaction1.getTransactionTypeId())
-                .reduce((first, last) -> last)
-                .orElse(null);
-
-        assert transaction != null;
-        return transaction;
+        return repository.findFirstByCustomerIdAndTransactionTypeIdOrderByIdDesc(customerId, TransactionType.OUT.getOrder())
+                .orElseThrow(() -> new InvalidRefundAmountException("No purchase found to refund."));
     }
 
     protected static Transaction dtoToEntity(TransactionDTO dto, Optional<Transaction> existingEntity) {
@@ -131,12 +186,12 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
 
     private static TransactionDTO customerToTransactionDTO(CustomerDTO customer,
                                                            Optional<TransactionDTO> existingDto,
-                                                           double amount, BigDecimal newBalance, Long id) {
+                                                           double amount, BalanceAdjustmentDTO adjustment, Long id) {
         TransactionDTO dto = existingDto.orElseGet(TransactionDTO::new);
         dto.setAmount(BigDecimal.valueOf(amount));
-        dto.setAfterAmount(customer.getBalance());
+        dto.setBeforeAmount(adjustment.getBalanceBefore());
+        dto.setAfterAmount(adjustment.getBalanceAfter());
         dto.setParentId(id);
-        dto.setBeforeAmount(newBalance);
         dto.setOperatedAt(LocalDateTime.now());
         dto.setTransactionTypeId(TransactionType.REFUND.getOrder());
         dto.setCustomerId(customer.getId());
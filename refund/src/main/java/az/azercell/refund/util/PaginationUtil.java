@@ -1,5 +1,6 @@
 package az.azercell.refund.util;
 
+import az.azercell.refund.generic.TotalCount;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -9,17 +10,20 @@ import java.text.MessageFormat;
 public interface PaginationUtil
 {
     String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+    String HEADER_X_TOTAL_COUNT_EXACT = "X-Total-Count-Exact";
     String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
 
-    static <T> HttpHeaders generatePaginationHttpHeaders(UriComponentsBuilder uriBuilder, Page<T> page)
+    static <T> HttpHeaders generatePaginationHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice, TotalCount total)
     {
         HttpHeaders headers = new HttpHeaders();
-        headers.add(HEADER_X_TOTAL_COUNT, Long.toString(page.getTotalElements()));
-        int           pageNumber = page.getNumber();
-        int           pageSize   = page.getSize();
+        headers.add(HEADER_X_TOTAL_COUNT, Long.toString(total.getValue()));
+        headers.add(HEADER_X_TOTAL_COUNT_EXACT, Boolean.toString(total.isExact()));
+        int           pageNumber = slice.getNumber();
+        int           pageSize   = slice.getSize();
+        int           totalPages = (int) Math.max(1, (total.getValue() + pageSize - 1) / pageSize);
         StringBuilder link       = new StringBuilder();
 
-        if (pageNumber < page.getTotalPages() - 1)
+        if (slice.hasNext())
         {
             link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
         }
@@ -30,7 +34,7 @@ public interface PaginationUtil
         }
 
         link
-            .append(prepareLink(uriBuilder, page.getTotalPages() - 1, pageSize, "last"))
+            .append(prepareLink(uriBuilder, Math.max(totalPages - 1, pageNumber), pageSize, "last"))
             .append(",")
             .append(prepareLink(uriBuilder, 0, pageSize, "first"));
 
@@ -39,6 +43,61 @@ public interface PaginationUtil
         return headers;
     }
 
+    /**
+     * Headers for a page returned without a total: there is no {@code X-Total-Count} and no {@code last} link.
+     */
+    static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice)
+    {
+        HttpHeaders   headers    = new HttpHeaders();
+        int           pageNumber = slice.getNumber();
+        int           pageSize   = slice.getSize();
+        StringBuilder link       = new StringBuilder();
+
+        if (slice.hasNext())
+        {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+
+        if (pageNumber > 0)
+        {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+
+        link.append(prepareLink(uriBuilder, 0, pageSize, "first"));
+
+        headers.add("Link", link.toString());
+
+        return headers;
+    }
+
+    static HttpHeaders generateCursorHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor, int pageSize)
+    {
+        HttpHeaders   headers = new HttpHeaders();
+        StringBuilder link    = new StringBuilder();
+
+        if (nextCursor != null)
+        {
+            link.append(prepareCursorLink(uriBuilder, nextCursor, pageSize, "next")).append(",");
+        }
+
+        link.append(prepareCursorLink(uriBuilder, "", pageSize, "first"));
+
+        headers.add("Link", link.toString());
+
+        return headers;
+    }
+
+    private static String prepareCursorLink(UriComponentsBuilder uriBuilder, String cursor, int pageSize, String relType)
+    {
+        String uri = uriBuilder
+            .replaceQueryParam("skip")
+            .replaceQueryParam("after", cursor)
+            .replaceQueryParam("take", Integer.toString(pageSize))
+            .toUriString().replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+
     private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType)
     {
         return MessageFormat.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, pageNumber, pageSize), relType);
@@ -47,8 +106,8 @@ public interface PaginationUtil
     private static String preparePageUri(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize)
     {
         return uriBuilder
-            .replaceQueryParam("offset", Integer.toString(pageNumber))
-            .replaceQueryParam("limit", Integer.toString(pageSize))
+            .replaceQueryParam("skip", Integer.toString(pageNumber * pageSize))
+            .replaceQueryParam("take", Integer.toString(pageSize))
             .toUriString().replace(",", "%2C")
             .replace(";", "%3B");
     }
@@ -3,6 +3,7 @@ package az.azercell.refund.controller;
 import az.azercell.refund.exceptions.CustomerNotFoundException;
 import az.azercell.refund.exceptions.InvalidRefundAmountException;
 import az.azercell.refund.exceptions.TokenExpiredException;
+import az.azercell.refund.service.IdempotencyService;
 import az.azercell.refund.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.function.Supplier;
+
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -35,10 +38,14 @@ public class RefundControllerTest {
     private RefundController refundController;
     @Mock
     private TransactionService transactionService;
+    @Mock
+    private IdempotencyService idempotencyService;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<String>>>getArgument(4).get());
         mockMvc = MockMvcBuilders.standaloneSetup(refundController).build();
     }
 
@@ -48,7 +55,7 @@ public class RefundControllerTest {
         when(transactionService.makeRefund(anyString(), anyDouble())).thenReturn("Refund successful.");
 
         // Perform the test
-        ResponseEntity<String> response = refundController.makeRefund("mockedToken", 50.0);
+        ResponseEntity<String> response = refundController.makeRefund("mockedToken", 50.0, null);
 
         // Assert the response
         assertAll(() -> {
@@ -63,7 +70,7 @@ public class RefundControllerTest {
 
         when(transactionService.makeRefund(anyString(), anyDouble())).thenReturn("Refund successful.");
 
-        ResponseEntity<String> response = refundController.makeRefund("mockedToken", 50.0);
+        ResponseEntity<String> response = refundController.makeRefund("mockedToken", 50.0, null);
 
         assertAll(() -> {
             verify(transactionService, times(1)).makeRefund(anyString(), anyDouble());
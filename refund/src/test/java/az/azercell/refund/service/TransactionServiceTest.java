@@ -1,6 +1,7 @@
 package az.azercell.refund.service;
 
 import az.azercell.refund.client.CustomerMicroserviceClient;
+import az.azercell.refund.dto.BalanceAdjustmentDTO;
 import az.azercell.refund.dto.CustomerDTO;
 import az.azercell.refund.dto.TransactionDTO;
 import az.azercell.refund.enumeration.CreatedBy;
@@ -71,7 +72,8 @@ public class TransactionServiceTest {
         when(customerMicroserviceClient.getCustomerByGsmNumber("123456789")).thenReturn(customer);
 
         // create TransactionService and inject mock customerMicroserviceClient
-        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient);
+        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient,
+                new TransactionPipelineMetrics());
 
         // call method for test
         CustomerDTO result = transactionService.getCustomerByGsmNumber("123456789");
@@ -91,7 +93,8 @@ public class TransactionServiceTest {
 
         when(customerMicroserviceClient.getCustomerByGsmNumber("987654321")).thenReturn(null);
 
-        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient);
+        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient,
+                new TransactionPipelineMetrics());
 
         assertThrows(CustomerNotFoundException.class, () -> transactionService.getCustomerByGsmNumber("987654321"));
 
@@ -99,7 +102,7 @@ public class TransactionServiceTest {
     }
 
     @Test
-    public void testUpdateCustomerBalance_SuccessfulUpdate() {
+    public void testAdjustCustomerBalance_SuccessfulUpdate() {
         CustomerDTO customer = new CustomerDTO();
         customer.setId(1L);
         customer.setName("Julian");
@@ -108,15 +111,20 @@ public class TransactionServiceTest {
 
         CustomerMicroserviceClient customerMicroserviceClient = mock(CustomerMicroserviceClient.class);
 
-        doNothing().when(customerMicroserviceClient).updateCustomer(any(CustomerDTO.class), anyLong());
+        BigDecimal delta = BigDecimal.valueOf(50);
+        BigDecimal newBalance = BigDecimal.valueOf(150);
+        when(customerMicroserviceClient.adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class)))
+                .thenReturn(new BalanceAdjustmentDTO(1L, delta, BigDecimal.valueOf(100), newBalance));
 
-        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient);
+        TransactionService transactionService = new TransactionService(null, customerMicroserviceClient,
+                new TransactionPipelineMetrics());
 
-        BigDecimal newBalance = BigDecimal.valueOf(150);
-        transactionService.updateCustomerBalance(customer, newBalance);
+        BalanceAdjustmentDTO adjustment = transactionService.adjustCustomerBalance(customer, delta);
 
-        verify(customerMicroserviceClient, times(1)).updateCustomer(customer, customer.getId());
+        verify(customerMicroserviceClient, times(1)).adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class));
+        verify(customerMicroserviceClient, never()).updateCustomer(any(CustomerDTO.class), anyLong());
 
+        Assertions.assertEquals(newBalance, adjustment.getBalanceAfter());
         Assertions.assertEquals(newBalance, customer.getBalance());
     }
 
@@ -133,29 +141,38 @@ public class TransactionServiceTest {
         Assertions.assertEquals("Invalid amount for refund.", exception.getMessage());
     }
 
+    @Test
+    public void testValidateRefundAmount_WithinLastPurchase() {
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        transaction.setCustomerId(1L);
+        transaction.setAmount(BigDecimal.valueOf(100));
+        when(transactionRepository.sumAmount(1L, TransactionType.REFUND.getOrder(), 1L))
+                .thenReturn(BigDecimal.valueOf(40));
+
+        assertDoesNotThrow(() -> transactionService.validateRefundAmount(60.0, transaction));
+        assertThrows(InvalidRefundAmountException.class,
+                () -> transactionService.validateRefundAmount(60.01, transaction));
+        assertThrows(InvalidRefundAmountException.class,
+                () -> transactionService.validateRefundAmount(0.0, transaction));
+    }
+
 
     @Test
     public void testGetTotalRefund_SpecificParentId() {
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(createTransaction(1L, 100.0));
-        transactions.add(createTransaction(2L, 50.0));
-        transactions.add(createTransaction(1L, 75.0));
-
-        when(transactionRepository.findByCustomerId(anyLong())).thenReturn(transactions);
+        when(transactionRepository.sumAmount(1L, TransactionType.REFUND.getOrder(), 1L))
+                .thenReturn(BigDecimal.valueOf(175.0));
 
         double totalRefund = transactionService.getTotalRefund(1L, 1L);
 
         Assertions.assertEquals(175.0, totalRefund, 0.01);
+        verify(transactionRepository, never()).findByCustomerId(anyLong());
     }
 
     @Test
     public void testGetTotalRefund_NoParentId() {
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(createTransaction(null, 100.0));
-        transactions.add(createTransaction(null, 50.0));
-        transactions.add(createTransaction(null, 75.0));
-
-        when(transactionRepository.findByCustomerId(anyLong())).thenReturn(transactions);
+        when(transactionRepository.sumAmount(1L, TransactionType.REFUND.getOrder(), null))
+                .thenReturn(BigDecimal.valueOf(225.0));
 
         double totalRefund = transactionService.getTotalRefund(null, 1L);
 
@@ -164,15 +181,37 @@ public class TransactionServiceTest {
 
     @Test
     public void testGetTotalRefund_NoData() {
-        List<Transaction> transactions = new ArrayList<>();
-
-        when(transactionRepository.findByCustomerId(anyLong())).thenReturn(transactions);
+        when(transactionRepository.sumAmount(1L, TransactionType.REFUND.getOrder(), null))
+                .thenReturn(BigDecimal.ZERO);
 
         double totalRefund = transactionService.getTotalRefund(null, 1L);
 
         Assertions.assertEquals(0.0, totalRefund, 0.01);
     }
 
+    @Test
+    public void testGetLastPurchaseTransaction() {
+        Transaction purchase = createTransaction(null, 100.0);
+        purchase.setId(7L);
+        purchase.setTransactionTypeId(TransactionType.OUT.getOrder());
+
+        when(transactionRepository.findFirstByCustomerIdAndTransactionTypeIdOrderByIdDesc(1L, TransactionType.OUT.getOrder()))
+                .thenReturn(Optional.of(purchase));
+
+        Transaction result = transactionService.getLastPurchaseTransaction(1L);
+
+        Assertions.assertEquals(7L, result.getId());
+        verify(transactionRepository, never()).findByCustomerId(anyLong());
+    }
+
+    @Test
+    public void testGetLastPurchaseTransaction_NoPurchase() {
+        when(transactionRepository.findFirstByCustomerIdAndTransactionTypeIdOrderByIdDesc(1L, TransactionType.OUT.getOrder()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThrows(InvalidRefundAmountException.class, () -> transactionService.getLastPurchaseTransaction(1L));
+    }
+
     protected Transaction createTransaction(Long parentId, double amount) {
         Transaction transaction = new Transaction();
         transaction.setParentId(parentId);
@@ -186,18 +225,19 @@ public class TransactionServiceTest {
     public void testSaveTransaction_SuccessfulSave() {
         CustomerDTO customer = createCustomer(1L, "Alice", "Johnson", BigDecimal.valueOf(100));
         double amount = 50.0;
-        BigDecimal newBalance = BigDecimal.valueOf(50);
+        BalanceAdjustmentDTO adjustment = new BalanceAdjustmentDTO(customer.getId(), BigDecimal.valueOf(amount),
+                BigDecimal.valueOf(100), BigDecimal.valueOf(150));
         Long transactionId = 1L;
 
         TransactionDTO transactionDTO = new TransactionDTO();
         transactionDTO.setCustomerId(customer.getId());
         transactionDTO.setAmount(BigDecimal.valueOf(amount));
-        transactionDTO.setBeforeAmount(newBalance);
+        transactionDTO.setBeforeAmount(adjustment.getBalanceBefore());
         transactionDTO.setParentId(transactionId);
 
         when(transactionRepository.save(any(Transaction.class))).thenReturn(new Transaction());
 
-        transactionService.saveTransaction(customer, amount, newBalance, transactionId);
+        transactionService.saveTransaction(customer, amount, adjustment, transactionId);
 
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
@@ -206,10 +246,11 @@ public class TransactionServiceTest {
     public void testSaveTransaction_InvalidCustomer() {
         CustomerDTO invalidCustomer = null;
         double amount = 50.0;
-        BigDecimal newBalance = BigDecimal.valueOf(50);
+        BalanceAdjustmentDTO adjustment = new BalanceAdjustmentDTO(1L, BigDecimal.valueOf(amount),
+                BigDecimal.valueOf(100), BigDecimal.valueOf(150));
         Long transactionId = 1L;
 
-        assertThrows(NullPointerException.class, () -> transactionService.saveTransaction(invalidCustomer, amount, newBalance, transactionId));
+        assertThrows(NullPointerException.class, () -> transactionService.saveTransaction(invalidCustomer, amount, adjustment, transactionId));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
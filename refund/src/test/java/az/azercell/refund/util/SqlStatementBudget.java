@@ -0,0 +1,22 @@
+package az.azercell.refund.util;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test whose method body prepares more SQL statements on the test thread than {@link #value}, as counted by
+ * {@link SqlStatementCounter}; fixtures written in {@code @BeforeEach} are not counted. The counter only sees
+ * statements that reach Hibernate, so the budget means nothing for a test that mocks its repositories. On a class it
+ * is the budget of every test; on a method it overrides the class budget.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    int value();
+}
@@ -1,16 +1,21 @@
 package az.azercell.topup;
 
+import az.azercell.topup.repository.BaseJpaSpecificationRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.cloud.openfeign.FeignAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 @EnableSwagger2
 @EnableFeignClients
+@EnableScheduling
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = BaseJpaSpecificationRepositoryImpl.class)
 public class TopUpApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,55 @@
+package az.azercell.topup.config;
+
+import az.azercell.topup.client.MethodTimeoutClient;
+import feign.Client;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Replaces the default {@code HttpURLConnection} transport of the Feign clients with the pooled, keep-alive
+ * Apache client configured through {@code feign.httpclient.*}.
+ */
+@Configuration
+@EnableConfigurationProperties(CustomerClientProperties.class)
+public class FeignClientConfig {
+
+    private static final String POOL_METRIC_PREFIX = "customer.client.pool.";
+
+    @Bean
+    public Client feignClient(HttpClient httpClient, CustomerClientProperties properties) {
+        return new MethodTimeoutClient(new ApacheHttpClient(httpClient), properties.getTimeouts());
+    }
+
+    @Bean
+    public MeterBinder customerClientPoolMetrics(HttpClientConnectionManager connectionManager) {
+        return registry -> {
+            if (!(connectionManager instanceof PoolingHttpClientConnectionManager)) {
+                return;
+            }
+            PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager) connectionManager;
+            registerPoolGauge(registry, pool, "leased", PoolStats::getLeased);
+            registerPoolGauge(registry, pool, "pending", PoolStats::getPending);
+            registerPoolGauge(registry, pool, "idle", PoolStats::getAvailable);
+            registerPoolGauge(registry, pool, "max", PoolStats::getMax);
+        };
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry,
+                                          PoolingHttpClientConnectionManager pool,
+                                          String name, ToIntFunction<PoolStats> stat) {
+        Gauge.builder(POOL_METRIC_PREFIX + name, pool, p -> stat.applyAsInt(p.getTotalStats()))
+                .tag("client", "customer-microservice")
+                .register(registry);
+    }
+}
@@ -2,31 +2,64 @@ package az.azercell.topup.controller;
 
 import az.azercell.topup.dto.TransactionDTO;
 import az.azercell.topup.exceptions.CustomerNotFoundException;
+import az.azercell.topup.exceptions.CustomerServiceUnavailableException;
 import az.azercell.topup.exceptions.InvalidRefundAmountException;
 import az.azercell.topup.exceptions.TokenExpiredException;
 import az.azercell.topup.generic.GenericController;
 import az.azercell.topup.generic.GenericService;
 import az.azercell.topup.model.Transaction;
+import az.azercell.topup.service.IdempotencyService;
 import az.azercell.topup.service.TransactionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/top-ups")
 public class TopUpController extends GenericController<TransactionDTO, Transaction> {
 
+    /**
+     * customerId leads idx_transactions_customer_type_id, so it also serves customerId with transactionTypeId.
+     */
+    private static final Set<String> INDEXED_FILTER_FIELDS = new HashSet<>(Arrays.asList("id", "customerId",
+            "operatedAt"));
+    private static final Set<String> FILTERABLE_FIELDS = new HashSet<>(Arrays.asList("id", "customerId", "operatedAt",
+            "transactionTypeId", "amount"));
+    /**
+     * Column orders of idx_transactions_customer_type_id, idx_transactions_operated_at and the primary key. InnoDB
+     * ends every secondary index with the primary key, so id can follow the other columns.
+     */
+    private static final List<List<String>> SORT_INDEXES = Arrays.asList(
+            Arrays.asList("customerId", "transactionTypeId", "id"),
+            Arrays.asList("operatedAt", "id"),
+            Collections.singletonList("id"));
+
 
     private TransactionService transactionService;
+    private IdempotencyService idempotencyService;
 
-    public TopUpController(GenericService<TransactionDTO, Transaction> genericService,TransactionService transactionService) {
+    public TopUpController(GenericService<TransactionDTO, Transaction> genericService,TransactionService transactionService,
+                           IdempotencyService idempotencyService) {
         super(genericService);
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/add-funds")
     public ResponseEntity<String> addFunds(@RequestHeader("Authorization") String jwtToken,
-                                           @RequestParam double amount) {
+                                           @RequestParam double amount,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("add-funds", jwtToken, idempotencyKey, "amount=" + amount,
+                () -> doAddFunds(jwtToken, amount));
+    }
+
+    private ResponseEntity<String> doAddFunds(String jwtToken, double amount) {
         try {
             String result = transactionService.addFunds(jwtToken, amount);
             return ResponseEntity.ok(result);
@@ -36,9 +69,26 @@ public class TopUpController extends GenericController<TransactionDTO, Transacti
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Customer not found.");
         } catch (InvalidRefundAmountException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid amount for TopUp.");
+        } catch (CustomerServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Customer service is unavailable. Try again later.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred.");
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getFilterableFields() {
+        return FILTERABLE_FIELDS;
+    }
+
+    @Override
+    protected Set<String> getIndexedFilterFields() {
+        return INDEXED_FILTER_FIELDS;
+    }
+
+    @Override
+    protected List<List<String>> getSortIndexes() {
+        return SORT_INDEXES;
+    }
+
+}
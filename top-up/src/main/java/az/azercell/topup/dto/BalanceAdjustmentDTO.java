@@ -0,0 +1,37 @@
+package az.azercell.topup.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceAdjustmentDTO {
+
+    private Long customerId;
+
+    private BigDecimal delta;
+
+    private BigDecimal balanceBefore;
+
+    private BigDecimal balanceAfter;
+
+    /**
+     * {@code updatedAt} of the customer's profile, which balance changes leave untouched.
+     */
+    private LocalDateTime customerUpdatedAt;
+
+    public BalanceAdjustmentDTO(Long customerId, BigDecimal delta, BigDecimal balanceBefore, BigDecimal balanceAfter) {
+        this(customerId, delta, balanceBefore, balanceAfter, null);
+    }
+
+    public static BalanceAdjustmentDTO of(BigDecimal delta) {
+        BalanceAdjustmentDTO dto = new BalanceAdjustmentDTO();
+        dto.setDelta(delta);
+        return dto;
+    }
+}
@@ -0,0 +1,7 @@
+package az.azercell.topup.exceptions;
+
+public class CustomerServiceUnavailableException extends RuntimeException {
+    public CustomerServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -25,4 +25,10 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
     }
 
+    @ExceptionHandler(CustomerServiceUnavailableException.class)
+    public ResponseEntity<ExceptionResponse> handleUnavailableException(CustomerServiceUnavailableException ex) {
+        ExceptionResponse response = new ExceptionResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
 }
@@ -1,10 +1,33 @@
 package az.azercell.topup.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
 
 @NoRepositoryBean
 public interface BaseJpaSpecificationRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T>
 {
+    /**
+     * Returns at most {@code limit} entities matching the specification, without the count query a {@code Page}
+     * would issue.
+     */
+    List<T> findAll(@Nullable Specification<T> spec, Sort sort, int limit);
+
+    /**
+     * Returns the requested page as a {@link Slice}: one extra row is fetched to detect a next page instead of
+     * counting the table.
+     */
+    Slice<T> findSlice(@Nullable Specification<T> spec, Pageable pageable);
+
+    /**
+     * Row count estimate from the table statistics, or {@code -1} when the database does not provide one.
+     */
+    long estimateCount();
 }
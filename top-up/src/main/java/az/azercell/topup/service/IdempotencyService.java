@@ -0,0 +1,259 @@
+package az.azercell.topup.service;
+
+import az.azercell.topup.model.IdempotencyRecord;
+import az.azercell.topup.repository.IdempotencyRecordRepository;
+import az.azercell.topup.util.JwtTokenUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a money-moving request at most once per {@code Idempotency-Key}. Duplicates get the stored response back
+ * without reaching the customer service or the {@code transactions} table.
+ * <p>
+ * Keys are scoped to the endpoint and the GSM number of the caller. Recent keys live in memory, where a duplicate that
+ * arrives while the first request is still running waits for its result; the {@code idempotency_keys} table makes
+ * the outcome survive restarts and be shared between instances.
+ * <p>
+ * A key is only released for another attempt after a 503 response, which the controllers return when the customer
+ * service was never called (open circuit breaker, full bulkhead). Any other server error, an exception, or a crash
+ * may have happened after the balance moved, so the claim is kept incomplete and duplicates get 409 until it is
+ * reconciled by hand (deleting the row, or storing the outcome) or {@code idempotency.ttl} sweeps it.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final int RELEASED_STATUS = 503;
+
+    private final IdempotencyRecordRepository repository;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration memoryTtl;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              @Value("${idempotency.memory-ttl:10m}") Duration memoryTtl,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.in-flight-timeout:30s}") Duration inFlightTimeout) {
+        this.repository = repository;
+        this.memoryTtl = memoryTtl;
+        this.ttl = ttl;
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same key has already been handled for this caller. Without a key,
+     * or when the token does not identify a caller, {@code action} simply runs.
+     *
+     * @param scope       endpoint name, e.g. {@code make-purchase}
+     * @param fingerprint the request parameters; reusing a key with different parameters is rejected
+     * @throws ResponseStatusException 400 for a malformed key, 409 while the original request is still running or its
+     *                                 outcome is unknown, and 422 when the key was used for a different request
+     */
+    public ResponseEntity<String> execute(String scope, String jwtToken, String idempotencyKey, String fingerprint,
+                                          Supplier<ResponseEntity<String>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.trim().isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+
+        String gsmNumber = JwtTokenUtil.extractPhoneNumber(jwtToken);
+        if (gsmNumber == null) {
+            return action.get();
+        }
+
+        String durableScope = scope + ":" + gsmNumber;
+        String entryKey = durableScope + "\n" + idempotencyKey;
+
+        while (true) {
+            Entry entry = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(entryKey, entry);
+
+            if (existing == null) {
+                return runOnce(entryKey, entry, durableScope, idempotencyKey, fingerprint, action);
+            }
+            if (existing.isExpired(System.nanoTime())) {
+                entries.remove(entryKey, existing);
+                continue;
+            }
+            return replay(await(existing, fingerprint));
+        }
+    }
+
+    private ResponseEntity<String> runOnce(String entryKey, Entry entry, String scope, String idempotencyKey,
+                                           String fingerprint, Supplier<ResponseEntity<String>> action) {
+        ResponseEntity<String> response;
+        try {
+            response = executeDurably(scope, idempotencyKey, fingerprint, action);
+        } catch (RuntimeException | Error e) {
+            entries.remove(entryKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+
+        if (isReleased(response)) {
+            entries.remove(entryKey, entry);
+            entry.response.complete(response);
+        } else if (response.getStatusCode().is5xxServerError()) {
+            entry.expiresAt = System.nanoTime() + memoryTtl.toNanos();
+            entry.response.completeExceptionally(outcomeUnknown());
+        } else {
+            entry.expiresAt = System.nanoTime() + memoryTtl.toNanos();
+            entry.response.complete(response);
+        }
+        return response;
+    }
+
+    private ResponseEntity<String> executeDurably(String scope, String idempotencyKey, String fingerprint,
+                                                  Supplier<ResponseEntity<String>> action) {
+        Optional<IdempotencyRecord> stored = repository.findByScopeAndIdempotencyKey(scope, idempotencyKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), fingerprint);
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord(scope, idempotencyKey, fingerprint, LocalDateTime.now());
+        try {
+            repository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance claimed the key between the lookup and the insert.
+            return repository.findByScopeAndIdempotencyKey(scope, idempotencyKey)
+                    .map(winner -> replay(winner, fingerprint))
+                    .orElseThrow(IdempotencyService::inProgress);
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            log.warn("Outcome of {} with {} {} is unknown, keeping the key claimed", scope, HEADER, idempotencyKey, e);
+            throw e;
+        }
+
+        if (isReleased(response)) {
+            repository.delete(record);
+        } else if (response.getStatusCode().is5xxServerError()) {
+            log.warn("Outcome of {} with {} {} is unknown after a {} response, keeping the key claimed", scope, HEADER,
+                    idempotencyKey, response.getStatusCodeValue());
+        } else {
+            record.setStatusCode(response.getStatusCodeValue());
+            record.setResponseBody(response.getBody());
+            repository.save(record);
+        }
+        return response;
+    }
+
+    private ResponseEntity<String> replay(IdempotencyRecord record, String fingerprint) {
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw keyReused();
+        }
+        if (!record.isCompleted()) {
+            throw isStale(record) ? outcomeUnknown() : inProgress();
+        }
+        return replay(ResponseEntity.status(record.getStatusCode()).body(record.getResponseBody()));
+    }
+
+    private ResponseEntity<String> await(Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            throw keyReused();
+        }
+        try {
+            return existing.response.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ResponseEntity<String> replay(ResponseEntity<String> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private static boolean isReleased(ResponseEntity<String> response) {
+        return response.getStatusCodeValue() == RELEASED_STATUS;
+    }
+
+    /**
+     * An incomplete claim older than {@code idempotency.in-flight-timeout} belongs to a request that failed or whose
+     * instance died; whether it moved money is unknown, so it is never run again automatically.
+     */
+    private boolean isStale(IdempotencyRecord record) {
+        return record.getCreatedAt().isBefore(LocalDateTime.now().minus(inFlightTimeout));
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " was already used for a different request.");
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed.");
+    }
+
+    private static ResponseStatusException outcomeUnknown() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "The outcome of the request with this " + HEADER + " is unknown; it will not be run again.");
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(long now) {
+            return response.isDone() && now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package az.azercell.topup.service;
+
+import az.azercell.topup.exceptions.CustomerNotFoundException;
+import az.azercell.topup.exceptions.CustomerServiceUnavailableException;
+import az.azercell.topup.exceptions.InvalidRefundAmountException;
+import az.azercell.topup.exceptions.TokenExpiredException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timers of the top-up pipeline, and an end-to-end timer per outcome whose count doubles as the outcome
+ * counter. All timers are registered once in {@link #bindTo}, so recording costs a {@code nanoTime} call and a
+ * histogram update, without tag lookups or allocation. Nothing is recorded before a registry is bound.
+ */
+@Component
+public class TransactionPipelineMetrics implements MeterBinder {
+
+    public enum Stage {
+        TOKEN_VALIDATION, CUSTOMER_LOOKUP, VALIDATION, BALANCE_UPDATE, TRANSACTION_INSERT
+    }
+
+    public enum Outcome {
+        SUCCESS, EXPIRED_TOKEN, NOT_FOUND, INVALID_AMOUNT, UNAVAILABLE, ERROR;
+
+        public static Outcome of(RuntimeException e) {
+            if (e instanceof TokenExpiredException) {
+                return EXPIRED_TOKEN;
+            }
+            if (e instanceof CustomerNotFoundException) {
+                return NOT_FOUND;
+            }
+            if (e instanceof InvalidRefundAmountException) {
+                return INVALID_AMOUNT;
+            }
+            if (e instanceof CustomerServiceUnavailableException) {
+                return UNAVAILABLE;
+            }
+            return ERROR;
+        }
+    }
+
+    private static final String OPERATION = "top_up";
+
+    private volatile Timer[] stageTimers;
+    private volatile Timer[] outcomeTimers;
+
+    /**
+     * Records the time since {@code sinceNanos} against {@code stage}.
+     *
+     * @return the current {@link System#nanoTime}, to pass as {@code sinceNanos} of the next stage
+     */
+    public long stage(Stage stage, long sinceNanos) {
+        long now = System.nanoTime();
+        Timer[] timers = stageTimers;
+        if (timers != null) {
+            timers[stage.ordinal()].record(now - sinceNanos, TimeUnit.NANOSECONDS);
+        }
+        return now;
+    }
+
+    public void outcome(Outcome outcome, long startedNanos) {
+        Timer[] timers = outcomeTimers;
+        if (timers != null) {
+            timers[outcome.ordinal()].record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void failure(RuntimeException e, long startedNanos) {
+        outcome(Outcome.of(e), startedNanos);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Timer[] stages = new Timer[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = Timer.builder("transaction.stage")
+                    .tag("operation", OPERATION)
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        Timer[] outcomes = new Timer[Outcome.values().length];
+        for (Outcome outcome : Outcome.values()) {
+            outcomes[outcome.ordinal()] = Timer.builder("transaction.requests")
+                    .tag("operation", OPERATION)
+                    .tag("outcome", tagValue(outcome))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        stageTimers = stages;
+        outcomeTimers = outcomes;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,6 +1,7 @@
 package az.azercell.topup.service;
 
 import az.azercell.topup.client.CustomerMicroserviceClient;
+import az.azercell.topup.dto.BalanceAdjustmentDTO;
 import az.azercell.topup.dto.CustomerDTO;
 import az.azercell.topup.dto.TransactionDTO;
 import az.azercell.topup.enumeration.CreatedBy;
@@ -10,61 +11,103 @@ import az.azercell.topup.exceptions.InvalidRefundAmountException;
 import az.azercell.topup.generic.GenericServiceImpl;
 import az.azercell.topup.model.Transaction;
 import az.azercell.topup.repository.TransactionRepository;
-import az.azercell.topup.util.JwtTokenUtil;
+import az.azercell.topup.service.TransactionPipelineMetrics.Outcome;
+import az.azercell.topup.service.TransactionPipelineMetrics.Stage;
+import feign.FeignException;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
-import static az.azercell.topup.util.CalculateBalance.calculateNewBalance;
-import static az.azercell.topup.util.JwtTokenUtil.validateToken;
+import static az.azercell.topup.util.CalculateBalance.calculateBalanceDelta;
+import static az.azercell.topup.util.JwtTokenUtil.extractCustomerId;
+import static az.azercell.topup.util.JwtTokenUtil.extractPhoneNumber;
+import static az.azercell.topup.util.JwtTokenUtil.verifyToken;
 import static az.azercell.topup.util.TransactionValidationHelper.validateCustomer;
 
 
+@Slf4j
 @Service
 public class TransactionService extends GenericServiceImpl<TransactionDTO, Transaction> {
     private final TransactionRepository repository;
     private final CustomerMicroserviceClient customerMicroserviceClient;
+    private final TransactionPipelineMetrics metrics;
 
-    public TransactionService(TransactionRepository repository, CustomerMicroserviceClient customerMicroserviceClient) {
+    public TransactionService(TransactionRepository repository, CustomerMicroserviceClient customerMicroserviceClient,
+                              TransactionPipelineMetrics metrics) {
         super(repository, TransactionDTO::new, TransactionService::dtoToEntity);
         this.repository = repository;
         this.customerMicroserviceClient = customerMicroserviceClient;
+        this.metrics = metrics;
     }
 
 
     public String addFunds(String jwtToken, double amount) {
+        long started = System.nanoTime();
+        try {
+            String result = topUp(jwtToken, amount, started);
+            metrics.outcome(Outcome.SUCCESS, started);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.failure(e, started);
+            throw e;
+        }
+    }
+
+    private String topUp(String jwtToken, double amount, long started) {
+        Claims claims = verifyToken(jwtToken);
+        long stageStarted = metrics.stage(Stage.TOKEN_VALIDATION, started);
 
-        validateToken(jwtToken);
         validateTopUpAmount(amount);
-        String gsmNumber = extractPhoneNumberFromToken(jwtToken);
-        CustomerDTO customer = getCustomerByGsmNumber(gsmNumber);
+        stageStarted = metrics.stage(Stage.VALIDATION, stageStarted);
+
+        CustomerDTO customer = resolveCustomer(claims);
         validateCustomer(customer);
-        BigDecimal newBalance = calculateNewBalance(customer.getBalance(), amount);
-        saveTransaction(customer, amount, newBalance);
-        updateCustomerBalance(customer, newBalance);
+        stageStarted = metrics.stage(Stage.CUSTOMER_LOOKUP, stageStarted);
+
+        BalanceAdjustmentDTO adjustment = adjustCustomerBalance(customer, calculateBalanceDelta(amount));
+        stageStarted = metrics.stage(Stage.BALANCE_UPDATE, stageStarted);
+        try {
+            saveTransaction(customer, amount, adjustment);
+        } catch (RuntimeException e) {
+            revertCustomerBalance(customer, adjustment, e);
+            throw e;
+        }
+        metrics.stage(Stage.TRANSACTION_INSERT, stageStarted);
 
-        return "Fund successful. New balance: " + newBalance;
+        return "Fund successful. New balance: " + adjustment.getBalanceAfter();
     }
 
-
     protected void validateTopUpAmount(double amount) {
 
         if (amount < 0.01 || amount > 1000) {
             throw new InvalidRefundAmountException("Invalid amount for Top-Up.");
         }
     }
-    private String extractPhoneNumberFromToken(String jwtToken) {
-        return JwtTokenUtil.extractPhoneNumber(jwtToken);
-    }
     @Override
     public Transaction save(TransactionDTO dto) {
         Transaction entity = dtoToEntity(dto, Optional.empty());
         Transaction saved = repository.save(entity);
+        invalidateTotalCount();
         return saved;
     }
 
+    /**
+     * A token minted at login carries the customer id, which is all the balance adjustment needs. Older tokens only
+     * carry the GSM number, which still costs a customer lookup.
+     */
+    protected CustomerDTO resolveCustomer(Claims claims) {
+        Long customerId = extractCustomerId(claims);
+        if (customerId != null) {
+            return CustomerDTO.builder().id(customerId).build();
+        }
+        return getCustomerByGsmNumber(extractPhoneNumber(claims));
+    }
+
     protected CustomerDTO getCustomerByGsmNumber(String gsmNumber) {
         CustomerDTO customer = customerMicroserviceClient.getCustomerByGsmNumber(gsmNumber);
         if (customer == null) {
@@ -73,14 +116,41 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
         return customer;
     }
 
-    protected void saveTransaction(CustomerDTO customer, double amount, BigDecimal newBalance) {
-        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, newBalance);
+    protected void saveTransaction(CustomerDTO customer, double amount, BalanceAdjustmentDTO adjustment) {
+        TransactionDTO transactionDTO = customerToTransactionDTO(customer, Optional.empty(), amount, adjustment);
         save(transactionDTO);
     }
 
-    protected void updateCustomerBalance(CustomerDTO customer, BigDecimal newBalance) {
-        customer.setBalance(newBalance);
-        customerMicroserviceClient.updateCustomer(customer, customer.getId());
+    protected BalanceAdjustmentDTO adjustCustomerBalance(CustomerDTO customer, BigDecimal delta) {
+        try {
+            BalanceAdjustmentDTO adjustment = customerMicroserviceClient.adjustBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+            customer.setBalance(adjustment.getBalanceAfter());
+            return adjustment;
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_FOUND.value()) {
+                throw new CustomerNotFoundException("Customer not found.");
+            }
+            if (e.status() == HttpStatus.UNPROCESSABLE_ENTITY.value()) {
+                throw new InvalidRefundAmountException("Invalid amount for Top-Up.");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Credits back {@code adjustment} after the transaction row could not be written. A failed compensation is logged
+     * for reconciliation and attached to {@code cause}, which stays the error the caller sees.
+     */
+    protected void revertCustomerBalance(CustomerDTO customer, BalanceAdjustmentDTO adjustment,
+                                         RuntimeException cause) {
+        BigDecimal delta = adjustment.getDelta().negate();
+        try {
+            customerMicroserviceClient.compensateBalance(customer.getId(), BalanceAdjustmentDTO.of(delta));
+        } catch (RuntimeException e) {
+            log.error("Could not revert a balance adjustment of {} for customer {}; the balance needs reconciling",
+                    adjustment.getDelta(), customer.getId(), e);
+            cause.addSuppressed(e);
+        }
     }
 
     protected static Transaction dtoToEntity(TransactionDTO dto, Optional<Transaction> existingEntity) {
@@ -99,11 +169,11 @@ public class TransactionService extends GenericServiceImpl<TransactionDTO, Trans
 
     protected static TransactionDTO customerToTransactionDTO(CustomerDTO customer,
                                                              Optional<TransactionDTO> existingDto,
-                                                             double amount, BigDecimal newBalance) {
+                                                             double amount, BalanceAdjustmentDTO adjustment) {
         TransactionDTO dto = existingDto.orElseGet(TransactionDTO::new);
         dto.setAmount(BigDecimal.valueOf(amount));
-        dto.setAfterAmount(customer.getBalance());
-        dto.setBeforeAmount(newBalance);
+        dto.setBeforeAmount(adjustment.getBalanceBefore());
+        dto.setAfterAmount(adjustment.getBalanceAfter());
         dto.setOperatedAt(LocalDateTime.now());
         dto.setTransactionTypeId(TransactionType.IN.getOrder());
         dto.setCustomerId(customer.getId());
@@ -8,7 +8,11 @@ import java.math.BigDecimal;
 public class CalculateBalance {
 
     public static BigDecimal calculateNewBalance(BigDecimal currentBalance, double amount) {
-        return currentBalance.add(BigDecimal.valueOf(amount));
+        return currentBalance.add(calculateBalanceDelta(amount));
+    }
+
+    public static BigDecimal calculateBalanceDelta(double amount) {
+        return BigDecimal.valueOf(amount);
     }
 
 }
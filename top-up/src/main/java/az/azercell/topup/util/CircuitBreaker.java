@@ -0,0 +1,171 @@
+package az.azercell.topup.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker. The outcomes of the last {@code windowSize} calls are kept in a ring; once at least
+ * {@code minimumCalls} are recorded and either the failure rate or the rate of calls slower than
+ * {@code slowCallNanos} reaches its threshold, the breaker opens and rejects calls for {@code openNanos}. It then lets
+ * {@code halfOpenCalls} trial calls through and closes again only if they stay under both thresholds.
+ * <p>
+ * Callers ask {@link #tryAcquire} before a call and report it through {@link #onResult} afterwards.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenPermitted;
+    private int halfOpenRecorded;
+    private int halfOpenFailures;
+    private int halfOpenSlowCalls;
+
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder slowCallCount = new LongAdder();
+    private final LongAdder notPermittedCalls = new LongAdder();
+
+    /**
+     * @param failureRateThreshold  percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold percentage of slow calls that opens the breaker
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, float failureRateThreshold, float slowCallRateThreshold,
+                          long slowCallNanos, long openNanos, int halfOpenCalls) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be positive, "
+                    + "and minimumCalls at most windowSize.");
+        }
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    public synchronized boolean tryAcquire(long nowNanos) {
+        if (state == State.OPEN) {
+            if (nowNanos - openUntil < 0) {
+                notPermittedCalls.increment();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermitted = 0;
+            halfOpenRecorded = 0;
+            halfOpenFailures = 0;
+            halfOpenSlowCalls = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= halfOpenCalls) {
+                notPermittedCalls.increment();
+                return false;
+            }
+            halfOpenPermitted++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(long nowNanos, long durationNanos, boolean failure) {
+        boolean slowCall = durationNanos >= slowCallNanos;
+        (failure ? failedCalls : successfulCalls).increment();
+        if (slowCall) {
+            slowCallCount.increment();
+        }
+
+        if (state == State.HALF_OPEN) {
+            halfOpenRecorded++;
+            halfOpenFailures += failure ? 1 : 0;
+            halfOpenSlowCalls += slowCall ? 1 : 0;
+            if (halfOpenRecorded >= halfOpenCalls) {
+                if (exceedsThresholds(halfOpenFailures, halfOpenSlowCalls, halfOpenRecorded)) {
+                    open(nowNanos);
+                } else {
+                    close();
+                }
+            }
+        } else if (state == State.CLOSED) {
+            record(failure, slowCall);
+            if (recorded >= minimumCalls && exceedsThresholds(failures, slowCalls, recorded)) {
+                open(nowNanos);
+            }
+        }
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+    }
+
+    private boolean exceedsThresholds(int failureCount, int slowCount, int total) {
+        return failureCount * 100f / total >= failureRateThreshold || slowCount * 100f / total >= slowCallRateThreshold;
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openUntil = nowNanos + openNanos;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return the failure rate of the current window in percent, or -1 while fewer than {@code minimumCalls} are
+     * recorded
+     */
+    public synchronized float failureRate() {
+        return recorded < minimumCalls ? -1 : failures * 100f / recorded;
+    }
+
+    public long successfulCalls() {
+        return successfulCalls.sum();
+    }
+
+    public long failedCalls() {
+        return failedCalls.sum();
+    }
+
+    public long slowCalls() {
+        return slowCallCount.sum();
+    }
+
+    public long notPermittedCalls() {
+        return notPermittedCalls.sum();
+    }
+}
@@ -2,50 +2,94 @@ package az.azercell.topup.util;
 
 import az.azercell.topup.exceptions.TokenExpiredException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
-
-import java.util.Date;
-
 @Component
 public class JwtTokenUtil {
 
+    /**
+     * Customer id claim of tokens minted at login. Older tokens only carry the GSM number as subject.
+     */
+    public static final String CUSTOMER_ID_CLAIM = "customerId";
+
     private static final String secret = "2fbb5d7c0c13e52e4d6ab7f9021f98d63ec32a0d5cf63e58";
+    private static final int CLAIMS_CACHE_SIZE = 10_000;
 
-    public static String extractPhoneNumber(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
+    private static final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+            .build();
+    private static final JwtClaimsCache claimsCache = new JwtClaimsCache(CLAIMS_CACHE_SIZE);
 
-            return claims.getSubject();
-        } catch (Exception e) {
+    /**
+     * Verifies the token once and returns its claims, or {@code null} when the token is malformed or its signature
+     * does not match. Verified claims are cached until the token expires.
+     *
+     * @throws TokenExpiredException when the token has expired
+     */
+    public static Claims verifyToken(String token) {
+        if (token == null) {
             return null;
         }
-    }
 
-    public static void validateToken(String jwtToken) {
-        if (isTokenExpired(jwtToken)) {
+        Claims claims = claimsCache.get(token);
+        if (claims != null) {
+            return claims;
+        }
+
+        long started = ServerTiming.start();
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
             throw new TokenExpiredException("Token has expired.");
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        } finally {
+            ServerTiming.stop(ServerTiming.Stage.JWT, started);
         }
+
+        claimsCache.put(token, claims);
+        return claims;
     }
 
-    public static boolean isTokenExpired(String token) {
-        Date expirationDate = extractExpiration(token);
-        return expirationDate != null && expirationDate.before(new Date());
+    public static String extractPhoneNumber(Claims claims) {
+        return claims == null ? null : claims.getSubject();
     }
 
-    private static Date extractExpiration(String token) {
+    public static String extractPhoneNumber(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            return claims.getExpiration();
-        } catch (Exception e) {
+            return extractPhoneNumber(verifyToken(token));
+        } catch (TokenExpiredException e) {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the id of the customer the token was minted for, or {@code null} if the token does not carry one
+     */
+    public static Long extractCustomerId(Claims claims) {
+        Object customerId = claims == null ? null : claims.get(CUSTOMER_ID_CLAIM);
+        return customerId instanceof Number ? ((Number) customerId).longValue() : null;
+    }
+
+    public static void validateToken(String jwtToken) {
+        verifyToken(jwtToken);
+    }
+
+    public static boolean isTokenExpired(String token) {
+        try {
+            verifyToken(token);
+            return false;
+        } catch (TokenExpiredException e) {
+            return true;
+        }
+    }
+
+    static JwtClaimsCache getClaimsCache() {
+        return claimsCache;
+    }
+}
@@ -0,0 +1,74 @@
+package az.azercell.topup.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: sort column, direction, the row's value in that column and its id
+ * as tie-breaker. Travels as Base64url encoded JSON so clients treat it as an opaque token.
+ */
+@Getter
+@AllArgsConstructor
+public final class KeysetCursor
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String column;
+    private final boolean descending;
+    private final String value;
+    private final Long id;
+
+    public Sort.Order toOrder()
+    {
+        return new Sort.Order(descending ? Sort.Direction.DESC : Sort.Direction.ASC, column);
+    }
+
+    public String encode()
+    {
+        ArrayNode node = MAPPER.createArrayNode()
+                .add(column)
+                .add(descending)
+                .add(value)
+                .add(id);
+        try
+        {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(node));
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Cursor could not be encoded", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String token)
+    {
+        JsonNode node;
+        try
+        {
+            node = MAPPER.readTree(Base64.getUrlDecoder().decode(token));
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        if (node == null || !node.isArray() || node.size() != 4 || !node.get(0).isTextual()
+                || !node.get(1).isBoolean() || !node.get(3).canConvertToLong())
+        {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        String value = node.get(2).isNull() ? null : node.get(2).asText();
+        return new KeysetCursor(node.get(0).asText(), node.get(1).asBoolean(), value, node.get(3).asLong());
+    }
+}
@@ -0,0 +1,122 @@
+package az.azercell.topup.util;
+
+import java.util.Arrays;
+
+/**
+ * Per-request stage durations for the {@code Server-Timing} response header. Each thread keeps one context that is
+ * reset at the start of every request, so timing a stage only adds to a slot of a {@code long[]}. While timing is
+ * disabled, or outside a request, {@link #start} returns {@link #NOT_STARTED} without reading the clock.
+ * <p>
+ * Callers bracket a stage with {@code long started = ServerTiming.start(); ... ServerTiming.stop(stage, started);}.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    public enum Stage {
+        JWT("jwt"),
+        CUSTOMER_CLIENT("customer-client"),
+        REPOSITORY("db"),
+        SERIALIZATION("serialization");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<ServerTiming> CURRENT = ThreadLocal.withInitial(ServerTiming::new);
+    private static volatile boolean enabled;
+
+    private final long[] nanos = new long[STAGES.length];
+    private boolean active;
+    private long startedAt;
+    private long serializationStartedAt;
+
+    private ServerTiming() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Resets the current thread's context and starts timing the request.
+     */
+    public static ServerTiming begin() {
+        ServerTiming timing = CURRENT.get();
+        Arrays.fill(timing.nanos, 0);
+        timing.serializationStartedAt = NOT_STARTED;
+        timing.startedAt = System.nanoTime();
+        timing.active = true;
+        return timing;
+    }
+
+    public static long start() {
+        if (!enabled) {
+            return NOT_STARTED;
+        }
+        return CURRENT.get().active ? System.nanoTime() : NOT_STARTED;
+    }
+
+    public static void stop(Stage stage, long startedNanos) {
+        if (startedNanos == NOT_STARTED) {
+            return;
+        }
+        ServerTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.nanos[stage.ordinal()] += System.nanoTime() - startedNanos;
+        }
+    }
+
+    /**
+     * Marks the start of writing the response body; serialization lasts until {@link #end}.
+     */
+    public static void startSerialization() {
+        if (!enabled) {
+            return;
+        }
+        ServerTiming timing = CURRENT.get();
+        if (timing.active && timing.serializationStartedAt == NOT_STARTED) {
+            timing.serializationStartedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops timing the request and returns the header value, e.g. {@code jwt;dur=0.08, db;dur=1.52, total;dur=4.91}.
+     * Stages that did not run are left out.
+     */
+    public String end() {
+        long now = System.nanoTime();
+        if (serializationStartedAt != NOT_STARTED) {
+            nanos[Stage.SERIALIZATION.ordinal()] += now - serializationStartedAt;
+        }
+        active = false;
+
+        StringBuilder header = new StringBuilder(96);
+        for (Stage stage : STAGES) {
+            if (nanos[stage.ordinal()] > 0) {
+                append(header, stage.metricName, nanos[stage.ordinal()]);
+                header.append(", ");
+            }
+        }
+        append(header, "total", now - startedAt);
+        return header.toString();
+    }
+
+    /**
+     * Appends {@code name;dur=<milliseconds>} with two decimals.
+     */
+    private static void append(StringBuilder header, String name, long nanos) {
+        long hundredthsOfMillis = nanos / 10_000;
+        long fraction = hundredthsOfMillis % 100;
+        header.append(name).append(";dur=").append(hundredthsOfMillis / 100).append('.');
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
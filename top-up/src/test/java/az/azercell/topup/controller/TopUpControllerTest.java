@@ -3,6 +3,7 @@ package az.azercell.topup.controller;
 import az.azercell.topup.exceptions.CustomerNotFoundException;
 import az.azercell.topup.exceptions.InvalidRefundAmountException;
 import az.azercell.topup.exceptions.TokenExpiredException;
+import az.azercell.topup.service.IdempotencyService;
 import az.azercell.topup.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyDouble;
@@ -35,10 +38,14 @@ public class TopUpControllerTest {
     private TopUpController topUpController;
     @Mock
     private TransactionService transactionService;
+    @Mock
+    private IdempotencyService idempotencyService;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<String>>>getArgument(4).get());
         mockMvc = MockMvcBuilders.standaloneSetup(topUpController).build();
     }
 
@@ -48,7 +55,7 @@ public class TopUpControllerTest {
         when(transactionService.addFunds(anyString(), anyDouble())).thenReturn("Funds successful.");
 
         // Perform the test
-        ResponseEntity<String> response = topUpController.addFunds("mockedToken", 50.0);
+        ResponseEntity<String> response = topUpController.addFunds("mockedToken", 50.0, null);
 
         // Assert the response
         assertAll(() -> {
@@ -63,7 +70,7 @@ public class TopUpControllerTest {
 
         when(transactionService.addFunds(anyString(), anyDouble())).thenReturn("Funds successful.");
 
-        ResponseEntity<String> response = topUpController.addFunds("mockedToken", 50.0);
+        ResponseEntity<String> response = topUpController.addFunds("mockedToken", 50.0, null);
 
         assertAll(() -> {
             verify(transactionService, times(1)).addFunds(anyString(), anyDouble());
@@ -1,6 +1,7 @@
 package az.azercell.topup.service;
 
 import az.azercell.topup.client.CustomerMicroserviceClient;
+import az.azercell.topup.dto.BalanceAdjustmentDTO;
 import az.azercell.topup.dto.CustomerDTO;
 import az.azercell.topup.dto.TransactionDTO;
 import az.azercell.topup.enumeration.CreatedBy;
@@ -35,6 +36,9 @@ public class TransactionServiceTests {
     @Mock
     private CustomerMicroserviceClient customerMicroserviceClient;
 
+    @Mock
+    private TransactionPipelineMetrics metrics;
+
 
     private CustomerDTO createCustomerDTO() {
         CustomerDTO customerDTO = new CustomerDTO();
@@ -59,7 +63,7 @@ public class TransactionServiceTests {
         when(customerMicroserviceClient.getCustomerByGsmNumber(anyString())).thenReturn(customer);
 
         assertThrows(InvalidRefundAmountException.class, () -> transactionService.addFunds(jwtToken, topUpAmount));
-        verify(customerMicroserviceClient, never()).updateCustomer(any(CustomerDTO.class), anyLong());
+        verify(customerMicroserviceClient, never()).adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
@@ -72,7 +76,7 @@ public class TransactionServiceTests {
         when(customerMicroserviceClient.getCustomerByGsmNumber(anyString())).thenReturn(null);
 
         assertThrows(CustomerNotFoundException.class, () -> transactionService.addFunds(jwtToken, topUpAmount));
-        verify(customerMicroserviceClient, never()).updateCustomer(any(CustomerDTO.class), anyLong());
+        verify(customerMicroserviceClient, never()).adjustBalance(anyLong(), any(BalanceAdjustmentDTO.class));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
@@ -141,17 +145,18 @@ public class TransactionServiceTests {
         customer.setId(1L);
         customer.setBalance(BigDecimal.valueOf(500));
         double amount = 100.0;
-        BigDecimal newBalance = customer.getBalance().subtract(BigDecimal.valueOf(amount));
+        BalanceAdjustmentDTO adjustment = new BalanceAdjustmentDTO(customer.getId(), BigDecimal.valueOf(amount),
+                customer.getBalance(), customer.getBalance().add(BigDecimal.valueOf(amount)));
 
         TransactionDTO existingDto = new TransactionDTO();
         existingDto.setAmount(BigDecimal.valueOf(50));
         existingDto.setAfterAmount(BigDecimal.valueOf(450));
 
-        TransactionDTO result = TransactionService.customerToTransactionDTO(customer, Optional.of(existingDto), amount, newBalance);
+        TransactionDTO result = TransactionService.customerToTransactionDTO(customer, Optional.of(existingDto), amount, adjustment);
 
         assertEquals(BigDecimal.valueOf(amount), result.getAmount());
-        assertEquals(customer.getBalance(), result.getAfterAmount());
-        assertEquals(newBalance, result.getBeforeAmount());
+        assertEquals(adjustment.getBalanceBefore(), result.getBeforeAmount());
+        assertEquals(adjustment.getBalanceAfter(), result.getAfterAmount());
         assertEquals(LocalDateTime.now().getYear(), result.getOperatedAt().getYear());
         assertEquals(TransactionType.IN.getOrder(), result.getTransactionTypeId());
         assertEquals(customer.getId(), result.getCustomerId());
@@ -164,13 +169,14 @@ public class TransactionServiceTests {
         customer.setId(1L);
         customer.setBalance(BigDecimal.valueOf(500));
         double amount = 100.0;
-        BigDecimal newBalance = customer.getBalance().subtract(BigDecimal.valueOf(amount));
+        BalanceAdjustmentDTO adjustment = new BalanceAdjustmentDTO(customer.getId(), BigDecimal.valueOf(amount),
+                customer.getBalance(), customer.getBalance().add(BigDecimal.valueOf(amount)));
 
-        TransactionDTO result = TransactionService.customerToTransactionDTO(customer, Optional.empty(), amount, newBalance);
+        TransactionDTO result = TransactionService.customerToTransactionDTO(customer, Optional.empty(), amount, adjustment);
 
         assertEquals(BigDecimal.valueOf(amount), result.getAmount());
-        assertEquals(customer.getBalance(), result.getAfterAmount());
-        assertEquals(newBalance, result.getBeforeAmount());
+        assertEquals(adjustment.getBalanceBefore(), result.getBeforeAmount());
+        assertEquals(adjustment.getBalanceAfter(), result.getAfterAmount());
         assertEquals(LocalDateTime.now().getYear(), result.getOperatedAt().getYear());
         assertEquals(TransactionType.IN.getOrder(), result.getTransactionTypeId());
         assertEquals(customer.getId(), result.getCustomerId());